@@ -0,0 +1,73 @@
+package at.diwh.comfortableduration.benchmark;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import at.diwh.comfortableduration.util.Arbeitskalender;
+
+/**
+ * Arbeitstage zwischen zwei Daten: Schleife über die Tage mit Wochentag und Feiertags-Set gegen
+ * {@link Arbeitskalender} (O(1) über Bits und Präfixsummen).
+ * 
+ * @author diwh
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ArbeitskalenderBenchmark {
+
+    @Param({ "30", "365" })
+    private int tage;
+
+    private Arbeitskalender kalender;
+    private Set<LocalDate> feiertage;
+    private LocalDate von;
+    private LocalDate bis;
+
+    @Setup
+    public void setup() {
+        kalender = Arbeitskalender.oesterreich(2020, 2030);
+        feiertage = Arbeitskalender.feiertageOesterreich(2020, 2030);
+        von = LocalDate.of(2024, 3, 15);
+        bis = von.plusDays(tage);
+    }
+
+    @Benchmark
+    public long schleife() {
+        long anzahl = 0L;
+        for (LocalDate d = von; d.isBefore(bis); d = d.plusDays(1)) {
+            DayOfWeek w = d.getDayOfWeek();
+            if (w != DayOfWeek.SATURDAY && w != DayOfWeek.SUNDAY && !feiertage.contains(d)) {
+                anzahl++;
+            }
+        }
+        return anzahl;
+    }
+
+    @Benchmark
+    public long kalender() {
+        return kalender.arbeitstage(von, bis);
+    }
+
+    @Benchmark
+    public long arbeitszeitNanos() {
+        return kalender.arbeitsNanosZwischenTagen(von.toEpochDay(), bis.toEpochDay());
+    }
+}
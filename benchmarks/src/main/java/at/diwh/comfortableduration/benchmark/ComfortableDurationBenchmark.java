@@ -0,0 +1,149 @@
+package at.diwh.comfortableduration.benchmark;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import at.diwh.comfortableduration.util.ComfortableDuration;
+import at.diwh.comfortableduration.util.DauerFormat;
+import at.diwh.comfortableduration.util.DauerParser;
+import at.diwh.comfortableduration.util.DauerZwischenspeicher;
+
+/**
+ * Misst Konstruktor, getInhalt() und toString() von {@link ComfortableDuration}. Zum Vergleich ist die frühere
+ * Zerlegung über LinkedHashMap und Duration.minus(...) als <i>legacyZerlegung</i> nachgebaut. Dazu die Ausgabe über
+ * DauerFormat in einen wiederverwendeten StringBuilder bzw. direkten ByteBuffer, und das Einlesen über DauerParser
+ * im Vergleich zu Duration.parse. Für häufige Dauern die geteilten Instanzen aus ComfortableDuration.of(...) und
+ * der DauerZwischenspeicher für einen krummen Wert.
+ * 
+ * @author diwh
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ComfortableDurationBenchmark {
+
+    private Duration dauer;
+    private ComfortableDuration cd;
+    private StringBuilder builder;
+    private ByteBuffer puffer;
+    private DauerParser parser;
+    private String iso;
+    private String text;
+    private ByteBuffer isoBytes;
+    private DauerZwischenspeicher zwischenspeicher;
+
+    /**
+     * PT1990H40M32.025S aus dem Javadoc von ComfortableDuration
+     */
+    @Setup
+    public void setup() {
+        dauer = Duration.parse("PT1990H40M32.025S");
+        cd = new ComfortableDuration(dauer);
+        builder = new StringBuilder(256);
+        puffer = ByteBuffer.allocateDirect(256);
+        parser = new DauerParser();
+        iso = dauer.toString();
+        text = cd.toString();
+        isoBytes = ByteBuffer.allocateDirect(64);
+        DauerFormat.ISO8601.format(cd, isoBytes);
+        isoBytes.flip();
+        zwischenspeicher = new DauerZwischenspeicher(1024);
+    }
+
+    @Benchmark
+    public ComfortableDuration konstruktor() {
+        return new ComfortableDuration(dauer);
+    }
+
+    @Benchmark
+    public ComfortableDuration ofSekunden() {
+        return ComfortableDuration.ofSekunden(7180832L, 25000000);
+    }
+
+    @Benchmark
+    public ComfortableDuration ofKanonisch() {
+        return ComfortableDuration.of(86400L);
+    }
+
+    @Benchmark
+    public ComfortableDuration ofZwischenspeicher() {
+        return zwischenspeicher.of(7180832L, 25000000);
+    }
+
+    @Benchmark
+    public Map<String, Long> getInhalt() {
+        return cd.getInhalt();
+    }
+
+    @Benchmark
+    public String toStringAusgabe() {
+        return cd.toString();
+    }
+
+    @Benchmark
+    public StringBuilder formatInStringBuilder() {
+        builder.setLength(0);
+        return DauerFormat.DEUTSCH.format(cd, builder);
+    }
+
+    @Benchmark
+    public ByteBuffer formatKompaktInByteBuffer() {
+        puffer.clear();
+        return DauerFormat.KOMPAKT.format(cd, puffer);
+    }
+
+    @Benchmark
+    public Duration durationParse() {
+        return Duration.parse(iso);
+    }
+
+    @Benchmark
+    public ComfortableDuration parserIso() {
+        return parser.parse(iso);
+    }
+
+    @Benchmark
+    public ComfortableDuration parserText() {
+        return parser.parse(text);
+    }
+
+    @Benchmark
+    public long parserIsoAusByteBuffer() {
+        parser.lese(isoBytes, 0, isoBytes.limit());
+        return parser.sekunden() + parser.nanos();
+    }
+
+    @Benchmark
+    public Map<String, Long> legacyZerlegung() {
+        Duration t = dauer;
+        Map<String, Long> result = new LinkedHashMap<String, Long>();
+        long tage = t.toDays();
+        result.put("Tage", Long.valueOf(tage));
+        long stunden = t.minus(tage, ChronoUnit.DAYS).toHours();
+        result.put("Stunden", Long.valueOf(stunden));
+        long minuten = t.minus(tage, ChronoUnit.DAYS).toMinutes() - (stunden * 60);
+        result.put("Minuten", Long.valueOf(minuten));
+        long sekunden = t.minus(tage, ChronoUnit.DAYS).getSeconds() - (stunden * 60 * 60) - (minuten * 60);
+        result.put("Sekunden", Long.valueOf(sekunden));
+        result.put("Nanosekunden", Long.valueOf(t.getNano()));
+        return result;
+    }
+}
@@ -0,0 +1,76 @@
+package at.diwh.comfortableduration.benchmark;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import at.diwh.comfortableduration.util.ComfortableDuration;
+import at.diwh.comfortableduration.util.DatumKonverter;
+
+/**
+ * Vergleicht die Umwandlung Date -> LocalDateTime / LocalDate über den String-Umweg (dateToLocalDateTime,
+ * dateToLocalDate mit Locale, inzwischen direkt über DatumKonverter) mit den Varianten über Instant.
+ * 
+ * @author diwh
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DateKonvertierungBenchmark {
+
+    private Date datum;
+    private TimeZone ort;
+    private Locale sprache;
+    private ZoneId zone;
+
+    @Setup
+    public void setup() {
+        datum = new Date(1611304928295L); // Fri Jan 22 09:42:08.295 CET 2021
+        ort = TimeZone.getTimeZone("Europe/Vienna");
+        sprache = Locale.GERMAN;
+        zone = ZoneId.of("Europe/Vienna");
+    }
+
+    @Benchmark
+    public LocalDateTime dateToLocalDateTime() {
+        return ComfortableDuration.dateToLocalDateTime(datum, sprache, ort);
+    }
+
+    @Benchmark
+    public LocalDateTime convertToLocalDateTimeViaInstant() {
+        return ComfortableDuration.convertToLocalDateTimeViaInstant(datum, ort);
+    }
+
+    @Benchmark
+    public LocalDateTime datumKonverterZoneId() {
+        return DatumKonverter.toLocalDateTime(datum.getTime(), zone);
+    }
+
+    @Benchmark
+    public LocalDate dateToLocalDate() {
+        return ComfortableDuration.dateToLocalDate(datum, sprache, ort);
+    }
+
+    @Benchmark
+    public LocalDate dateToLocalDateViaInstant() {
+        return ComfortableDuration.dateToLocalDate(datum, ort);
+    }
+}
@@ -0,0 +1,87 @@
+package at.diwh.comfortableduration.benchmark;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import at.diwh.comfortableduration.util.ComfortableDuration;
+import at.diwh.comfortableduration.util.DauerCodec;
+import at.diwh.comfortableduration.util.DauerParser;
+
+/**
+ * Schreiben und Lesen von PT1990H40M32.025S über {@link DauerCodec} (5 Bytes) im Vergleich zur Textform über
+ * toString() und DauerParser (107 Zeichen).
+ * 
+ * @author diwh
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DauerCodecBenchmark {
+
+    private ComfortableDuration cd;
+    private byte[] bytes;
+    private ByteBuffer puffer;
+    private DauerCodec.Wert wert;
+    private DauerParser parser;
+    private String text;
+
+    @Setup
+    public void setup() {
+        cd = new ComfortableDuration(Duration.parse("PT1990H40M32.025S"));
+        bytes = new byte[DauerCodec.MAX_LAENGE];
+        DauerCodec.schreibe(cd, bytes, 0);
+        puffer = ByteBuffer.allocateDirect(DauerCodec.MAX_LAENGE);
+        wert = new DauerCodec.Wert();
+        parser = new DauerParser();
+        text = cd.toString();
+    }
+
+    @Benchmark
+    public int schreibeBytes() {
+        return DauerCodec.schreibe(cd, bytes, 0);
+    }
+
+    @Benchmark
+    public ByteBuffer schreibeByteBuffer() {
+        puffer.clear();
+        DauerCodec.schreibe(cd, puffer);
+        return puffer;
+    }
+
+    @Benchmark
+    public long leseInWert() {
+        DauerCodec.lese(bytes, 0, wert);
+        return wert.gesamtSekunden() + wert.nanos();
+    }
+
+    @Benchmark
+    public ComfortableDuration leseByteBuffer() {
+        puffer.rewind();
+        return DauerCodec.lese(puffer);
+    }
+
+    @Benchmark
+    public String textSchreiben() {
+        return cd.toString();
+    }
+
+    @Benchmark
+    public ComfortableDuration textLesen() {
+        return parser.parse(text);
+    }
+}
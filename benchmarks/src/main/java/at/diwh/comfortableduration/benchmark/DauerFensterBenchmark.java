@@ -0,0 +1,127 @@
+package at.diwh.comfortableduration.benchmark;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import at.diwh.comfortableduration.util.DauerAddierer;
+import at.diwh.comfortableduration.util.DauerFenster;
+
+/**
+ * Statistik für 1, 5 und 15 Minuten über einen Strom von 100 Dauern pro Sekunde (90000 im längsten Fenster): die
+ * Rohwerte in einer ArrayDeque mit Zeitstempel halten, alte vorne entfernen und für jede Abfrage durchlaufen, gegen
+ * {@link DauerFenster} mit Eimern zu einer Sekunde. Gemessen werden Erfassen (inkl. Entfernen) und Abfragen.
+ * 
+ * @author diwh
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DauerFensterBenchmark {
+
+    private static final long ABSTAND = TimeUnit.MILLISECONDS.toNanos(10L);
+    private static final long[] FENSTER_NANOS = { TimeUnit.MINUTES.toNanos(1L), TimeUnit.MINUTES.toNanos(5L),
+            TimeUnit.MINUTES.toNanos(15L) };
+    private static final Duration[] FENSTER = { Duration.ofMinutes(1L), Duration.ofMinutes(5L),
+            Duration.ofMinutes(15L) };
+
+    private ArrayDeque<long[]> roh;
+    private DauerFenster einSchreiber;
+    private DauerFenster mehrereSchreiber;
+    private long jetzt;
+    private long dauer;
+
+    @Setup
+    public void setup() {
+        roh = new ArrayDeque<long[]>();
+        einSchreiber = DauerFenster.fuerEinenSchreiber(Duration.ofSeconds(1L), Duration.ofMinutes(15L));
+        mehrereSchreiber = DauerFenster.fuerMehrereSchreiber(Duration.ofSeconds(1L), Duration.ofMinutes(15L));
+        jetzt = TimeUnit.DAYS.toNanos(1L);
+        for (int i = 0; i < 90000; i++) {
+            naechster();
+            rohErfassen();
+            einSchreiber.erfasse(dauer, jetzt);
+            mehrereSchreiber.erfasse(dauer, jetzt);
+        }
+    }
+
+    private void naechster() {
+        jetzt += ABSTAND;
+        dauer = (dauer * 6364136223846793005L + 1442695040888963407L) >>> 40; // bis ca. 16 ms
+    }
+
+    private void rohErfassen() {
+        roh.addLast(new long[] { jetzt, dauer });
+        long grenze = jetzt - FENSTER_NANOS[FENSTER_NANOS.length - 1];
+        while (roh.peekFirst()[0] <= grenze) {
+            roh.pollFirst();
+        }
+    }
+
+    @Benchmark
+    public int erfassenRoh() {
+        naechster();
+        rohErfassen();
+        return roh.size();
+    }
+
+    @Benchmark
+    public long erfassenEinSchreiber() {
+        naechster();
+        einSchreiber.erfasse(dauer, jetzt);
+        return jetzt;
+    }
+
+    @Benchmark
+    public long erfassenMehrereSchreiber() {
+        naechster();
+        mehrereSchreiber.erfasse(dauer, jetzt);
+        return jetzt;
+    }
+
+    @Benchmark
+    public long[] abfrageRoh() {
+        long[] ergebnis = new long[FENSTER_NANOS.length * 3];
+        for (int f = 0; f < FENSTER_NANOS.length; f++) {
+            ergebnis[f * 3 + 2] = Long.MIN_VALUE;
+        }
+        Iterator<long[]> it = roh.descendingIterator();
+        while (it.hasNext()) {
+            long[] wert = it.next();
+            long alter = jetzt - wert[0];
+            for (int f = 0; f < FENSTER_NANOS.length; f++) {
+                if (alter < FENSTER_NANOS[f]) {
+                    ergebnis[f * 3]++;
+                    ergebnis[f * 3 + 1] += wert[1];
+                    ergebnis[f * 3 + 2] = Math.max(ergebnis[f * 3 + 2], wert[1]);
+                }
+            }
+        }
+        return ergebnis;
+    }
+
+    @Benchmark
+    public DauerAddierer.Stand[] abfrageEinSchreiber() {
+        return einSchreiber.staende(jetzt, FENSTER);
+    }
+
+    @Benchmark
+    public DauerAddierer.Stand[] abfrageMehrereSchreiber() {
+        return mehrereSchreiber.staende(jetzt, FENSTER);
+    }
+}
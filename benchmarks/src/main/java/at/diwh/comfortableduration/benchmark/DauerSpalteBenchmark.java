@@ -0,0 +1,93 @@
+package at.diwh.comfortableduration.benchmark;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import at.diwh.comfortableduration.util.ComfortableDuration;
+import at.diwh.comfortableduration.util.DauerSpalte;
+
+/**
+ * Summe und Maximum über viele Dauern: List&lt;Duration&gt; auf dem Heap gegen eine {@link DauerSpalte} in direkten
+ * ByteBuffern, in beiden Formaten.
+ * 
+ * @author diwh
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DauerSpalteBenchmark {
+
+    @Param({ "1000000" })
+    private int anzahl;
+
+    private List<Duration> liste;
+    private DauerSpalte nanos;
+    private DauerSpalte sekundenNanos;
+
+    @Setup
+    public void setup() {
+        Random zufall = new Random(42L);
+        liste = new ArrayList<Duration>(anzahl);
+        nanos = DauerSpalte.imSpeicher(DauerSpalte.Format.NANOS);
+        sekundenNanos = DauerSpalte.imSpeicher(DauerSpalte.Format.SEKUNDEN_NANOS);
+        for (int i = 0; i < anzahl; i++) {
+            long wert = (long) Math.exp(zufall.nextGaussian() * 3.0 + 15.0);
+            liste.add(Duration.ofNanos(wert));
+            nanos.dazu(wert);
+            sekundenNanos.dazu(wert);
+        }
+    }
+
+    @Benchmark
+    public Duration listeSumme() {
+        Duration summe = Duration.ZERO;
+        for (Duration d : liste) {
+            summe = summe.plus(d);
+        }
+        return summe;
+    }
+
+    @Benchmark
+    public Duration listeMax() {
+        Duration max = liste.get(0);
+        for (Duration d : liste) {
+            if (d.compareTo(max) > 0) {
+                max = d;
+            }
+        }
+        return max;
+    }
+
+    @Benchmark
+    public ComfortableDuration spalteNanosSumme() {
+        return nanos.summe();
+    }
+
+    @Benchmark
+    public ComfortableDuration spalteNanosMax() {
+        return nanos.max();
+    }
+
+    @Benchmark
+    public ComfortableDuration spalteSekundenNanosSumme() {
+        return sekundenNanos.summe();
+    }
+}
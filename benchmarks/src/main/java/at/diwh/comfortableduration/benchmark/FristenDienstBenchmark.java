@@ -0,0 +1,99 @@
+package at.diwh.comfortableduration.benchmark;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import at.diwh.comfortableduration.util.ComfortableDuration;
+import at.diwh.comfortableduration.util.FristenDienst;
+
+/**
+ * Restzeiten vieler Fristen: pro Frist Duration.between(LocalDateTime.now(), frist) und eine neue ComfortableDuration
+ * gegen die Zerlegung aller Restzeiten in ein long[] über {@link FristenDienst}. Dazu Planen und Stornieren einer
+ * Frist im Zeitrad gegen ScheduledThreadPoolExecutor. Der Takt läuft dabei nicht, gemessen wird nur der Aufrufer.
+ * 
+ * @author diwh
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FristenDienstBenchmark {
+
+    @Param({ "1000" })
+    private int anzahl;
+
+    private LocalDateTime[] fristen;
+    private FristenDienst dienst;
+    private long[] griffe;
+    private long[] zerlegung;
+    private ScheduledThreadPoolExecutor planer;
+
+    @Setup
+    public void setup() {
+        LocalDateTime jetzt = LocalDateTime.now();
+        dienst = new FristenDienst(Duration.ofMillis(10), (schluessel, verspaetung) -> {
+        });
+        fristen = new LocalDateTime[anzahl];
+        griffe = new long[anzahl];
+        for (int i = 0; i < anzahl; i++) {
+            fristen[i] = jetzt.plusMinutes(i + 60L);
+            griffe[i] = dienst.planeBis(i, fristen[i]);
+        }
+        zerlegung = new long[5 * anzahl];
+        planer = new ScheduledThreadPoolExecutor(1);
+        planer.setRemoveOnCancelPolicy(true);
+    }
+
+    @TearDown
+    public void tearDown() {
+        dienst.close();
+        planer.shutdownNow();
+    }
+
+    @Benchmark
+    public long einzelnMitNow() {
+        long summe = 0L;
+        for (int i = 0; i < anzahl; i++) {
+            summe += new ComfortableDuration(Duration.between(LocalDateTime.now(), fristen[i])).minuten();
+        }
+        return summe;
+    }
+
+    @Benchmark
+    public long[] zerlegeRestzeiten() {
+        dienst.zerlegeRestzeiten(griffe, anzahl, zerlegung);
+        return zerlegung;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public boolean planenUndStornieren() {
+        return dienst.storniere(dienst.planeNanos(1L, 3600000000000L));
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public boolean scheduledExecutor() {
+        ScheduledFuture<?> f = planer.schedule(() -> {
+        }, 1L, TimeUnit.HOURS);
+        return f.cancel(false);
+    }
+}
@@ -0,0 +1,85 @@
+package at.diwh.comfortableduration.benchmark;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.Period;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import at.diwh.comfortableduration.util.GepackteZeit;
+import at.diwh.comfortableduration.util.KalenderZerlegung;
+
+/**
+ * Zerlegung vieler Paare (Anker, Ende) in Jahre, Monate, Wochen, Tage und Uhrzeit: Period.between und Duration pro
+ * Paar gegen {@link KalenderZerlegung#zerlegeAlle(long[], long[], int, long[])} auf gepackten Zeiten.
+ * 
+ * @author diwh
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class KalenderZerlegungBenchmark {
+
+    @Param({ "10000" })
+    private int anzahl;
+
+    private LocalDateTime[] anker;
+    private LocalDateTime[] ende;
+    private long[] ankerNanos;
+    private long[] endeNanos;
+    private long[] ziel;
+
+    @Setup
+    public void setup() {
+        Random zufall = new Random(42);
+        anker = new LocalDateTime[anzahl];
+        ende = new LocalDateTime[anzahl];
+        ankerNanos = new long[anzahl];
+        endeNanos = new long[anzahl];
+        ziel = new long[KalenderZerlegung.FELDER * anzahl];
+        LocalDateTime stichtag = LocalDateTime.of(2020, 1, 1, 0, 0);
+        for (int i = 0; i < anzahl; i++) {
+            anker[i] = stichtag.plusDays(i / 100);
+            ende[i] = anker[i].plusMinutes(zufall.nextInt(5 * 365 * 24 * 60));
+            ankerNanos[i] = GepackteZeit.ausDatumZeit(anker[i]);
+            endeNanos[i] = GepackteZeit.ausDatumZeit(ende[i]);
+        }
+    }
+
+    @Benchmark
+    public long periodUndDuration() {
+        long summe = 0L;
+        for (int i = 0; i < anzahl; i++) {
+            LocalDateTime a = anker[i];
+            LocalDateTime e = ende[i];
+            if (e.toLocalTime().isBefore(a.toLocalTime())) {
+                e = e.minusDays(1);
+            }
+            Period p = Period.between(a.toLocalDate(), e.toLocalDate());
+            Duration d = Duration.between(a.toLocalTime(), e.toLocalTime()).plusDays(e == ende[i] ? 0 : 1);
+            summe += p.getYears() + p.getMonths() + p.getDays() / 7 + p.getDays() % 7 + d.toHours();
+        }
+        return summe;
+    }
+
+    @Benchmark
+    public long[] zerlegeAlle() {
+        KalenderZerlegung.zerlegeAlle(ankerNanos, endeNanos, anzahl, ziel);
+        return ziel;
+    }
+}
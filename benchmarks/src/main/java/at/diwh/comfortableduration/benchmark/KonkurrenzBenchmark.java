@@ -0,0 +1,66 @@
+package at.diwh.comfortableduration.benchmark;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import at.diwh.comfortableduration.util.DauerAddierer;
+
+/**
+ * Viele Threads addieren in eine gemeinsame Summe: synchronized auf eine Duration, CAS-Schleife auf einer
+ * AtomicReference&lt;Duration&gt;, {@link DauerAddierer} und zum Vergleich ein nackter LongAdder (nur Nanosekunden, ohne
+ * Anzahl/Min/Max). Standard sind alle Kerne, die Skalierung sieht man mit -t 1, -t 2, ... -t max.
+ * 
+ * @author diwh
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(Threads.MAX)
+@State(Scope.Benchmark)
+public class KonkurrenzBenchmark {
+
+    private static final Duration DAUER = Duration.ofNanos(1234567L);
+
+    private final Object sperre = new Object();
+    private Duration summe = Duration.ZERO;
+    private final AtomicReference<Duration> atomar = new AtomicReference<Duration>(Duration.ZERO);
+    private final LongAdder longAdder = new LongAdder();
+    private final DauerAddierer addierer = new DauerAddierer();
+
+    @Benchmark
+    public void synchronisiert() {
+        synchronized (sperre) {
+            summe = summe.plus(DAUER);
+        }
+    }
+
+    @Benchmark
+    public Duration atomicReference() {
+        return atomar.accumulateAndGet(DAUER, Duration::plus);
+    }
+
+    @Benchmark
+    public void longAdder() {
+        longAdder.add(DAUER.toNanos());
+    }
+
+    @Benchmark
+    public void dauerAddierer() {
+        addierer.addiere(DAUER);
+    }
+}
@@ -0,0 +1,77 @@
+package at.diwh.comfortableduration.benchmark;
+
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import at.diwh.comfortableduration.util.ComfortableDuration;
+import at.diwh.comfortableduration.util.DatumMassenKonverter;
+
+/**
+ * Vergleicht die Massenumwandlung über {@link DatumMassenKonverter} (gepackt und als LocalDateTime[]) mit einer
+ * Schleife über convertToLocalDateTimeViaInstant. Die Zeitpunkte sind zufällig über fünf Jahre verteilt.
+ * 
+ * @author diwh
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MassenKonvertierungBenchmark {
+
+    @Param({ "1000", "100000" })
+    private int anzahl;
+
+    private long[] epochMillis;
+    private long[] gepackt;
+    private LocalDateTime[] zeiten;
+    private TimeZone ort;
+
+    @Setup
+    public void setup() {
+        Random zufall = new Random(42L);
+        epochMillis = new long[anzahl];
+        for (int i = 0; i < anzahl; i++) {
+            epochMillis[i] = 1577836800000L + (long) (zufall.nextDouble() * 5L * 365L * 86400000L);
+        }
+        gepackt = new long[anzahl];
+        zeiten = new LocalDateTime[anzahl];
+        ort = TimeZone.getTimeZone("Europe/Vienna");
+    }
+
+    @Benchmark
+    public long[] gepackt() {
+        DatumMassenKonverter.toLokaleMillis(epochMillis, ort, gepackt);
+        return gepackt;
+    }
+
+    @Benchmark
+    public LocalDateTime[] localDateTimeArray() {
+        DatumMassenKonverter.toLocalDateTime(epochMillis, ort, zeiten);
+        return zeiten;
+    }
+
+    @Benchmark
+    public LocalDateTime[] einzelnViaInstant() {
+        for (int i = 0; i < anzahl; i++) {
+            zeiten[i] = ComfortableDuration.convertToLocalDateTimeViaInstant(new Date(epochMillis[i]), ort);
+        }
+        return zeiten;
+    }
+}
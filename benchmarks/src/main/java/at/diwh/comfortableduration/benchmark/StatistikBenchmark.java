@@ -0,0 +1,85 @@
+package at.diwh.comfortableduration.benchmark;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import at.diwh.comfortableduration.util.ComfortableDuration;
+import at.diwh.comfortableduration.util.DauerHistogramm;
+import at.diwh.comfortableduration.util.DauerSammler;
+
+/**
+ * Summe, Minimum, Maximum und p50/p99/p999 von vielen Durations: bisher in eine Liste sammeln und sortieren, neu über
+ * {@link DauerSammler} in ein {@link DauerHistogramm}, sequentiell und parallel. Die Dauern sind logarithmisch
+ * normalverteilt (Median ca. 3 ms).
+ * 
+ * @author diwh
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class StatistikBenchmark {
+
+    @Param({ "1000", "100000" })
+    private int anzahl;
+
+    private List<Duration> dauern;
+
+    @Setup
+    public void setup() {
+        Random zufall = new Random(42L);
+        dauern = new ArrayList<Duration>(anzahl);
+        for (int i = 0; i < anzahl; i++) {
+            dauern.add(Duration.ofNanos((long) Math.exp(zufall.nextGaussian() * 3.0 + 15.0)));
+        }
+    }
+
+    @Benchmark
+    public ComfortableDuration[] listeSortieren() {
+        List<Duration> liste = dauern.stream().collect(Collectors.toList());
+        Collections.sort(liste);
+        Duration summe = Duration.ZERO;
+        for (Duration d : liste) {
+            summe = summe.plus(d);
+        }
+        int n = liste.size();
+        return new ComfortableDuration[] { new ComfortableDuration(summe), new ComfortableDuration(liste.get(0)),
+                new ComfortableDuration(liste.get(n - 1)), new ComfortableDuration(liste.get((n - 1) / 2)),
+                new ComfortableDuration(liste.get((int) Math.ceil(0.99 * n) - 1)),
+                new ComfortableDuration(liste.get((int) Math.ceil(0.999 * n) - 1)) };
+    }
+
+    @Benchmark
+    public ComfortableDuration[] histogramm() {
+        return auswerten(dauern.stream().collect(DauerSammler.histogramm()));
+    }
+
+    @Benchmark
+    public ComfortableDuration[] histogrammParallel() {
+        return auswerten(dauern.parallelStream().collect(DauerSammler.histogramm()));
+    }
+
+    private static ComfortableDuration[] auswerten(DauerHistogramm h) {
+        return new ComfortableDuration[] { h.summe(), h.min(), h.max(), h.perzentil(50.0), h.perzentil(99.0),
+                h.perzentil(99.9) };
+    }
+}
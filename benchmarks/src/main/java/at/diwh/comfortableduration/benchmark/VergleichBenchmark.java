@@ -0,0 +1,105 @@
+package at.diwh.comfortableduration.benchmark;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import at.diwh.comfortableduration.util.AllenRelation;
+import at.diwh.comfortableduration.util.ComfortableDuration;
+
+/**
+ * Misst istAvorB, istAgleichB und istIntervallAinIntervallB jeweils für LocalDate und LocalDateTime. Das Intervall A
+ * liegt echt innerhalb von B (WAEHREND). Dazu die AllenRelation direkt, auch auf Epoch-Tagen als long.
+ * 
+ * @author diwh
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class VergleichBenchmark {
+
+    private LocalDate beginnA;
+    private LocalDate endeA;
+    private LocalDate beginnB;
+    private LocalDate endeB;
+
+    private LocalDateTime beginnAZeit;
+    private LocalDateTime endeAZeit;
+    private LocalDateTime beginnBZeit;
+    private LocalDateTime endeBZeit;
+
+    private long beginnATag;
+    private long endeATag;
+    private long beginnBTag;
+    private long endeBTag;
+
+    @Setup
+    public void setup() {
+        beginnB = LocalDate.of(2021, 1, 1);
+        beginnA = LocalDate.of(2021, 3, 1);
+        endeA = LocalDate.of(2021, 9, 30);
+        endeB = LocalDate.of(2021, 12, 31);
+        beginnBZeit = ComfortableDuration.transformLocalDateToLocalDateTimeStartOfDay(beginnB);
+        beginnAZeit = LocalDateTime.of(2021, 3, 1, 6, 0);
+        endeAZeit = LocalDateTime.of(2021, 9, 30, 17, 30);
+        endeBZeit = ComfortableDuration.transformLocalDateToLocalDateTimeEndOfDay(endeB);
+        beginnATag = beginnA.toEpochDay();
+        endeATag = endeA.toEpochDay();
+        beginnBTag = beginnB.toEpochDay();
+        endeBTag = endeB.toEpochDay();
+    }
+
+    @Benchmark
+    public boolean istAvorBDatum() {
+        return ComfortableDuration.istAvorB(beginnA, endeA);
+    }
+
+    @Benchmark
+    public boolean istAvorBDatumZeit() {
+        return ComfortableDuration.istAvorB(beginnAZeit, endeAZeit);
+    }
+
+    @Benchmark
+    public boolean istAgleichBDatum() {
+        return ComfortableDuration.istAgleichB(beginnA, beginnB);
+    }
+
+    @Benchmark
+    public boolean istAgleichBDatumZeit() {
+        return ComfortableDuration.istAgleichB(beginnAZeit, beginnBZeit);
+    }
+
+    @Benchmark
+    public boolean istIntervallAinIntervallBDatum() {
+        return ComfortableDuration.istIntervallAinIntervallB(beginnA, endeA, beginnB, endeB);
+    }
+
+    @Benchmark
+    public boolean istIntervallAinIntervallBDatumZeit() {
+        return ComfortableDuration.istIntervallAinIntervallB(beginnAZeit, endeAZeit, beginnBZeit, endeBZeit);
+    }
+
+    @Benchmark
+    public AllenRelation allenRelationDatumZeit() {
+        return AllenRelation.bestimme(beginnAZeit, endeAZeit, beginnBZeit, endeBZeit);
+    }
+
+    @Benchmark
+    public AllenRelation allenRelationLong() {
+        return AllenRelation.bestimme(beginnATag, endeATag, beginnBTag, endeBTag);
+    }
+}
@@ -0,0 +1,95 @@
+package at.diwh.comfortableduration.benchmark;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import at.diwh.comfortableduration.util.ComfortableDuration;
+import at.diwh.comfortableduration.util.GepackteZeit;
+import at.diwh.comfortableduration.util.ZeitSpalte;
+
+/**
+ * Sortieren und Bereichsabfragen über viele Zeitpunkte: List&lt;LocalDateTime&gt; mit istAvorB gegen eine
+ * {@link ZeitSpalte} mit gepackten Werten. Die Zeitpunkte sind zufällig über fünf Jahre verteilt, der Bereich ist
+ * ein Monat.
+ * 
+ * @author diwh
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ZeitSpalteBenchmark {
+
+    @Param({ "100000" })
+    private int anzahl;
+
+    private List<LocalDateTime> liste;
+    private long[] gepackt;
+    private LocalDateTime von;
+    private LocalDateTime bis;
+
+    @Setup
+    public void setup() {
+        Random zufall = new Random(42L);
+        LocalDateTime basis = LocalDateTime.of(2020, 1, 1, 0, 0);
+        liste = new ArrayList<LocalDateTime>(anzahl);
+        gepackt = new long[anzahl];
+        for (int i = 0; i < anzahl; i++) {
+            LocalDateTime t = basis.plusSeconds((long) (zufall.nextDouble() * 5L * 365L * 86400L));
+            liste.add(t);
+            gepackt[i] = GepackteZeit.ausDatumZeit(t);
+        }
+        von = LocalDateTime.of(2022, 3, 1, 0, 0);
+        bis = LocalDateTime.of(2022, 3, 31, 23, 59);
+    }
+
+    @Benchmark
+    public int listeSortierenUndZaehlen() {
+        List<LocalDateTime> kopie = new ArrayList<LocalDateTime>(liste);
+        Collections.sort(kopie);
+        int treffer = 0;
+        for (LocalDateTime t : kopie) {
+            if (!ComfortableDuration.istAvorB(t, von) && !ComfortableDuration.istAnachB(t, bis)) {
+                treffer++;
+            }
+        }
+        return treffer;
+    }
+
+    @Benchmark
+    public int spalteSortierenUndBereich() {
+        ZeitSpalte spalte = ZeitSpalte.fuerDatumZeit(anzahl);
+        for (long wert : gepackt) {
+            spalte.dazu(wert);
+        }
+        spalte.sortiere();
+        return spalte.bereich(von, bis, null);
+    }
+
+    @Benchmark
+    public int spalteFiltern() {
+        ZeitSpalte spalte = ZeitSpalte.fuerDatumZeit(anzahl);
+        for (long wert : gepackt) {
+            spalte.dazu(wert);
+        }
+        return spalte.filtere(GepackteZeit.ausDatumZeit(von), GepackteZeit.ausDatumZeit(bis), null);
+    }
+}
@@ -0,0 +1,72 @@
+package at.diwh.comfortableduration.benchmark;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import at.diwh.comfortableduration.util.Stoppuhr;
+import at.diwh.comfortableduration.util.Zeitmesser;
+
+/**
+ * Kosten einer leeren Messung: Instant.now() + Duration.between wie bisher in Main, eine Runde der {@link Stoppuhr},
+ * eine Messung über {@link Zeitmesser} mit try-with-resources und mit start/stopp. Zum Vergleich ein nacktes
+ * System.nanoTime().
+ * 
+ * @author diwh
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ZeitmesserBenchmark {
+
+    private Stoppuhr stoppuhr;
+    private Zeitmesser.Messpunkt messpunkt;
+
+    @Setup
+    public void setup() {
+        stoppuhr = Stoppuhr.gestartet();
+        messpunkt = new Zeitmesser().messpunkt("benchmark");
+    }
+
+    @Benchmark
+    public long nanoTime() {
+        return System.nanoTime();
+    }
+
+    @Benchmark
+    public Duration instantDurationBetween() {
+        Instant start = Instant.now();
+        return Duration.between(start, Instant.now());
+    }
+
+    @Benchmark
+    public long stoppuhrRunde() {
+        return stoppuhr.rundeNanos();
+    }
+
+    @Benchmark
+    public void zeitmesserMessung() {
+        try (Zeitmesser.Messung m = messpunkt.messe()) {
+            // leer, gemessen wird nur die Messung selbst
+        }
+    }
+
+    @Benchmark
+    public void zeitmesserStartStopp() {
+        messpunkt.stopp(messpunkt.start());
+    }
+}
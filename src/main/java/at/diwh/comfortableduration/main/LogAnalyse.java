@@ -0,0 +1,712 @@
+package at.diwh.comfortableduration.main;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import at.diwh.comfortableduration.util.ComfortableDuration;
+import at.diwh.comfortableduration.util.DauerFormat;
+import at.diwh.comfortableduration.util.DauerHistogramm;
+
+/**
+ * Wertet eine (auch mehrere GB große) Logdatei aus: Jede Zeile beginnt mit einem Zeitstempel im Format
+ * "yyyy-MM-dd HH:mm:ss.SSS" (wie in {@code dateToLocalDateTime}), Start- und Ende-Ereignisse werden an einer Marke
+ * (z.B. "START" / "ENDE") erkannt und über einen Schlüssel (z.B. "id=4711") zu Paaren verbunden. Ausgewertet wird
+ * pro Gruppe (z.B. "op=login", aus der Start- oder sonst der Endezeile; ohne Gruppenpräfix alles in einer Gruppe
+ * {@link #ALLE}): Anzahl, Summe, Minimum, Maximum und Perzentile der Dauern als ComfortableDuration. Der Schlüssel
+ * dient nur zum Verbinden, es darf also eine eindeutige Korrelations-ID pro Vorgang sein.
+ * <br/> Die Datei wird über Memory-Mapping in Abschnitte an Zeilengrenzen geteilt, die Abschnitte werden parallel
+ * gelesen (ohne String pro Zeile), Paare über Abschnittsgrenzen hinweg werden danach in Dateireihenfolge verbunden.
+ * Es sind nur wenige Abschnitte gleichzeitig in Arbeit, der Speicher hängt daher nicht von der Dateigröße ab,
+ * sondern nur von der Anzahl der Gruppen und der offenen Starts. Letztere sind begrenzt (Standard
+ * {@link #STANDARD_MAX_OFFEN}): darüber werden die Starts der ältesten Schlüssel verworfen und gezählt.
+ * <br/> Ein Ende gehört zum letzten noch offenen Start mit demselben Schlüssel (verschachtelt, wie Klammern). Die
+ * Zeitstempel sind Ortszeit ohne Zone, gerechnet wird also wie Duration.between(LocalDateTime, LocalDateTime).
+ * 
+ * @author diwh
+ */
+public class LogAnalyse {
+
+    /** Länge von "yyyy-MM-dd HH:mm:ss.SSS" */
+    static final int ZEITSTEMPEL_LAENGE = 23;
+
+    private static final long STANDARD_ABSCHNITT = 32L << 20;
+
+    // so weit darf die letzte Zeile eines Abschnitts über sein Ende hinausgehen
+    private static final int UEBERHANG = 1 << 20;
+
+    private static final long UNGUELTIG = Long.MIN_VALUE;
+
+    private static final long NANOS_PRO_MILLI = 1000000L;
+
+    private static final double[] PERZENTILE = { 50.0, 90.0, 99.0, 99.9 };
+
+    /** Name der einzigen Gruppe, wenn kein Gruppenpräfix angegeben ist */
+    public static final String ALLE = "*";
+
+    /** Name der Gruppe für Paare, bei denen weder Start noch Ende eine Gruppe haben */
+    public static final String OHNE_GRUPPE = "-";
+
+    /** so viele offene Starts werden standardmäßig über Abschnitte hinweg gehalten */
+    public static final int STANDARD_MAX_OFFEN = 1 << 20;
+
+    private final byte[] startMarke;
+    private final byte[] endeMarke;
+    private final byte[] schluesselPraefix;
+    private final byte[] gruppenPraefix;
+    private final byte[] ohneGruppe;
+    private final int threads;
+    private final long abschnittsGroesse;
+    private final int maxOffen;
+
+    /**
+     * Auswertung mit allen Prozessorkernen und Abschnitten zu 32 MB.
+     * 
+     * @param startMarke - Text, an dem eine Startzeile erkannt wird, z.B. "START"
+     * @param endeMarke - Text, an dem eine Endezeile erkannt wird, z.B. "ENDE"
+     * @param schluesselPraefix - Text vor dem Schlüssel, z.B. "id="; der Schlüssel geht bis zum nächsten Leerzeichen,
+     *            Tabulator, Komma oder Strichpunkt
+     */
+    public LogAnalyse(String startMarke, String endeMarke, String schluesselPraefix) {
+        this(startMarke, endeMarke, schluesselPraefix, null);
+    }
+
+    /**
+     * Auswertung mit allen Prozessorkernen und Abschnitten zu 32 MB, pro Gruppe.
+     * 
+     * @param startMarke - Text, an dem eine Startzeile erkannt wird, z.B. "START"
+     * @param endeMarke - Text, an dem eine Endezeile erkannt wird, z.B. "ENDE"
+     * @param schluesselPraefix - Text vor dem Schlüssel, z.B. "id="
+     * @param gruppenPraefix - Text vor der Gruppe, z.B. "op="; null für eine einzige Gruppe {@link #ALLE}
+     */
+    public LogAnalyse(String startMarke, String endeMarke, String schluesselPraefix, String gruppenPraefix) {
+        this(startMarke, endeMarke, schluesselPraefix, gruppenPraefix, Runtime.getRuntime().availableProcessors(),
+            STANDARD_ABSCHNITT, STANDARD_MAX_OFFEN);
+    }
+
+    /**
+     * @param startMarke - Text, an dem eine Startzeile erkannt wird, z.B. "START"
+     * @param endeMarke - Text, an dem eine Endezeile erkannt wird, z.B. "ENDE"
+     * @param schluesselPraefix - Text vor dem Schlüssel, z.B. "id="
+     * @param threads - Anzahl der Threads
+     * @param abschnittsGroesse - Größe der Abschnitte in Bytes (höchstens 1 GB)
+     */
+    public LogAnalyse(String startMarke, String endeMarke, String schluesselPraefix, int threads,
+            long abschnittsGroesse) {
+        this(startMarke, endeMarke, schluesselPraefix, null, threads, abschnittsGroesse, STANDARD_MAX_OFFEN);
+    }
+
+    /**
+     * @param startMarke - Text, an dem eine Startzeile erkannt wird, z.B. "START"
+     * @param endeMarke - Text, an dem eine Endezeile erkannt wird, z.B. "ENDE"
+     * @param schluesselPraefix - Text vor dem Schlüssel, z.B. "id="
+     * @param gruppenPraefix - Text vor der Gruppe, z.B. "op="; null für eine einzige Gruppe {@link #ALLE}
+     * @param threads - Anzahl der Threads
+     * @param abschnittsGroesse - Größe der Abschnitte in Bytes (höchstens 1 GB)
+     * @param maxOffen - höchstens so viele offene Starts über Abschnitte hinweg
+     */
+    public LogAnalyse(String startMarke, String endeMarke, String schluesselPraefix, String gruppenPraefix,
+            int threads, long abschnittsGroesse, int maxOffen) {
+        super();
+        if (startMarke.isEmpty() || endeMarke.isEmpty() || schluesselPraefix.isEmpty()
+                || (gruppenPraefix != null && gruppenPraefix.isEmpty())) {
+            throw new IllegalArgumentException("Marken, Schlüssel- und Gruppenpräfix dürfen nicht leer sein");
+        }
+        if (threads < 1 || abschnittsGroesse < 1L || abschnittsGroesse > (1L << 30) || maxOffen < 0) {
+            throw new IllegalArgumentException("Ungültige Threads / Abschnittsgröße / offene Starts: " + threads
+                    + " / " + abschnittsGroesse + " / " + maxOffen);
+        }
+        this.startMarke = startMarke.getBytes(StandardCharsets.UTF_8);
+        this.endeMarke = endeMarke.getBytes(StandardCharsets.UTF_8);
+        this.schluesselPraefix = schluesselPraefix.getBytes(StandardCharsets.UTF_8);
+        this.gruppenPraefix = gruppenPraefix == null ? null : gruppenPraefix.getBytes(StandardCharsets.UTF_8);
+        this.ohneGruppe = (gruppenPraefix == null ? ALLE : OHNE_GRUPPE).getBytes(StandardCharsets.UTF_8);
+        this.threads = threads;
+        this.abschnittsGroesse = abschnittsGroesse;
+        this.maxOffen = maxOffen;
+    }
+
+    /**
+     * Liest die Datei und verbindet die Ereignisse zu Paaren.
+     * 
+     * @param datei - die Logdatei (UTF-8 oder ASCII)
+     * @return das Ergebnis pro Gruppe
+     * @throws IOException wenn die Datei nicht gelesen werden kann oder eine Zeile länger als 1 MB ist
+     */
+    public Ergebnis analysiere(Path datei) throws IOException {
+        Ergebnis ergebnis = new Ergebnis();
+        // Schlüssel mit offenen Starts, in der Reihenfolge ihres ersten offenen Starts
+        Map<String, Ereignisse> offen = new LinkedHashMap<String, Ereignisse>();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try (FileChannel kanal = FileChannel.open(datei, StandardOpenOption.READ)) {
+            long groesse = kanal.size();
+            ArrayDeque<Future<Teilergebnis>> inArbeit = new ArrayDeque<Future<Teilergebnis>>();
+            long von = 0L;
+            while (von < groesse || !inArbeit.isEmpty()) {
+                // höchstens zwei Abschnitte pro Thread gleichzeitig, damit der Speicher begrenzt bleibt
+                while (von < groesse && inArbeit.size() < 2 * threads) {
+                    long bis = Math.min(groesse, von + abschnittsGroesse);
+                    inArbeit.add(pool.submit(new Abschnitt(kanal, groesse, von, bis)));
+                    von = bis;
+                }
+                zusammenfuehren(warte(inArbeit.poll()), offen, ergebnis);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        for (Ereignisse starts : offen.values()) {
+            ergebnis.offeneStarts += starts.groesse;
+        }
+        return ergebnis;
+    }
+
+    private static Teilergebnis warte(Future<Teilergebnis> auftrag) throws IOException {
+        try {
+            return auftrag.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Auswertung unterbrochen", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Verbindet die Enden am Anfang eines Abschnitts mit den offenen Starts der vorherigen Abschnitte und übernimmt
+     * die Gruppen des Abschnitts.
+     */
+    private void zusammenfuehren(Teilergebnis teil, Map<String, Ereignisse> offen, Ergebnis ergebnis) {
+        ergebnis.zeilen += teil.zeilen;
+        ergebnis.paare += teil.paare;
+        ergebnis.negativ += teil.negativ;
+        ergebnis.ungueltig += teil.ungueltig;
+        for (Eintrag e : teil.eintraege) {
+            String schluessel = new String(e.schluessel, StandardCharsets.UTF_8);
+            Ereignisse starts = offen.get(schluessel);
+            for (int i = 0; i < e.enden.groesse; i++) {
+                if (starts == null || starts.groesse == 0) {
+                    ergebnis.offeneEnden++;
+                } else {
+                    byte[] gruppe = starts.letzteGruppe();
+                    if (gruppe == null) {
+                        gruppe = e.enden.gruppen[i] != null ? e.enden.gruppen[i] : ohneGruppe;
+                    }
+                    long dauer = e.enden.zeiten[i] - starts.entnimm();
+                    ergebnis.anzahlOffen--;
+                    if (dauer < 0L) {
+                        ergebnis.negativ++;
+                    } else {
+                        ergebnis.gruppe(gruppe).erfasse(dauer * NANOS_PRO_MILLI);
+                        ergebnis.paare++;
+                    }
+                }
+            }
+            if (e.starts.groesse > 0) {
+                if (starts == null) {
+                    starts = new Ereignisse();
+                    offen.put(schluessel, starts);
+                }
+                for (int i = 0; i < e.starts.groesse; i++) {
+                    starts.dazu(e.starts.zeiten[i], e.starts.gruppen[i]);
+                }
+                ergebnis.anzahlOffen += e.starts.groesse;
+            } else if (starts != null && starts.groesse == 0) {
+                offen.remove(schluessel);
+            }
+        }
+        // über der Grenze: die ältesten Schlüssel aufgeben
+        Iterator<Ereignisse> aelteste = offen.values().iterator();
+        while (ergebnis.anzahlOffen > maxOffen) {
+            Ereignisse verworfen = aelteste.next();
+            aelteste.remove();
+            ergebnis.anzahlOffen -= verworfen.groesse;
+            ergebnis.verworfeneStarts += verworfen.groesse;
+        }
+        for (Eintrag g : teil.gruppen.eintraege()) {
+            if (g.histogramm != null) {
+                ergebnis.gruppe(g.schluessel).uebernimm(g.histogramm);
+            }
+        }
+    }
+
+    /**
+     * Liest "yyyy-MM-dd HH:mm:ss.SSS" (statt des Leerzeichens geht auch T) ab position als lokale Millisekunden seit
+     * 1970-01-01T00:00.
+     * 
+     * @return die Millisekunden, oder Long.MIN_VALUE wenn dort kein gültiger Zeitstempel steht
+     */
+    static long zeitstempel(MappedByteBuffer puffer, int position) {
+        int jahr = ziffern(puffer, position, 4);
+        int monat = ziffern(puffer, position + 5, 2);
+        int tag = ziffern(puffer, position + 8, 2);
+        int stunde = ziffern(puffer, position + 11, 2);
+        int minute = ziffern(puffer, position + 14, 2);
+        int sekunde = ziffern(puffer, position + 17, 2);
+        int milli = ziffern(puffer, position + 20, 3);
+        byte trenner = puffer.get(position + 10);
+        if ((jahr | monat | tag | stunde | minute | sekunde | milli) < 0 || puffer.get(position + 4) != '-'
+                || puffer.get(position + 7) != '-' || (trenner != ' ' && trenner != 'T')
+                || puffer.get(position + 13) != ':' || puffer.get(position + 16) != ':'
+                || puffer.get(position + 19) != '.' || monat < 1 || monat > 12 || tag < 1
+                || tag > tageImMonat(jahr, monat) || stunde > 23 || minute > 59 || sekunde > 59) {
+            return UNGUELTIG;
+        }
+        long sekunden = epochTag(jahr, monat, tag) * 86400L + stunde * 3600L + minute * 60L + sekunde;
+        return sekunden * 1000L + milli;
+    }
+
+    private static int ziffern(MappedByteBuffer puffer, int position, int anzahl) {
+        int wert = 0;
+        for (int i = 0; i < anzahl; i++) {
+            int ziffer = puffer.get(position + i) - '0';
+            if (ziffer < 0 || ziffer > 9) {
+                return -1;
+            }
+            wert = wert * 10 + ziffer;
+        }
+        return wert;
+    }
+
+    private static int tageImMonat(int jahr, int monat) {
+        if (monat == 2) {
+            return ((jahr & 3) == 0 && (jahr % 100 != 0 || jahr % 400 == 0)) ? 29 : 28;
+        }
+        return (monat == 4 || monat == 6 || monat == 9 || monat == 11) ? 30 : 31;
+    }
+
+    /**
+     * Tage seit 1970-01-01 im proleptischen gregorianischen Kalender, dasselbe wie LocalDate.toEpochDay()
+     */
+    static long epochTag(int jahr, int monat, int tag) {
+        int j = monat <= 2 ? jahr - 1 : jahr;
+        int aera = (j >= 0 ? j : j - 399) / 400;
+        int jahrDerAera = j - aera * 400;
+        int tagDesJahres = (153 * (monat > 2 ? monat - 3 : monat + 9) + 2) / 5 + tag - 1;
+        int tagDerAera = jahrDerAera * 365 + jahrDerAera / 4 - jahrDerAera / 100 + tagDesJahres;
+        return aera * 146097L + tagDerAera - 719468L;
+    }
+
+    private static int suche(MappedByteBuffer puffer, int von, int bis, byte[] muster) {
+        int letzter = bis - muster.length;
+        byte erstes = muster[0];
+        for (int i = von; i <= letzter; i++) {
+            if (puffer.get(i) == erstes) {
+                int k = 1;
+                while (k < muster.length && puffer.get(i + k) == muster[k]) {
+                    k++;
+                }
+                if (k == muster.length) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private static boolean istSchluesselEnde(byte b) {
+        return b == ' ' || b == '\t' || b == ',' || b == ';' || b == '\r';
+    }
+
+    /**
+     * Liest einen Abschnitt: alle Zeilen, die in [von, bis) beginnen.
+     */
+    private final class Abschnitt implements Callable<Teilergebnis> {
+
+        private final FileChannel kanal;
+        private final long groesse;
+        private final long von;
+        private final long bis;
+
+        Abschnitt(FileChannel kanal, long groesse, long von, long bis) {
+            super();
+            this.kanal = kanal;
+            this.groesse = groesse;
+            this.von = von;
+            this.bis = bis;
+        }
+
+        @Override
+        public Teilergebnis call() throws IOException {
+            long abbildungVon = Math.max(0L, von - 1L);
+            long abbildungBis = Math.min(groesse, bis + UEBERHANG);
+            MappedByteBuffer puffer = kanal.map(FileChannel.MapMode.READ_ONLY, abbildungVon,
+                abbildungBis - abbildungVon);
+            int ende = (int) (abbildungBis - abbildungVon);
+            int letzterAnfang = (int) (bis - abbildungVon);
+            int position = (int) (von - abbildungVon);
+            if (von > 0L) {
+                // die angeschnittene erste Zeile gehört noch zum vorherigen Abschnitt
+                while (position < ende && puffer.get(position - 1) != '\n') {
+                    position++;
+                }
+            }
+            Teilergebnis teil = new Teilergebnis();
+            while (position < letzterAnfang) {
+                int zeilenEnde = position;
+                while (zeilenEnde < ende && puffer.get(zeilenEnde) != '\n') {
+                    zeilenEnde++;
+                }
+                if (zeilenEnde == ende && abbildungBis < groesse) {
+                    throw new IOException("Zeile ab Byte " + (abbildungVon + position) + " ist länger als "
+                            + UEBERHANG + " Bytes");
+                }
+                zeile(puffer, position, zeilenEnde, teil);
+                position = zeilenEnde + 1;
+            }
+            // nur Schlüssel, die noch etwas mit anderen Abschnitten zu verbinden haben
+            List<Eintrag> offen = new ArrayList<Eintrag>();
+            for (Eintrag e : teil.tabelle.eintraege()) {
+                if (e.starts.groesse > 0 || e.enden.groesse > 0) {
+                    offen.add(e);
+                }
+            }
+            teil.eintraege = offen;
+            return teil;
+        }
+
+        private void zeile(MappedByteBuffer puffer, int von, int bis, Teilergebnis teil) {
+            teil.zeilen++;
+            if (bis - von <= ZEITSTEMPEL_LAENGE) {
+                return;
+            }
+            int textAnfang = von + ZEITSTEMPEL_LAENGE;
+            boolean start = suche(puffer, textAnfang, bis, startMarke) >= 0;
+            if (!start && suche(puffer, textAnfang, bis, endeMarke) < 0) {
+                return;
+            }
+            int praefix = suche(puffer, textAnfang, bis, schluesselPraefix);
+            long zeitpunkt = zeitstempel(puffer, von);
+            if (praefix < 0 || zeitpunkt == UNGUELTIG) {
+                teil.ungueltig++;
+                return;
+            }
+            int schluesselAnfang = praefix + schluesselPraefix.length;
+            int schluesselEnde = schluesselAnfang;
+            while (schluesselEnde < bis && !istSchluesselEnde(puffer.get(schluesselEnde))) {
+                schluesselEnde++;
+            }
+            if (schluesselEnde == schluesselAnfang) {
+                teil.ungueltig++;
+                return;
+            }
+            Eintrag e = teil.tabelle.hole(puffer, schluesselAnfang, schluesselEnde);
+            byte[] gruppe = gruppe(puffer, textAnfang, bis, teil.gruppen);
+            if (start) {
+                e.starts.dazu(zeitpunkt, gruppe);
+            } else if (e.starts.groesse == 0) {
+                e.enden.dazu(zeitpunkt, gruppe);
+            } else {
+                byte[] startGruppe = e.starts.letzteGruppe();
+                long dauer = zeitpunkt - e.starts.entnimm();
+                if (dauer < 0L) {
+                    teil.negativ++;
+                } else {
+                    Eintrag g = startGruppe != null ? teil.gruppen.hole(startGruppe)
+                            : gruppe != null ? teil.gruppen.hole(gruppe) : teil.gruppen.hole(ohneGruppe);
+                    if (g.histogramm == null) {
+                        g.histogramm = new DauerHistogramm();
+                    }
+                    g.histogramm.erfasse(dauer * NANOS_PRO_MILLI);
+                    teil.paare++;
+                }
+            }
+        }
+
+        /**
+         * @return die Gruppe der Zeile (das byte[] aus der Gruppentabelle des Abschnitts), null wenn keine da ist
+         */
+        private byte[] gruppe(MappedByteBuffer puffer, int von, int bis, SchluesselTabelle gruppen) {
+            if (gruppenPraefix == null) {
+                return null;
+            }
+            int praefix = suche(puffer, von, bis, gruppenPraefix);
+            if (praefix < 0) {
+                return null;
+            }
+            int anfang = praefix + gruppenPraefix.length;
+            int ende = anfang;
+            while (ende < bis && !istSchluesselEnde(puffer.get(ende))) {
+                ende++;
+            }
+            return ende == anfang ? null : gruppen.hole(puffer, anfang, ende).schluessel;
+        }
+    }
+
+    /**
+     * Ergebnis eines Abschnitts
+     */
+    private static final class Teilergebnis {
+        private final SchluesselTabelle tabelle = new SchluesselTabelle();
+        private final SchluesselTabelle gruppen = new SchluesselTabelle();
+        private List<Eintrag> eintraege;
+        private long zeilen;
+        private long paare;
+        private long negativ;
+        private long ungueltig;
+    }
+
+    /**
+     * Ein Schlüssel innerhalb eines Abschnitts: die Enden ohne Start davor (in Reihenfolge) und die Starts ohne Ende
+     * (in Reihenfolge). In der Gruppentabelle eines Abschnitts ist es eine Gruppe mit den fertigen Paaren.
+     */
+    private static final class Eintrag {
+        private final byte[] schluessel;
+        private final int hash;
+        private final Ereignisse starts = new Ereignisse();
+        private final Ereignisse enden = new Ereignisse();
+        private DauerHistogramm histogramm;
+
+        Eintrag(byte[] schluessel, int hash) {
+            super();
+            this.schluessel = schluessel;
+            this.hash = hash;
+        }
+    }
+
+    /**
+     * Offene Adressierung über die Schlüssel-Bytes direkt im Puffer, ein byte[] wird nur beim ersten Auftreten eines
+     * Schlüssels angelegt.
+     */
+    private static final class SchluesselTabelle {
+        private int[] plaetze = new int[64]; // Index + 1 in eintraege, 0 = frei
+        private final List<Eintrag> eintraege = new ArrayList<Eintrag>();
+
+        Eintrag hole(MappedByteBuffer puffer, int von, int bis) {
+            int hash = 0x811C9DC5;
+            for (int i = von; i < bis; i++) {
+                hash = (hash ^ puffer.get(i)) * 0x01000193;
+            }
+            int maske = plaetze.length - 1;
+            int platz = hash & maske;
+            while (plaetze[platz] != 0) {
+                Eintrag e = eintraege.get(plaetze[platz] - 1);
+                if (e.hash == hash && gleich(e.schluessel, puffer, von, bis)) {
+                    return e;
+                }
+                platz = (platz + 1) & maske;
+            }
+            byte[] schluessel = new byte[bis - von];
+            for (int i = 0; i < schluessel.length; i++) {
+                schluessel[i] = puffer.get(von + i);
+            }
+            return neu(schluessel, hash, platz);
+        }
+
+        Eintrag hole(byte[] schluessel) {
+            int hash = 0x811C9DC5;
+            for (byte b : schluessel) {
+                hash = (hash ^ b) * 0x01000193;
+            }
+            int maske = plaetze.length - 1;
+            int platz = hash & maske;
+            while (plaetze[platz] != 0) {
+                Eintrag e = eintraege.get(plaetze[platz] - 1);
+                if (e.hash == hash && Arrays.equals(e.schluessel, schluessel)) {
+                    return e;
+                }
+                platz = (platz + 1) & maske;
+            }
+            return neu(schluessel, hash, platz);
+        }
+
+        private Eintrag neu(byte[] schluessel, int hash, int platz) {
+            Eintrag neu = new Eintrag(schluessel, hash);
+            eintraege.add(neu);
+            plaetze[platz] = eintraege.size();
+            if (eintraege.size() * 2 > plaetze.length) {
+                vergroessern();
+            }
+            return neu;
+        }
+
+        List<Eintrag> eintraege() {
+            return Collections.unmodifiableList(eintraege);
+        }
+
+        private void vergroessern() {
+            plaetze = new int[plaetze.length * 2];
+            int maske = plaetze.length - 1;
+            for (int i = 0; i < eintraege.size(); i++) {
+                int platz = eintraege.get(i).hash & maske;
+                while (plaetze[platz] != 0) {
+                    platz = (platz + 1) & maske;
+                }
+                plaetze[platz] = i + 1;
+            }
+        }
+
+        private static boolean gleich(byte[] schluessel, MappedByteBuffer puffer, int von, int bis) {
+            if (schluessel.length != bis - von) {
+                return false;
+            }
+            for (int i = 0; i < schluessel.length; i++) {
+                if (schluessel[i] != puffer.get(von + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Wachsende Liste von Zeitpunkten mit ihrer Gruppe (oder null), hinten auch als Stapel nutzbar
+     */
+    private static final class Ereignisse {
+        private long[] zeiten = new long[4];
+        private byte[][] gruppen = new byte[4][];
+        private int groesse;
+
+        void dazu(long zeit, byte[] gruppe) {
+            if (groesse == zeiten.length) {
+                zeiten = Arrays.copyOf(zeiten, groesse * 2);
+                gruppen = Arrays.copyOf(gruppen, groesse * 2);
+            }
+            zeiten[groesse] = zeit;
+            gruppen[groesse++] = gruppe;
+        }
+
+        byte[] letzteGruppe() {
+            return gruppen[groesse - 1];
+        }
+
+        long entnimm() {
+            gruppen[groesse - 1] = null;
+            return zeiten[--groesse];
+        }
+    }
+
+    /**
+     * Ergebnis der Auswertung
+     */
+    public static final class Ergebnis {
+
+        private final Map<String, DauerHistogramm> nachGruppe = new TreeMap<String, DauerHistogramm>();
+        private long zeilen;
+        private long paare;
+        private long anzahlOffen;
+        private long offeneStarts;
+        private long verworfeneStarts;
+        private long offeneEnden;
+        private long negativ;
+        private long ungueltig;
+
+        Ergebnis() {
+            super();
+        }
+
+        private DauerHistogramm gruppe(byte[] name) {
+            String gruppe = new String(name, StandardCharsets.UTF_8);
+            DauerHistogramm h = nachGruppe.get(gruppe);
+            if (h == null) {
+                h = new DauerHistogramm();
+                nachGruppe.put(gruppe, h);
+            }
+            return h;
+        }
+
+        /**
+         * @return die Dauern pro Gruppe, nach Gruppe sortiert
+         */
+        public Map<String, DauerHistogramm> getNachGruppe() {
+            return Collections.unmodifiableMap(nachGruppe);
+        }
+
+        /**
+         * @return gelesene Zeilen
+         */
+        public long getZeilen() {
+            return zeilen;
+        }
+
+        /**
+         * @return verbundene Paare
+         */
+        public long getPaare() {
+            return paare;
+        }
+
+        /**
+         * @return Starts, zu denen bis zum Dateiende kein Ende kam
+         */
+        public long getOffeneStarts() {
+            return offeneStarts;
+        }
+
+        /**
+         * @return Starts, die wegen der Grenze für offene Starts verworfen wurden
+         */
+        public long getVerworfeneStarts() {
+            return verworfeneStarts;
+        }
+
+        /**
+         * @return Enden ohne vorherigen Start (auch zu verworfenen Starts)
+         */
+        public long getOffeneEnden() {
+            return offeneEnden;
+        }
+
+        /**
+         * @return Paare, bei denen das Ende vor dem Start liegt (z.B. Zeitumstellung), sie sind nicht in den Dauern
+         */
+        public long getNegativ() {
+            return negativ;
+        }
+
+        /**
+         * @return Zeilen mit Start- oder Endemarke, aber ohne gültigen Zeitstempel oder Schlüssel
+         */
+        public long getUngueltig() {
+            return ungueltig;
+        }
+
+        /**
+         * Gibt die Übersicht und eine Zeile pro Gruppe aus.
+         * 
+         * @param aus - z.B. System.out
+         */
+        public void ausgeben(PrintStream aus) {
+            aus.println("Zeilen: " + zeilen + ", Paare: " + paare + ", offene Starts: " + offeneStarts
+                    + ", verworfene Starts: " + verworfeneStarts + ", Enden ohne Start: " + offeneEnden
+                    + ", negative Dauern: " + negativ + ", ungültig: " + ungueltig);
+            StringBuilder zeile = new StringBuilder(256);
+            for (Map.Entry<String, DauerHistogramm> eintrag : nachGruppe.entrySet()) {
+                DauerHistogramm h = eintrag.getValue();
+                zeile.setLength(0);
+                zeile.append(eintrag.getKey()).append(" : Anzahl ").append(h.anzahl()).append(", Summe ");
+                DauerFormat.KOMPAKT.format(h.summe(), zeile).append(", Min ");
+                DauerFormat.KOMPAKT.format(h.min(), zeile).append(", Max ");
+                DauerFormat.KOMPAKT.format(h.max(), zeile);
+                for (double p : PERZENTILE) {
+                    zeile.append(", p").append(p == Math.rint(p) ? String.valueOf((long) p) : String.valueOf(p))
+                            .append(' ');
+                    // die Zeitstempel haben Millisekunden, genauer ist auch das Perzentil nicht
+                    long millis = (h.perzentilNanos(p) + NANOS_PRO_MILLI / 2) / NANOS_PRO_MILLI;
+                    DauerFormat.KOMPAKT.format(ComfortableDuration.ofNanos(millis * NANOS_PRO_MILLI), zeile);
+                }
+                aus.println(zeile);
+            }
+        }
+    }
+}
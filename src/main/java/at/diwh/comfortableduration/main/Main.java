@@ -1,5 +1,7 @@
 package at.diwh.comfortableduration.main;
 
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.text.SimpleDateFormat;
 import java.time.Duration;
 import java.time.Instant;
@@ -11,7 +13,10 @@ import java.util.Date;
 import java.util.Locale;
 import java.util.Map.Entry;
 
+import at.diwh.comfortableduration.util.Arbeitskalender;
+import at.diwh.comfortableduration.util.Arbeitszeitrechner;
 import at.diwh.comfortableduration.util.ComfortableDuration;
+import at.diwh.comfortableduration.util.Stoppuhr;
 
 import java.util.TimeZone;
 
@@ -21,32 +26,40 @@ import java.util.TimeZone;
 public class Main {
 
     /**
+     * Ohne Argumente die Demonstration, mit "analyse &lt;datei&gt; [startMarke endeMarke schluesselPraefix
+     * [gruppenPraefix]]" die Auswertung einer Logdatei über {@link LogAnalyse} (Standard: START, ENDE, id=, ohne
+     * Gruppen). Bei falschem Aufruf endet das Programm mit Status 2, wenn die Datei nicht lesbar ist mit 1.
+     * 
      * @param args - Argumente
      */
     @SuppressWarnings("deprecation")
     public static void main(String[] args) {
+        if (args.length > 0 && "analyse".equals(args[0])) {
+            analyse(args);
+            return;
+        }
         System.out.println("Dies ist eine Demonstration für die ComfortableDuration-Klasse.");
         System.out.println(
                 "Als Beispiel wird ausgerechnet, wie viel Zeit man für CATS eintragen müsste, wenn man um 6:00 den Arbeitstag beginnt.");
         LocalDate hierUndHeute = LocalDate.now();
         LocalDateTime genauJetzt = LocalDateTime.now();
 
-        // Start des Tages
-        LocalDateTime tagesstart = LocalDateTime.of(hierUndHeute.getYear(), hierUndHeute.getMonth(),
-            hierUndHeute.getDayOfMonth(), 6, 0);
+        // Start des Tages um 6:00, 30 Minuten Mittagspause, auf Viertelstunden abrunden
+        Arbeitszeitrechner cats = Arbeitszeitrechner.cats();
+        LocalDateTime tagesstart = LocalDateTime.of(hierUndHeute, cats.getTagesbeginn());
 
         Duration arbeitszeit = Duration.between(tagesstart, genauJetzt);
 
         System.out.println("Anwesenheitszeit: " + arbeitszeit);
-        arbeitszeit = arbeitszeit.minus(30, ChronoUnit.MINUTES); // 30 Minuten Mittagspause weg
+        arbeitszeit = Duration.ofNanos(cats.ohnePause(arbeitszeit.toNanos())); // 30 Minuten Mittagspause weg
         System.out.println("MP weg -> Arbeitszeit: " + arbeitszeit);
 
         ComfortableDuration ergebnis = new ComfortableDuration(arbeitszeit);
 
         System.out.println(ergebnis.toString());
 
-        int minutenIn25 = (ergebnis.getMinuten().intValue() / 15) * 25;
-        System.out.println("\n\nDas sind " + ergebnis.getStunden() + "," + minutenIn25 + " für CATS\n");
+        Arbeitszeitrechner.Tagesergebnis catsTag = cats.berechne(tagesstart, genauJetzt);
+        System.out.println("\n\nDas sind " + catsTag.getDezimalstunden() + " für CATS\n");
         System.out.println(" --------------------------------------------------------------------------------");
 
         System.out.println(" *** Und nun ein paar Tests für die Datumsfunktionen");
@@ -71,6 +84,7 @@ public class Main {
         // }
 
         Instant instJetzt = Instant.now(); // Start Messung mit Instant
+        Stoppuhr programmUhr = Stoppuhr.gestartet(); // und zum Vergleich mit nanoTime
 
         String timestamp = df.format(datum);
         String readableTS = readableDf.format(datum);
@@ -119,6 +133,11 @@ public class Main {
             ComfortableDuration.transformLocalDateToLocalDateTimeStartOfDay(hierUndHeute),
             ComfortableDuration.transformLocalDateToLocalDateTimeStartOfDay(silvester2021));
         System.out.println("Zeit bis Silvester: " + zeitBisSilvester);
+        Arbeitskalender kalender = Arbeitskalender.oesterreich(Math.min(hierUndHeute.getYear(), 2021),
+            Math.max(hierUndHeute.getYear(), 2021));
+        System.out.println("Arbeitstage bis Silvester: " + kalender.arbeitstage(hierUndHeute, silvester2021)
+                + ", Arbeitszeit bis Silvester: " + kalender.arbeitszeit(genauJetzt,
+                    ComfortableDuration.transformLocalDateToLocalDateTimeStartOfDay(silvester2021)));
         Duration zeitBisNeujahr = Duration.between((genauJetzt),
             ComfortableDuration.transformLocalDateToLocalDateTimeEndOfDay(silvester2021));
         System.out.println("Zeit bis Neujahr / Feuerwerk: " + zeitBisNeujahr);
@@ -181,6 +200,7 @@ public class Main {
         Instant instEnde = Instant.now();
         zeitBisMorgen = Duration.between((instJetzt), (instEnde));
         System.out.println("Zeit vergangen im Programm (via Instant): " + zeitBisMorgen);
+        System.out.println("Zeit vergangen im Programm (via Stoppuhr): " + programmUhr.stoppen());
         cd = new ComfortableDuration(zeitBisMorgen);
         for (Entry<String, Long> element : cd.getInhalt().entrySet()) {
             System.out.println(element.getKey() + " : " + element.getValue());
@@ -208,4 +228,23 @@ public class Main {
         System.out.println("********** FERTIG *************");
     }
 
+    private static void analyse(String[] args) {
+        if (args.length != 2 && args.length != 5 && args.length != 6) {
+            System.err.println("Aufruf: analyse <datei> [startMarke endeMarke schluesselPraefix [gruppenPraefix]]");
+            System.exit(2);
+        }
+        LogAnalyse analyse = args.length >= 5
+                ? new LogAnalyse(args[2], args[3], args[4], args.length == 6 ? args[5] : null)
+                : new LogAnalyse("START", "ENDE", "id=");
+        try {
+            long beginn = System.nanoTime();
+            LogAnalyse.Ergebnis ergebnis = analyse.analysiere(Paths.get(args[1]));
+            ergebnis.ausgeben(System.out);
+            System.out.println("Auswertung dauerte: " + ComfortableDuration.ofNanos(System.nanoTime() - beginn));
+        } catch (IOException e) {
+            System.err.println("Datei " + args[1] + " kann nicht ausgewertet werden: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
 }
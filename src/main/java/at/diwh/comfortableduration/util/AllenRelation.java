@@ -0,0 +1,173 @@
+package at.diwh.comfortableduration.util;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
+import java.time.chrono.ChronoZonedDateTime;
+import java.time.temporal.Temporal;
+
+/**
+ * Die 13 Relationen der Intervall-Algebra nach Allen zwischen einem Intervall A {...} und einem Intervall B [...].
+ * Die Relation wird mit höchstens drei Vergleichen bestimmt, entweder auf long-Werten (z.B. Epoch-Tage oder
+ * Epoch-Millis) oder direkt auf LocalDate, LocalDateTime, Instant, OffsetDateTime oder ZonedDateTime. Bei
+ * OffsetDateTime und ZonedDateTime zählt der Zeitpunkt auf der Zeitachse, wie bei isBefore(...).
+ * <br/> Vorausgesetzt wird, dass der Beginn eines Intervalls nicht nach seinem Ende liegt.
+ * <br/> Die vier Relationen, bei denen A in B liegt ({@link #istInnerhalb()}), sind genau die Fälle von
+ * {@link ComfortableDuration#istIntervallAinIntervallB(Temporal, Temporal, Temporal, Temporal)}.
+ * 
+ * @author diwh
+ */
+public enum AllenRelation {
+
+    /** {...} [...] - A endet, bevor B beginnt (before) */
+    VOR,
+    /** {...}[...] - das Ende von A ist der Beginn von B (meets) */
+    TRIFFT,
+    /** {...[...}...] - A beginnt vor B und endet in B (overlaps) */
+    UEBERLAPPT,
+    /** [{...}...] - gleicher Beginn, A endet vor B (starts) */
+    BEGINNT,
+    /** [...{...}...] - A liegt echt innerhalb von B (during) */
+    WAEHREND,
+    /** [...{...}] - A beginnt nach B, beide enden zugleich (finishes) */
+    BEENDET,
+    /** [{...}] - beide Intervalle sind gleich (equals) */
+    GLEICH,
+    /** {...[...]} - B beginnt nach A, beide enden zugleich (finished by) */
+    WIRD_BEENDET,
+    /** {...[...]...} - B liegt echt innerhalb von A (contains) */
+    ENTHAELT,
+    /** {[...]...} - gleicher Beginn, B endet vor A (started by) */
+    WIRD_BEGONNEN,
+    /** [...{...]...} - B beginnt vor A und endet in A (overlapped by) */
+    WIRD_UEBERLAPPT,
+    /** [...]{...} - das Ende von B ist der Beginn von A (met by) */
+    WIRD_GETROFFEN,
+    /** [...] {...} - A beginnt, nachdem B geendet hat (after) */
+    NACH;
+
+    // die Reihenfolge der Konstanten ist symmetrisch, die Umkehrung von values()[i] ist values()[12 - i]
+    private static final AllenRelation[] WERTE = values();
+
+    /**
+     * @return wahr, wenn A innerhalb von B liegt (GLEICH, BEGINNT, BEENDET, WAEHREND)
+     */
+    public boolean istInnerhalb() {
+        return this == GLEICH || this == BEGINNT || this == BEENDET || this == WAEHREND;
+    }
+
+    /**
+     * @return wahr, wenn A das Intervall B enthält (GLEICH, WIRD_BEGONNEN, WIRD_BEENDET, ENTHAELT)
+     */
+    public boolean enthaelt() {
+        return this == GLEICH || this == WIRD_BEGONNEN || this == WIRD_BEENDET || this == ENTHAELT;
+    }
+
+    /**
+     * @return wahr, wenn A und B mindestens einen Zeitpunkt gemeinsam haben (alles außer VOR und NACH); die
+     *         Intervallgrenzen zählen dazu
+     */
+    public boolean ueberschneidet() {
+        return this != VOR && this != NACH;
+    }
+
+    /**
+     * @return die Relation von B zu A
+     */
+    public AllenRelation umgekehrt() {
+        return WERTE[NACH.ordinal() - ordinal()];
+    }
+
+    /**
+     * Bestimmt die Relation auf long-Werten, die Reihenfolge der longs muss die der Zeitpunkte sein (z.B. Epoch-Tage,
+     * Epoch-Millis, Epoch-Nanos).
+     * 
+     * @param beginnA Beginn Intervall A
+     * @param endeA Ende Intervall A
+     * @param beginnB Beginn Intervall B
+     * @param endeB Ende Intervall B
+     * @return die Relation von A zu B
+     */
+    public static AllenRelation bestimme(long beginnA, long endeA, long beginnB, long endeB) {
+        AllenRelation relation = ausBeginnUndEnde(Long.compare(beginnA, beginnB), Long.compare(endeA, endeB));
+        if (relation != null) {
+            return relation;
+        }
+        if (beginnA < beginnB) {
+            return ausEndeAzuBeginnB(Long.compare(endeA, beginnB));
+        }
+        return ausBeginnAzuEndeB(Long.compare(beginnA, endeB));
+    }
+
+    /**
+     * Bestimmt die Relation für LocalDate, LocalDateTime, Instant, OffsetDateTime oder ZonedDateTime. Wie bei
+     * {@link ComfortableDuration#istAvorB(Temporal, Temporal)} müssen alle vier Parameter vom gleichen Typ sein, sonst
+     * stürzt die Routine (gewollt) mit einer ClassCastException ab.
+     * 
+     * @param beginnA Beginn Intervall A
+     * @param endeA Ende Intervall A
+     * @param beginnB Beginn Intervall B
+     * @param endeB Ende Intervall B
+     * @return die Relation von A zu B
+     */
+    public static AllenRelation bestimme(Temporal beginnA, Temporal endeA, Temporal beginnB, Temporal endeB) {
+        int beginnVergleich = vergleiche(beginnA, beginnB);
+        AllenRelation relation = ausBeginnUndEnde(beginnVergleich, vergleiche(endeA, endeB));
+        if (relation != null) {
+            return relation;
+        }
+        if (beginnVergleich < 0) {
+            return ausEndeAzuBeginnB(vergleiche(endeA, beginnB));
+        }
+        return ausBeginnAzuEndeB(vergleiche(beginnA, endeB));
+    }
+
+    /**
+     * Vergleicht zwei Zeitpunkte gleichen Typs (LocalDate, LocalDateTime, Instant, OffsetDateTime oder
+     * ZonedDateTime). Bei unterschiedlichen oder anderen Typen gibt es eine ClassCastException.
+     * 
+     * @param a erster Zeitpunkt
+     * @param b zweiter Zeitpunkt
+     * @return negativ, wenn a vor b liegt, 0 bei gleichem Zeitpunkt, positiv wenn a nach b liegt
+     */
+    public static int vergleiche(Temporal a, Temporal b) {
+        if (a instanceof LocalDate) {
+            return ((LocalDate) a).compareTo((LocalDate) b);
+        } else if (a instanceof LocalDateTime) {
+            return ((LocalDateTime) a).compareTo((LocalDateTime) b);
+        } else if (a instanceof Instant) {
+            return ((Instant) a).compareTo((Instant) b);
+        } else if (a instanceof OffsetDateTime) {
+            return OffsetDateTime.timeLineOrder().compare((OffsetDateTime) a, (OffsetDateTime) b);
+        } else {
+            return ChronoZonedDateTime.timeLineOrder().compare((ZonedDateTime) a, (ZonedDateTime) b);
+        }
+    }
+
+    /**
+     * Entscheidet aus dem Vergleich der Anfänge und der Enden; null, wenn noch ein dritter Vergleich nötig ist (A
+     * beginnt und endet vor B bzw. beginnt und endet nach B).
+     */
+    private static AllenRelation ausBeginnUndEnde(int beginnVergleich, int endeVergleich) {
+        if (beginnVergleich == 0) {
+            return endeVergleich == 0 ? GLEICH : (endeVergleich < 0 ? BEGINNT : WIRD_BEGONNEN);
+        }
+        if (endeVergleich == 0) {
+            return beginnVergleich > 0 ? BEENDET : WIRD_BEENDET;
+        }
+        if (beginnVergleich < 0) {
+            return endeVergleich > 0 ? ENTHAELT : null;
+        }
+        return endeVergleich < 0 ? WAEHREND : null;
+    }
+
+    private static AllenRelation ausEndeAzuBeginnB(int vergleich) {
+        return vergleich < 0 ? VOR : (vergleich == 0 ? TRIFFT : UEBERLAPPT);
+    }
+
+    private static AllenRelation ausBeginnAzuEndeB(int vergleich) {
+        return vergleich > 0 ? NACH : (vergleich == 0 ? WIRD_GETROFFEN : WIRD_UEBERLAPPT);
+    }
+}
@@ -0,0 +1,407 @@
+package at.diwh.comfortableduration.util;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.MonthDay;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Unveränderlicher Kalender für Arbeitstage und Arbeitszeit zwischen zwei Zeitpunkten, z.B. für SLA-Auswertungen: statt
+ * der Kalendertage aus Duration.between zählen nur Tage außerhalb von Wochenende und Feiertagen, und an diesen Tagen nur
+ * die Zeitfenster der Arbeitszeit (z.B. Mo-Fr 8:00-12:00 und 12:30-16:30).
+ * <br/> Beim Anlegen werden alle Tage der Jahre vonJahr bis bisJahr einmal ausgewertet: ein Bit pro Tag (Arbeitstag ja
+ * / nein) mit der Anzahl der Arbeitstage vor jedem 64er-Block, und die Arbeitszeit als Summe bis zu jedem Tag. Danach
+ * kostet jede Abfrage O(1), unabhängig von der Länge des Zeitraums.
+ * <br/> Zeiträume sind wie bei Duration.between halboffen [von, bis): bis zählt nicht mehr dazu, und liegt bis vor
+ * von, ist das Ergebnis negativ. Zeitpunkte außerhalb der Jahre ergeben eine IllegalArgumentException.
+ * <br/> Für viele Abfragen gibt es dieselben Methoden mit Epoch-Tagen bzw. lokalen Epoch-Nanosekunden aus
+ * {@link GepackteZeit}.
+ * 
+ * @author diwh
+ */
+public final class Arbeitskalender {
+
+    /**
+     * Ein Zeitfenster der Arbeitszeit an bestimmten Wochentagen, z.B. 8:00 bis 12:00 von Montag bis Freitag.
+     */
+    public static final class Zeitfenster {
+
+        private final long vonNanos;
+        private final long bisNanos;
+        private final Set<DayOfWeek> tage;
+
+        /**
+         * @param von - Beginn
+         * @param bis - Ende, nach von; 00:00 steht für das Ende des Tages
+         * @param tage - die Wochentage, an denen das Fenster gilt
+         */
+        public Zeitfenster(LocalTime von, LocalTime bis, DayOfWeek... tage) {
+            super();
+            this.vonNanos = von.toNanoOfDay();
+            this.bisNanos = LocalTime.MIDNIGHT.equals(bis) ? ComfortableDuration.NANOS_PRO_TAG : bis.toNanoOfDay();
+            if (vonNanos >= bisNanos) {
+                throw new IllegalArgumentException("Zeitfenster endet nicht nach seinem Beginn: " + von + " - " + bis);
+            }
+            if (tage.length == 0) {
+                throw new IllegalArgumentException("Zeitfenster ohne Wochentage: " + von + " - " + bis);
+            }
+            this.tage = EnumSet.of(tage[0], tage);
+        }
+    }
+
+    private static final DayOfWeek[] MONTAG_BIS_FREITAG = { DayOfWeek.MONDAY, DayOfWeek.TUESDAY, DayOfWeek.WEDNESDAY,
+            DayOfWeek.THURSDAY, DayOfWeek.FRIDAY };
+
+    /** feste Feiertage in Österreich */
+    private static final MonthDay[] FESTE_FEIERTAGE_OESTERREICH = { MonthDay.of(1, 1), MonthDay.of(1, 6),
+            MonthDay.of(5, 1), MonthDay.of(8, 15), MonthDay.of(10, 26), MonthDay.of(11, 1), MonthDay.of(12, 8),
+            MonthDay.of(12, 25), MonthDay.of(12, 26) };
+
+    /** Ostermontag, Christi Himmelfahrt, Pfingstmontag, Fronleichnam: Tage nach dem Ostersonntag */
+    private static final int[] OSTERABSTAENDE_OESTERREICH = { 1, 39, 50, 60 };
+
+    private final int vonJahr;
+    private final int bisJahr;
+    private final long ersterTag;
+    private final int anzahlTage;
+    // Bit i gesetzt: ersterTag + i ist ein Arbeitstag
+    private final long[] arbeitstag;
+    // Anzahl der Arbeitstage vor dem Block arbeitstag[k]
+    private final int[] arbeitstageVorBlock;
+    // Arbeitszeit aller Tage vor ersterTag + i
+    private final long[] nanosVorTag;
+    // Fenster je Wochentag (Montag = 0) in Nanosekunden des Tages, sortiert und zusammengefasst
+    private final long[][] fensterVon;
+    private final long[][] fensterBis;
+    private final long[] nanosProWochentag;
+
+    /**
+     * @param vonJahr - erstes Jahr, das abgefragt werden kann
+     * @param bisJahr - letztes Jahr, das abgefragt werden kann (einschließlich)
+     * @param wochenende - Wochentage, die keine Arbeitstage sind
+     * @param feiertage - Feiertage, die keine Arbeitstage sind; Tage außerhalb der Jahre werden ignoriert
+     * @param fenster - die Zeitfenster der Arbeitszeit, auch überlappende; ohne Fenster hat ein Arbeitstag keine
+     *            Arbeitszeit
+     */
+    public Arbeitskalender(int vonJahr, int bisJahr, Set<DayOfWeek> wochenende, Collection<LocalDate> feiertage,
+            Zeitfenster... fenster) {
+        super();
+        if (vonJahr > bisJahr) {
+            throw new IllegalArgumentException("Jahre in falscher Reihenfolge: " + vonJahr + " - " + bisJahr);
+        }
+        this.vonJahr = vonJahr;
+        this.bisJahr = bisJahr;
+        this.ersterTag = LocalDate.of(vonJahr, 1, 1).toEpochDay();
+        long tage = LocalDate.of(bisJahr, 12, 31).toEpochDay() + 1L - ersterTag;
+        if (tage > Integer.MAX_VALUE - 64L) {
+            throw new IllegalArgumentException("Zu viele Jahre: " + vonJahr + " - " + bisJahr);
+        }
+        this.anzahlTage = (int) tage;
+
+        this.fensterVon = new long[7][];
+        this.fensterBis = new long[7][];
+        this.nanosProWochentag = new long[7];
+        for (DayOfWeek w : DayOfWeek.values()) {
+            fensterZusammenfassen(w, fenster);
+        }
+
+        // Tage außerhalb der Jahre stehen nicht im Array, daher ein Block mehr für die Abfrage mit dem Ende
+        int bloecke = (anzahlTage >>> 6) + 1;
+        this.arbeitstag = new long[bloecke];
+        for (int i = 0; i < anzahlTage; i++) {
+            if (!wochenende.contains(DayOfWeek.of(wochentag(ersterTag + i) + 1))) {
+                arbeitstag[i >>> 6] |= 1L << i;
+            }
+        }
+        for (LocalDate feiertag : feiertage) {
+            long i = feiertag.toEpochDay() - ersterTag;
+            if (i >= 0 && i < anzahlTage) {
+                arbeitstag[(int) (i >>> 6)] &= ~(1L << i);
+            }
+        }
+        this.arbeitstageVorBlock = new int[bloecke];
+        for (int k = 1; k < bloecke; k++) {
+            arbeitstageVorBlock[k] = arbeitstageVorBlock[k - 1] + Long.bitCount(arbeitstag[k - 1]);
+        }
+        this.nanosVorTag = new long[anzahlTage + 1];
+        for (int i = 0; i < anzahlTage; i++) {
+            long heute = istArbeitstag(i) ? nanosProWochentag[wochentag(ersterTag + i)] : 0L;
+            nanosVorTag[i + 1] = nanosVorTag[i] + heute;
+        }
+    }
+
+    /**
+     * Österreich: Samstag und Sonntag frei, die gesetzlichen Feiertage, Arbeitszeit Montag bis Freitag 8:00-12:00 und
+     * 12:30-16:30.
+     * 
+     * @param vonJahr - erstes Jahr
+     * @param bisJahr - letztes Jahr (einschließlich)
+     * @return der Kalender
+     */
+    public static Arbeitskalender oesterreich(int vonJahr, int bisJahr) {
+        return new Arbeitskalender(vonJahr, bisJahr, EnumSet.of(DayOfWeek.SATURDAY, DayOfWeek.SUNDAY),
+            feiertageOesterreich(vonJahr, bisJahr),
+            new Zeitfenster(LocalTime.of(8, 0), LocalTime.of(12, 0), MONTAG_BIS_FREITAG),
+            new Zeitfenster(LocalTime.of(12, 30), LocalTime.of(16, 30), MONTAG_BIS_FREITAG));
+    }
+
+    /**
+     * Die gesetzlichen Feiertage in Österreich (ohne Karfreitag).
+     * 
+     * @param vonJahr - erstes Jahr
+     * @param bisJahr - letztes Jahr (einschließlich)
+     * @return die Feiertage, sortiert
+     */
+    public static Set<LocalDate> feiertageOesterreich(int vonJahr, int bisJahr) {
+        Set<LocalDate> feiertage = new TreeSet<LocalDate>();
+        for (int jahr = vonJahr; jahr <= bisJahr; jahr++) {
+            for (MonthDay tag : FESTE_FEIERTAGE_OESTERREICH) {
+                feiertage.add(tag.atYear(jahr));
+            }
+            LocalDate ostern = ostersonntag(jahr);
+            for (int abstand : OSTERABSTAENDE_OESTERREICH) {
+                feiertage.add(ostern.plusDays(abstand));
+            }
+        }
+        return feiertage;
+    }
+
+    /**
+     * Ostersonntag im gregorianischen Kalender (Gaußsche Osterformel in der Form von Meeus/Jones/Butcher).
+     * 
+     * @param jahr - das Jahr
+     * @return der Ostersonntag
+     */
+    public static LocalDate ostersonntag(int jahr) {
+        int a = jahr % 19;
+        int b = jahr / 100;
+        int c = jahr % 100;
+        int d = b / 4;
+        int e = b % 4;
+        int f = (b + 8) / 25;
+        int g = (b - f + 1) / 3;
+        int h = (19 * a + b - d - g + 15) % 30;
+        int i = c / 4;
+        int k = c % 4;
+        int l = (32 + 2 * e + 2 * i - h - k) % 7;
+        int m = (a + 11 * h + 22 * l) / 451;
+        int monat = (h + l - 7 * m + 114) / 31;
+        int tag = (h + l - 7 * m + 114) % 31 + 1;
+        return LocalDate.of(jahr, monat, tag);
+    }
+
+    /**
+     * @return erstes Jahr des Kalenders
+     */
+    public int getVonJahr() {
+        return vonJahr;
+    }
+
+    /**
+     * @return letztes Jahr des Kalenders (einschließlich)
+     */
+    public int getBisJahr() {
+        return bisJahr;
+    }
+
+    /**
+     * @param tag - der Wochentag
+     * @return Arbeitszeit an diesem Wochentag, wenn er ein Arbeitstag ist
+     */
+    public ComfortableDuration tagesArbeitszeit(DayOfWeek tag) {
+        return ComfortableDuration.ofNanos(nanosProWochentag[tag.getValue() - 1]);
+    }
+
+    /**
+     * @param datum - der Tag
+     * @return wahr, wenn der Tag weder am Wochenende noch ein Feiertag ist
+     */
+    public boolean istArbeitstag(LocalDate datum) {
+        return istArbeitstag(datum.toEpochDay());
+    }
+
+    /**
+     * @param epochTag - der Tag (LocalDate.toEpochDay())
+     * @return wahr, wenn der Tag weder am Wochenende noch ein Feiertag ist
+     */
+    public boolean istArbeitstag(long epochTag) {
+        int i = index(epochTag);
+        if (i == anzahlTage) {
+            throw ausserhalb(epochTag);
+        }
+        return istArbeitstag(i);
+    }
+
+    /**
+     * @param von - erster Tag
+     * @param bis - Tag nach dem letzten
+     * @return Anzahl der Arbeitstage in [von, bis)
+     */
+    public long arbeitstage(LocalDate von, LocalDate bis) {
+        return arbeitstage(von.toEpochDay(), bis.toEpochDay());
+    }
+
+    /**
+     * @param vonEpochTag - erster Tag
+     * @param bisEpochTag - Tag nach dem letzten
+     * @return Anzahl der Arbeitstage in [von, bis)
+     */
+    public long arbeitstage(long vonEpochTag, long bisEpochTag) {
+        return arbeitstageVor(index(bisEpochTag)) - arbeitstageVor(index(vonEpochTag));
+    }
+
+    /**
+     * @param von - erster Tag
+     * @param bis - Tag nach dem letzten
+     * @return Arbeitszeit aller ganzen Tage in [von, bis)
+     */
+    public ComfortableDuration arbeitszeit(LocalDate von, LocalDate bis) {
+        return ComfortableDuration.ofNanos(arbeitsNanosZwischenTagen(von.toEpochDay(), bis.toEpochDay()));
+    }
+
+    /**
+     * @param von - Beginn
+     * @param bis - Ende
+     * @return Arbeitszeit in [von, bis), also die Überschneidung mit den Zeitfenstern der Arbeitstage
+     */
+    public ComfortableDuration arbeitszeit(LocalDateTime von, LocalDateTime bis) {
+        return ComfortableDuration.ofNanos(arbeitsNanos(GepackteZeit.ausDatumZeit(von),
+            GepackteZeit.ausDatumZeit(bis)));
+    }
+
+    /**
+     * @param vonEpochTag - erster Tag
+     * @param bisEpochTag - Tag nach dem letzten
+     * @return Arbeitszeit aller ganzen Tage in [von, bis) in Nanosekunden
+     */
+    public long arbeitsNanosZwischenTagen(long vonEpochTag, long bisEpochTag) {
+        return nanosVorTag[index(bisEpochTag)] - nanosVorTag[index(vonEpochTag)];
+    }
+
+    /**
+     * @param vonNanos - Beginn als lokale Epoch-Nanosekunden ({@link GepackteZeit#ausDatumZeit(LocalDateTime)})
+     * @param bisNanos - Ende als lokale Epoch-Nanosekunden
+     * @return Arbeitszeit in [von, bis) in Nanosekunden
+     */
+    public long arbeitsNanos(long vonNanos, long bisNanos) {
+        if (bisNanos < vonNanos) {
+            return -arbeitsNanos(bisNanos, vonNanos);
+        }
+        long vonTag = Math.floorDiv(vonNanos, ComfortableDuration.NANOS_PRO_TAG);
+        long bisTag = Math.floorDiv(bisNanos, ComfortableDuration.NANOS_PRO_TAG);
+        long vonZeit = Math.floorMod(vonNanos, ComfortableDuration.NANOS_PRO_TAG);
+        long bisZeit = Math.floorMod(bisNanos, ComfortableDuration.NANOS_PRO_TAG);
+        int a = index(vonTag, vonZeit);
+        int b = index(bisTag, bisZeit);
+        if (a == b) {
+            return imTag(a, vonZeit, bisZeit);
+        }
+        // angebrochener erster Tag, ganze Tage dazwischen, angebrochener letzter Tag
+        return imTag(a, vonZeit, ComfortableDuration.NANOS_PRO_TAG) + nanosVorTag[b] - nanosVorTag[a + 1]
+                + imTag(b, 0L, bisZeit);
+    }
+
+    private boolean istArbeitstag(int i) {
+        return (arbeitstag[i >>> 6] & (1L << i)) != 0L;
+    }
+
+    private int arbeitstageVor(int i) {
+        return arbeitstageVorBlock[i >>> 6] + Long.bitCount(arbeitstag[i >>> 6] & ((1L << i) - 1L));
+    }
+
+    /**
+     * Arbeitszeit am Tag i zwischen zwei Zeiten des Tages.
+     */
+    private long imTag(int i, long von, long bis) {
+        if (von >= bis || !istArbeitstag(i)) {
+            return 0L;
+        }
+        int w = wochentag(ersterTag + i);
+        long[] fv = fensterVon[w];
+        long[] fb = fensterBis[w];
+        long summe = 0L;
+        for (int f = 0; f < fv.length; f++) {
+            summe += Math.max(0L, Math.min(bis, fb[f]) - Math.max(von, fv[f]));
+        }
+        return summe;
+    }
+
+    /**
+     * @return Index des Tages, auch anzahlTage als Ende des letzten Jahres
+     */
+    private int index(long epochTag) {
+        long i = epochTag - ersterTag;
+        if (i < 0 || i > anzahlTage) {
+            throw ausserhalb(epochTag);
+        }
+        return (int) i;
+    }
+
+    /**
+     * @return Index des Tages eines Zeitpunkts, am Tag nach dem letzten Jahr nur für Mitternacht (Ende des Kalenders)
+     */
+    private int index(long epochTag, long zeit) {
+        int i = index(epochTag);
+        if (i == anzahlTage && zeit > 0L) {
+            throw ausserhalb(epochTag);
+        }
+        return i;
+    }
+
+    private IllegalArgumentException ausserhalb(long epochTag) {
+        return new IllegalArgumentException(
+            "Tag " + LocalDate.ofEpochDay(epochTag) + " liegt außerhalb des Kalenders " + vonJahr + " - " + bisJahr);
+    }
+
+    /**
+     * @return Wochentag, Montag = 0 (1970-01-01 war ein Donnerstag)
+     */
+    private static int wochentag(long epochTag) {
+        return (int) Math.floorMod(epochTag + 3L, 7L);
+    }
+
+    private void fensterZusammenfassen(DayOfWeek tag, Zeitfenster[] fenster) {
+        int w = tag.getValue() - 1;
+        long[] von = new long[fenster.length];
+        long[] bis = new long[fenster.length];
+        int n = 0;
+        for (Zeitfenster f : fenster) {
+            if (f.tage.contains(tag)) {
+                von[n] = f.vonNanos;
+                bis[n] = f.bisNanos;
+                n++;
+            }
+        }
+        PrimitivSortierung.sortiere(von, bis, n);
+        int m = 0;
+        for (int k = 0; k < n; k++) {
+            if (m > 0 && von[k] <= bis[m - 1]) {
+                bis[m - 1] = Math.max(bis[m - 1], bis[k]);
+            } else {
+                von[m] = von[k];
+                bis[m] = bis[k];
+                m++;
+            }
+        }
+        fensterVon[w] = Arrays.copyOf(von, m);
+        fensterBis[w] = Arrays.copyOf(bis, m);
+        long summe = 0L;
+        for (int k = 0; k < m; k++) {
+            summe += bis[k] - von[k];
+        }
+        nanosProWochentag[w] = summe;
+    }
+
+    @Override
+    public String toString() {
+        return "Arbeitskalender [" + vonJahr + " - " + bisJahr + ", arbeitstage=" + arbeitstageVor(anzahlTage)
+                + ", arbeitszeit=" + DauerFormat.KOMPAKT.format(ComfortableDuration.ofNanos(nanosVorTag[anzahlTage]))
+                + "]";
+    }
+}
@@ -0,0 +1,333 @@
+package at.diwh.comfortableduration.util;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Arrays;
+
+/**
+ * Rechnet Anwesenheit in Arbeitszeit und Dezimalstunden um (z.B. für CATS): Pause abziehen, auf ein Raster runden
+ * (z.B. Viertelstunden) und in Hundertstelstunden ausgeben, also 8 Stunden 40 Minuten -> 8,50 bei Abrunden auf 15
+ * Minuten. Gerechnet wird durchgehend exakt in long-Nanosekunden.
+ * <br/> {@link #cats()} ist die Einstellung aus der Demo in Main: Tagesbeginn 6:00, 30 Minuten Mittagspause, auf
+ * Viertelstunden abrunden.
+ * <br/> Für viele Mitarbeiter und Tage gibt es {@link #berechne(long[], long[], boolean[], TagesVerbraucher)}, das
+ * einen ganzen Strom von Kommen/Gehen-Buchungen in einem Durchlauf abarbeitet und pro Mitarbeiter und Tag ein
+ * Ergebnis als primitive Werte liefert.
+ * 
+ * @author diwh
+ */
+public final class Arbeitszeitrechner {
+
+    /**
+     * Wie auf das Raster gerundet wird.
+     */
+    public enum Rundung {
+        /** immer auf das Raster darunter, wie bisher bei CATS */
+        ABRUNDEN,
+        /** immer auf das Raster darüber */
+        AUFRUNDEN,
+        /** ab der Hälfte des Rasters aufrunden */
+        KAUFMAENNISCH;
+
+        /**
+         * @param wert - zu rundender Wert
+         * @param raster - Raster, größer 0
+         * @return der gerundete Wert, ein Vielfaches von raster
+         */
+        public long runde(long wert, long raster) {
+            switch (this) {
+                case AUFRUNDEN:
+                    return Math.multiplyExact(-Math.floorDiv(-wert, raster), raster);
+                case KAUFMAENNISCH:
+                    return Math.multiplyExact(Math.floorDiv(Math.addExact(wert, raster / 2), raster), raster);
+                default:
+                    return Math.multiplyExact(Math.floorDiv(wert, raster), raster);
+            }
+        }
+    }
+
+    /**
+     * Ab einer Anwesenheit von <i>ab</i> wird <i>abzug</i> als Pause abgezogen. Gelten mehrere Regeln, zählt die mit
+     * der größten Schwelle.
+     */
+    public static final class PausenRegel {
+
+        private final long abNanos;
+        private final long abzugNanos;
+
+        /**
+         * @param ab - ab dieser Anwesenheit (einschließlich) gilt die Regel
+         * @param abzug - so viel Pause wird abgezogen
+         */
+        public PausenRegel(Duration ab, Duration abzug) {
+            super();
+            this.abNanos = ab.toNanos();
+            this.abzugNanos = abzug.toNanos();
+            if (abNanos < 0 || abzugNanos < 0) {
+                throw new IllegalArgumentException("Pausenregel mit negativer Dauer: " + ab + " / " + abzug);
+            }
+        }
+    }
+
+    /**
+     * Bekommt pro Mitarbeiter und Tag das Ergebnis von {@link Arbeitszeitrechner#berechne(long[], long[], boolean[],
+     * TagesVerbraucher)}.
+     */
+    @FunctionalInterface
+    public interface TagesVerbraucher {
+
+        /**
+         * @param mitarbeiter - Schlüssel des Mitarbeiters
+         * @param epochTag - Tag (LocalDate.toEpochDay()), an dem die Buchungen begonnen haben
+         * @param anwesenheitNanos - Summe der Anwesenheit an dem Tag
+         * @param arbeitszeitNanos - Anwesenheit minus Pause, gerundet
+         * @param hundertstelStunden - Arbeitszeit in Hundertstelstunden, also 850 für 8,50
+         */
+        void tag(long mitarbeiter, long epochTag, long anwesenheitNanos, long arbeitszeitNanos,
+            long hundertstelStunden);
+    }
+
+    private final LocalTime tagesbeginn;
+    private final long[] pausenAb;
+    private final long[] pausenAbzug;
+    private final long rasterNanos;
+    private final Rundung rundung;
+
+    /**
+     * @param tagesbeginn - Beginn des Arbeitstages, wenn nur das Ende bekannt ist (siehe {@link #berechneBis})
+     * @param raster - Rundungsraster, z.B. 15 Minuten (Duration.ZERO oder 1 Nanosekunde: nicht runden)
+     * @param rundung - wie gerundet wird
+     * @param pausenRegeln - die Pausenregeln, auch keine
+     */
+    public Arbeitszeitrechner(LocalTime tagesbeginn, Duration raster, Rundung rundung, PausenRegel... pausenRegeln) {
+        super();
+        this.tagesbeginn = tagesbeginn;
+        this.rasterNanos = Math.max(1L, raster.toNanos());
+        this.rundung = rundung;
+        PausenRegel[] regeln = pausenRegeln.clone();
+        long[] ab = new long[regeln.length];
+        long[] abzug = new long[regeln.length];
+        for (int i = 0; i < regeln.length; i++) {
+            ab[i] = regeln[i].abNanos;
+            abzug[i] = regeln[i].abzugNanos;
+        }
+        // nach Schwelle sortiert, dann ist die letzte passende Regel die mit der größten Schwelle
+        PrimitivSortierung.sortiere(ab, abzug, ab.length);
+        this.pausenAb = ab;
+        this.pausenAbzug = abzug;
+    }
+
+    /**
+     * @return die Einstellung für CATS: Tagesbeginn 6:00, immer 30 Minuten Mittagspause, auf Viertelstunden abrunden
+     */
+    public static Arbeitszeitrechner cats() {
+        return new Arbeitszeitrechner(LocalTime.of(6, 0), Duration.ofMinutes(15), Rundung.ABRUNDEN,
+            new PausenRegel(Duration.ZERO, Duration.ofMinutes(30)));
+    }
+
+    /**
+     * @return der Beginn des Arbeitstages
+     */
+    public LocalTime getTagesbeginn() {
+        return tagesbeginn;
+    }
+
+    /**
+     * @param anwesenheitNanos - Anwesenheit eines Tages
+     * @return die Anwesenheit abzüglich Pause (nicht unter 0), noch nicht gerundet
+     */
+    public long ohnePause(long anwesenheitNanos) {
+        long abzug = 0L;
+        for (int i = pausenAb.length - 1; i >= 0; i--) {
+            if (anwesenheitNanos >= pausenAb[i]) {
+                abzug = pausenAbzug[i];
+                break;
+            }
+        }
+        return Math.max(0L, anwesenheitNanos - abzug);
+    }
+
+    /**
+     * @param anwesenheitNanos - Anwesenheit eines Tages
+     * @return die Arbeitszeit: Anwesenheit minus Pause, auf das Raster gerundet
+     */
+    public long arbeitszeit(long anwesenheitNanos) {
+        return rundung.runde(ohnePause(anwesenheitNanos), rasterNanos);
+    }
+
+    /**
+     * @param arbeitszeitNanos - eine (schon gerundete) Arbeitszeit
+     * @return die Arbeitszeit in Hundertstelstunden, mit derselben Rundung
+     */
+    public long hundertstelStunden(long arbeitszeitNanos) {
+        return rundung.runde(Math.multiplyExact(arbeitszeitNanos, 100L), ComfortableDuration.NANOS_PRO_STUNDE)
+                / ComfortableDuration.NANOS_PRO_STUNDE;
+    }
+
+    /**
+     * Rechnet einen einzelnen Arbeitstag.
+     * 
+     * @param kommen - Beginn der Anwesenheit
+     * @param gehen - Ende der Anwesenheit
+     * @return das Ergebnis
+     */
+    public Tagesergebnis berechne(LocalDateTime kommen, LocalDateTime gehen) {
+        long anwesenheit = GepackteZeit.ausDatumZeit(gehen) - GepackteZeit.ausDatumZeit(kommen);
+        long arbeitszeit = arbeitszeit(Math.max(0L, anwesenheit));
+        return new Tagesergebnis(kommen.toLocalDate(), anwesenheit, arbeitszeit, hundertstelStunden(arbeitszeit));
+    }
+
+    /**
+     * Rechnet den Arbeitstag vom Tagesbeginn bis zum angegebenen Zeitpunkt, also z.B. "wie viel müsste ich jetzt
+     * eintragen".
+     * 
+     * @param gehen - Ende der Anwesenheit, z.B. LocalDateTime.now()
+     * @return das Ergebnis
+     */
+    public Tagesergebnis berechneBis(LocalDateTime gehen) {
+        return berechne(LocalDateTime.of(gehen.toLocalDate(), tagesbeginn), gehen);
+    }
+
+    /**
+     * Arbeitet einen Strom von Kommen/Gehen-Buchungen vieler Mitarbeiter in einem Durchlauf ab. Die Buchungen dürfen
+     * unsortiert sein, sie werden einmal nach Mitarbeiter und Zeitpunkt sortiert. Jedes Paar Kommen-Gehen zählt zum Tag
+     * des Kommens; ein Gehen ohne vorheriges Kommen und ein zweites Kommen vor dem Gehen werden ignoriert, ebenso ein
+     * Kommen ohne Gehen am Ende. Pro Mitarbeiter und Tag mit Anwesenheit wird der verbraucher einmal aufgerufen, in
+     * aufsteigender Reihenfolge.
+     * 
+     * @param mitarbeiter - Schlüssel des Mitarbeiters je Buchung
+     * @param zeitpunkte - Zeitpunkt je Buchung in Nanosekunden seit 1970-01-01T00:00 lokaler Zeit
+     * @param kommen - wahr für Kommen, falsch für Gehen
+     * @param verbraucher - bekommt die Tagesergebnisse
+     */
+    public void berechne(long[] mitarbeiter, long[] zeitpunkte, boolean[] kommen, TagesVerbraucher verbraucher) {
+        if (mitarbeiter.length != zeitpunkte.length || mitarbeiter.length != kommen.length) {
+            throw new IllegalArgumentException("Die Buchungs-Arrays sind unterschiedlich lang");
+        }
+        int[] reihenfolge = PrimitivSortierung.reihenfolge(mitarbeiter, zeitpunkte, mitarbeiter.length);
+        long aktuellerMitarbeiter = 0L;
+        long aktuellerTag = Long.MIN_VALUE;
+        long anwesenheit = 0L;
+        long offenSeit = Long.MIN_VALUE;
+        boolean offen = false;
+        for (int k = 0; k < reihenfolge.length; k++) {
+            int i = reihenfolge[k];
+            if (k == 0 || mitarbeiter[i] != aktuellerMitarbeiter) {
+                melden(verbraucher, aktuellerMitarbeiter, aktuellerTag, anwesenheit);
+                aktuellerMitarbeiter = mitarbeiter[i];
+                aktuellerTag = Long.MIN_VALUE;
+                anwesenheit = 0L;
+                offen = false;
+            }
+            if (kommen[i]) {
+                if (!offen) {
+                    offen = true;
+                    offenSeit = zeitpunkte[i];
+                }
+            } else if (offen) {
+                offen = false;
+                long tag = Math.floorDiv(offenSeit, ComfortableDuration.NANOS_PRO_TAG);
+                if (tag != aktuellerTag) {
+                    melden(verbraucher, aktuellerMitarbeiter, aktuellerTag, anwesenheit);
+                    aktuellerTag = tag;
+                    anwesenheit = 0L;
+                }
+                anwesenheit += zeitpunkte[i] - offenSeit;
+            }
+        }
+        melden(verbraucher, aktuellerMitarbeiter, aktuellerTag, anwesenheit);
+    }
+
+    private void melden(TagesVerbraucher verbraucher, long mitarbeiter, long tag, long anwesenheit) {
+        if (tag == Long.MIN_VALUE) {
+            return; // noch kein Tag mit Anwesenheit
+        }
+        long arbeitszeit = arbeitszeit(anwesenheit);
+        verbraucher.tag(mitarbeiter, tag, anwesenheit, arbeitszeit, hundertstelStunden(arbeitszeit));
+    }
+
+    @Override
+    public String toString() {
+        return "Arbeitszeitrechner [tagesbeginn=" + tagesbeginn + ", raster=" + Duration.ofNanos(rasterNanos)
+                + ", rundung=" + rundung + ", pausenAb=" + Arrays.toString(pausenAb) + ", pausenAbzug="
+                + Arrays.toString(pausenAbzug) + "]";
+    }
+
+    /**
+     * Ergebnis eines einzelnen Arbeitstages.
+     */
+    public static final class Tagesergebnis {
+
+        private final LocalDate tag;
+        private final long anwesenheitNanos;
+        private final long arbeitszeitNanos;
+        private final long hundertstelStunden;
+
+        Tagesergebnis(LocalDate tag, long anwesenheitNanos, long arbeitszeitNanos, long hundertstelStunden) {
+            super();
+            this.tag = tag;
+            this.anwesenheitNanos = anwesenheitNanos;
+            this.arbeitszeitNanos = arbeitszeitNanos;
+            this.hundertstelStunden = hundertstelStunden;
+        }
+
+        /**
+         * @return der Tag des Kommens
+         */
+        public LocalDate getTag() {
+            return tag;
+        }
+
+        /**
+         * @return die Anwesenheit
+         */
+        public ComfortableDuration getAnwesenheit() {
+            return ComfortableDuration.ofNanos(anwesenheitNanos);
+        }
+
+        /**
+         * @return die Arbeitszeit (ohne Pause, gerundet)
+         */
+        public ComfortableDuration getArbeitszeit() {
+            return ComfortableDuration.ofNanos(arbeitszeitNanos);
+        }
+
+        /**
+         * @return die Arbeitszeit in Hundertstelstunden, also 850 für 8,50
+         */
+        public long getHundertstelStunden() {
+            return hundertstelStunden;
+        }
+
+        /**
+         * @return die Arbeitszeit als Dezimalstunden mit Komma, z.B. "8,50"
+         */
+        public String getDezimalstunden() {
+            return dezimalstunden(hundertstelStunden);
+        }
+
+        @Override
+        public String toString() {
+            return tag + " : " + getDezimalstunden() + " (" + getArbeitszeit() + ")";
+        }
+    }
+
+    /**
+     * @param hundertstelStunden - z.B. 850
+     * @return z.B. "8,50"
+     */
+    public static String dezimalstunden(long hundertstelStunden) {
+        long rest = Math.abs(hundertstelStunden % 100L);
+        StringBuilder builder = new StringBuilder(8);
+        if (hundertstelStunden < 0 && hundertstelStunden > -100L) {
+            builder.append('-');
+        }
+        builder.append(hundertstelStunden / 100L).append(',');
+        if (rest < 10L) {
+            builder.append('0');
+        }
+        return builder.append(rest).toString();
+    }
+}
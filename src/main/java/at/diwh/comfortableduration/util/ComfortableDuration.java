@@ -6,13 +6,11 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
-import java.time.temporal.ChronoUnit;
 import java.time.temporal.Temporal;
 import java.util.Date;
 import java.util.LinkedHashMap;
 import java.util.Locale;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.TimeZone;
 /**
  * Klasse, die im Konstruktor eine DURATION ({@link java.time.Duration}) übernimmt und danach einfache
@@ -25,12 +23,46 @@ import java.util.TimeZone;
  * aus der Instanz die entsprechenden Werte raus zu lesen.
  * <br/> <b>Beispiel</b> für die Nützlichkeit: 
  * <br/>Eine "unleserliche" <i>Duration</i> im ISO8601-Format: PT1990H40M32.025S <br/>-> Tage : 82, Stunden : 22, Minuten : 40, Sekunden : 32, Nanosekunden : 25000000
+ * <br/> Die Klasse ist unveränderlich (alle Felder final, keine Unterklassen), Instanzen dürfen daher ohne
+ * Synchronisation zwischen Threads geteilt werden. Für häufige Dauern liefert {@link #of(long)} geteilte Instanzen
+ * statt neuer Objekte, für häufige krumme Werte gibt es {@link DauerZwischenspeicher}.
  * @author diwh
  *
  */
-public class ComfortableDuration {
+public final class ComfortableDuration {
 
-    private Map<String, Long> inhalt = new LinkedHashMap<String, Long>();
+    static final String TAGE = "Tage";
+    static final String STUNDEN = "Stunden";
+    static final String MINUTEN = "Minuten";
+    static final String SEKUNDEN = "Sekunden";
+    static final String NANOSEKUNDEN = "Nanosekunden";
+
+    static final long SEKUNDEN_PRO_MINUTE = 60L;
+    static final long SEKUNDEN_PRO_STUNDE = 60L * 60L;
+    static final long SEKUNDEN_PRO_TAG = 24L * 60L * 60L;
+    static final long NANOS_PRO_SEKUNDE = 1000000000L;
+    static final long NANOS_PRO_STUNDE = SEKUNDEN_PRO_STUNDE * NANOS_PRO_SEKUNDE;
+    static final long NANOS_PRO_TAG = SEKUNDEN_PRO_TAG * NANOS_PRO_SEKUNDE;
+
+    /**
+     * System-Property für die Obergrenze der geteilten Instanzen von {@link #of(long)} in ganzen Sekunden, Standard
+     * 86400 (24 Stunden), 0 schaltet sie ab, höchstens {@link #KANON_MAX} (7 Tage). Wird beim ersten Aufruf von of(...)
+     * gelesen; ungültige Werte ergeben eine Warnung auf System.err und den Standard, zu große die Höchstgrenze.
+     */
+    public static final String KANON_PROPERTY = "at.diwh.comfortableduration.kanon.sekunden";
+
+    /** höchster Wert für {@link #KANON_PROPERTY}: 7 Tage, rund 5 MB Referenzen */
+    public static final long KANON_MAX = 7L * SEKUNDEN_PRO_TAG;
+
+    // Gesamtwert wie in java.time.Duration: Sekunden (abgerundet) plus Nanosekunden im Bereich 0..999 999 999
+    private final long gesamtSekunden;
+    private final int nanos;
+
+    // die zerlegten Werte, einmalig im Konstruktor berechnet
+    private final long tage;
+    private final long stunden;
+    private final long minuten;
+    private final long sekunden;
 
 
 
@@ -39,25 +71,196 @@ public class ComfortableDuration {
      * Da eine Kopie zurück gegeben wird, kann die Map innerhalb des Objekts nicht (unabsichtlich oder unbedacht) verändert werden.
      * D.h. ein getInhalt().put(...) hat keine Auswirkung auf den Inhalt im Objekt selbst. Oder anders: Jeder get-Aufrufe 
      * nach einem <i>new</i> liefern während der Lebensdauer (also bis zu einem anderen <i>new</i> des Objekts immer den gleichen Wert.
+     * <br/> Die Map wird erst bei diesem Aufruf aus den primitiven Feldern aufgebaut, intern hält das Objekt keine Map.
      * @return a copy of the Map
      */
     public  Map<String, Long> getInhalt() {
-        return (new LinkedHashMap<String, Long>(inhalt));
+        Map<String, Long> result = new LinkedHashMap<String, Long>();
+        result.put(TAGE, Long.valueOf(tage));
+        result.put(STUNDEN, Long.valueOf(stunden));
+        result.put(MINUTEN, Long.valueOf(minuten));
+        result.put(SEKUNDEN, Long.valueOf(sekunden));
+        result.put(NANOSEKUNDEN, Long.valueOf(nanos));
+        return result;
     }
 
+    /**
+     * Tage : [82]       Stunden : [22]       Minuten : [40]       Sekunden : [32]       Nanosekunden : [25000000] <br/>
+     * Andere Formate (englisch, kompakt, ISO8601) und Ausgabe ohne Zwischen-Strings direkt in einen StringBuilder,
+     * ein char[] oder einen ByteBuffer: siehe {@link DauerFormat}.
+     */
     @Override
     public String toString() {
-        StringBuilder builder = new StringBuilder();
-        for (Entry<String, Long> element : inhalt.entrySet()) {
-            builder.append(element.getKey() + " : [" + element.getValue()+ "]       ");
+        return DauerFormat.DEUTSCH.format(this);
+    }
+
+    /**
+     * Erzeugt eine ComfortableDuration direkt aus Sekunden und Nanosekunden, ohne dass vorher eine Duration gebaut
+     * werden muss. Die Nanosekunden dürfen (wie bei {@link Duration#ofSeconds(long, long)}) auch außerhalb von 0 bis
+     * 999 999 999 liegen, sie werden dann in die Sekunden übertragen.
+     * <br/> <b>Beispiel:</b> ofSekunden(7180832, 25000000) entspricht PT1990H40M32.025S
+     * <br/>-> Tage : 82, Stunden : 22, Minuten : 40, Sekunden : 32, Nanosekunden : 25000000
+     * 
+     * @param sekunden - Sekunden gesamt
+     * @param nanos - Nanosekunden (Anpassung)
+     * @return eine neue ComfortableDuration
+     */
+    public static ComfortableDuration ofSekunden(long sekunden, int nanos) {
+        long s = sekunden;
+        long n = nanos;
+        if (n < 0 || n >= NANOS_PRO_SEKUNDE) {
+            s = Math.addExact(s, Math.floorDiv(n, NANOS_PRO_SEKUNDE));
+            n = Math.floorMod(n, NANOS_PRO_SEKUNDE);
+        }
+        return new ComfortableDuration(s, (int) n);
+    }
+
+    /**
+     * Liefert eine ComfortableDuration für ganze Sekunden, wie Integer.valueOf(int): von 0 bis 24 Stunden (siehe
+     * {@link #KANON_PROPERTY}) ist das immer dieselbe, geteilte Instanz, darüber eine neue.
+     * <br/> <b>Beispiel:</b> of(86400) ist PT24H -> Tage : 1, Stunden : 0, Minuten : 0, Sekunden : 0, Nanosekunden : 0
+     * 
+     * @param sekunden - Sekunden gesamt
+     * @return eine geteilte oder neue ComfortableDuration
+     */
+    public static ComfortableDuration of(long sekunden) {
+        ComfortableDuration[] kanon = Kanon.WERTE;
+        if (istKanonisch(sekunden)) {
+            ComfortableDuration d = kanon[(int) sekunden];
+            if (d == null) {
+                // zwei Threads können hier beide anlegen, dann gewinnt einer; ungefährlich, weil alle Felder final sind
+                d = new ComfortableDuration(sekunden, 0);
+                kanon[(int) sekunden] = d;
+            }
+            return d;
+        }
+        return new ComfortableDuration(sekunden, 0);
+    }
+
+    /**
+     * @param sekunden - Sekunden gesamt
+     * @return wahr, wenn of(sekunden) eine geteilte Instanz liefert
+     */
+    static boolean istKanonisch(long sekunden) {
+        return sekunden >= 0L && sekunden < Kanon.WERTE.length;
+    }
+
+    /**
+     * Wie {@link #ofSekunden(long, int)}, für ganze Sekunden aber über {@link #of(long)}.
+     * 
+     * @param sekunden - Sekunden gesamt
+     * @param nanos - Nanosekunden (Anpassung)
+     * @return eine geteilte oder neue ComfortableDuration
+     */
+    public static ComfortableDuration of(long sekunden, int nanos) {
+        if (nanos == 0) {
+            return of(sekunden);
+        }
+        return ofSekunden(sekunden, nanos);
+    }
+
+    /**
+     * Wie {@link #ComfortableDuration(Duration)}, für ganze Sekunden aber über {@link #of(long)}.
+     * 
+     * @param d - Duration
+     * @return eine geteilte oder neue ComfortableDuration
+     */
+    public static ComfortableDuration of(Duration d) {
+        return d.getNano() == 0 ? of(d.getSeconds()) : new ComfortableDuration(d.getSeconds(), d.getNano());
+    }
+
+    /**
+     * Die geteilten Instanzen, erst beim ersten Zugriff angelegt (Platz für die Referenzen sofort, die Objekte pro
+     * Wert beim ersten Bedarf).
+     */
+    private static final class Kanon {
+
+        static final ComfortableDuration[] WERTE = new ComfortableDuration[groesse()];
+
+        private static int groesse() {
+            // keine Ausnahme hier: sie würde die Klasse unbrauchbar machen, jedes weitere of(...) ergäbe
+            // NoClassDefFoundError
+            long obergrenze = SEKUNDEN_PRO_TAG;
+            String wert = System.getProperty(KANON_PROPERTY);
+            if (wert != null) {
+                try {
+                    obergrenze = Long.parseLong(wert.trim());
+                } catch (NumberFormatException e) {
+                    obergrenze = -1L;
+                }
+                if (obergrenze < 0L) {
+                    System.err.println(KANON_PROPERTY + " ist keine Zahl ab 0: " + wert + ", verwende "
+                            + SEKUNDEN_PRO_TAG);
+                    obergrenze = SEKUNDEN_PRO_TAG;
+                } else if (obergrenze > KANON_MAX) {
+                    System.err.println(KANON_PROPERTY + " größer als " + KANON_MAX + ": " + wert + ", verwende "
+                            + KANON_MAX);
+                    obergrenze = KANON_MAX;
+                }
+            }
+            return obergrenze == 0L ? 0 : (int) obergrenze + 1;
         }
-        return builder.toString().trim();
     }
 
+    /**
+     * Durchschnitt einer Summe aus Sekunden und Nanosekunden über anzahl Werte, exakt auf Nanosekunden abgerundet
+     * (Richtung minus unendlich). Gemeinsam für DauerAddierer, DauerHistogramm und DauerSpalte.
+     * 
+     * @param sekunden - Summe der Sekunden
+     * @param nanos - Summe der Nanosekunden, 0 bis 999 999 999
+     * @param anzahl - Anzahl der Werte, größer 0
+     * @return der Durchschnitt
+     */
+    static ComfortableDuration durchschnitt(long sekunden, long nanos, long anzahl) {
+        long s = Math.floorDiv(sekunden, anzahl);
+        long n = teile(Math.floorMod(sekunden, anzahl), nanos, anzahl);
+        return ofSekunden(s + n / NANOS_PRO_SEKUNDE, (int) (n % NANOS_PRO_SEKUNDE));
+    }
+
+    /**
+     * (rest * 1e9 + nanos) / anzahl, exakt abgerundet; rest &lt; anzahl, nanos &lt; 1e9.
+     */
+    private static long teile(long rest, long nanos, long anzahl) {
+        if (rest <= (Long.MAX_VALUE - nanos) / NANOS_PRO_SEKUNDE) {
+            return (rest * NANOS_PRO_SEKUNDE + nanos) / anzahl;
+        }
+        // rest * 1e9 passt nicht in einen long: Bit für Bit, der Rest r bleibt unter anzahl (vorzeichenlos
+        // verglichen, 2 * r passt vorzeichenlos immer)
+        long q = 0L;
+        long r = 0L;
+        for (int bit = 63 - Long.numberOfLeadingZeros(NANOS_PRO_SEKUNDE); bit >= 0; bit--) {
+            q <<= 1;
+            r <<= 1;
+            if (Long.compareUnsigned(r, anzahl) >= 0) {
+                r -= anzahl;
+                q++;
+            }
+            if ((NANOS_PRO_SEKUNDE & (1L << bit)) != 0L) {
+                r += rest;
+                if (Long.compareUnsigned(r, anzahl) >= 0) {
+                    r -= anzahl;
+                    q++;
+                }
+            }
+        }
+        return q + Long.divideUnsigned(r + nanos, anzahl);
+    }
 
     /**
-     * Extrahiert aus einer Duration im Format ISO8601 die Informationen in eine Map. Diese Map enthält Werte für folgende Keys 
-     * <br/> Tage, Stunden, Minuten, Sekunden, Nanosekunden
+     * Erzeugt eine ComfortableDuration aus einer Anzahl Nanosekunden (wie {@link Duration#ofNanos(long)}).
+     * 
+     * @param nanos - Nanosekunden gesamt
+     * @return eine neue ComfortableDuration
+     */
+    public static ComfortableDuration ofNanos(long nanos) {
+        return new ComfortableDuration(Math.floorDiv(nanos, NANOS_PRO_SEKUNDE),
+            (int) Math.floorMod(nanos, NANOS_PRO_SEKUNDE));
+    }
+
+    /**
+     * Zerlegt Sekunden und Nanosekunden in Tage, Stunden, Minuten, Sekunden, Nanosekunden. Eine einzige
+     * Division/Modulo-Kette statt der früheren Duration.minus(...)-Aufrufe; das Ergebnis ist identisch zu
+     * Duration.toDays(), toHours(), toMinutes() usw. (also auch bei negativen Durations "Richtung 0" abgeschnitten).
      * <br/>
      * <br/> <b>Beispiel:</b> Man definiert zwei aufeinanderfolgende Tage mittels
      * <br/>  LocalDateTime heute = LocalDateTime.now();  LocalDateTime morgen = heute.plusDays(1);
@@ -67,55 +270,46 @@ public class ComfortableDuration {
      * <br/>
      * <br/> Oder ein anderes <b>Beispiel</b>: 
      * <br/>"unleserliches" ISO8601: PT1990H40M32.025S <br/>-> Tage : 82, Stunden : 22, Minuten : 40, Sekunden : 32, Nanosekunden : 25000000
-     * @param t - Duration
-     * @return eine LinkedHashMap (damit die Reiheinfolge Tage, Stunden, Minuten, Sekunden, Nanosekunden beibehalten bleibt)
+     * @param gesamtSekunden - Sekunden wie in Duration.getSeconds()
+     * @param nanos - Nanosekunden im Bereich 0 bis 999 999 999
      */
-    private static Map<String, Long> extractTageStundenMinutenSekundenNanos(Duration t) {
-        Map<String, Long> result = new LinkedHashMap<String, Long>();
-        // die Duration in GANZEN Tagen ohne Komma
-        long tage = t.toDays();
-        result.put("Tage", Long.valueOf(tage));
-        // Zieht man von der Duration die Tage ab, bleiben die Stunden, wenn man sie als toHours abfragt, als ganze Zahl ohne Komma
-        long stunden = t.minus(tage, ChronoUnit.DAYS).toHours();
-        result.put("Stunden", Long.valueOf(stunden));
-        // Zieht man von der Duration die Tage ab, bleiben die Minuten per toMinutes, von denen man dann die Stunden (*60) abzieht um die restl. Minuten zu erhalten        
-        long minuten = t.minus(tage, ChronoUnit.DAYS).toMinutes() - (stunden*60); 
-        result.put("Minuten", Long.valueOf(minuten));
-        // Gleicher Vorgang für die Sekunden 
-        long sekunden = t.minus(tage, ChronoUnit.DAYS).getSeconds() - (stunden*60*60) - (minuten*60);
-        result.put("Sekunden", Long.valueOf(sekunden));
-        // die Nanosekunden lassen sich direkt per getter raus lesen
-        long nanosekunden = t.getNano(); 
-        result.put("Nanosekunden", Long.valueOf(nanosekunden));
-        return result;
+    private ComfortableDuration(long gesamtSekunden, int nanos) {
+        super();
+        this.gesamtSekunden = gesamtSekunden;
+        this.nanos = nanos;
+        // die Duration in GANZEN Tagen ohne Komma, der Rest sind die Sekunden innerhalb des Tages
+        this.tage = gesamtSekunden / SEKUNDEN_PRO_TAG;
+        long rest = gesamtSekunden % SEKUNDEN_PRO_TAG;
+        this.stunden = rest / SEKUNDEN_PRO_STUNDE;
+        rest = rest % SEKUNDEN_PRO_STUNDE;
+        this.minuten = rest / SEKUNDEN_PRO_MINUTE;
+        this.sekunden = rest % SEKUNDEN_PRO_MINUTE;
     }
 
     /**
      * Testet, ob Zeitpunkt A vor dem Zeitpunkt B war. Wenn A und B den gleichen Zeitpunkt darstellen, ist A
-     * <b>nicht</b> vor B. Wenn die Parameter nicht LocalDate oder LocalDateTime sind (oder wechselseitig
-     * unterschiedlich) dann wird die Routine abstürzen. Das ist gewollt, denn dann hat man beim Aufruf ärgere Probleme
-     * ignoriert und dann soll der Vergleich scheitern.
+     * <b>nicht</b> vor B. Neben LocalDate und LocalDateTime gehen auch Instant, OffsetDateTime und ZonedDateTime
+     * (siehe {@link AllenRelation#vergleiche(Temporal, Temporal)}). Wenn die Parameter andere Typen sind (oder
+     * wechselseitig unterschiedlich) dann wird die Routine abstürzen. Das ist gewollt, denn dann hat man beim Aufruf
+     * ärgere Probleme ignoriert und dann soll der Vergleich scheitern.
      * 
-     * @param a ein LocalDate oder ein LocalDateTime
-     * @param b ein LocalDate oder ein LocalDateTime
+     * @param a ein LocalDate, LocalDateTime, Instant, OffsetDateTime oder ZonedDateTime
+     * @param b vom selben Typ wie a
      * @return wahr, wenn der Zeitpunkt A vor dem Zeitpunkt B war
      */
     public static boolean istAvorB(Temporal a, Temporal b) {
-        if (a instanceof LocalDate) {
-            return (((LocalDate) a).isBefore((LocalDate) b));
-        } else {
-            return (((LocalDateTime) a).isBefore((LocalDateTime) b));
-        }
+        return AllenRelation.vergleiche(a, b) < 0;
     }
 
     /**
      * Testet, ob Zeitpunkt A nach dem Zeitpunkt B war. Wenn A und B den gleichen Zeitpunkt darstellen, ist A
-     * <b>nicht</b> nach B. Wenn die Parameter nicht LocalDate oder LocalDateTime sind (oder wechselseitig
-     * unterschiedlich) dann wird die Routine abstürzen. Das ist gewollt, denn dann hat man beim Aufruf ärgere Probleme
-     * ignoriert und dann soll der Vergleich scheitern.
+     * <b>nicht</b> nach B. Neben LocalDate und LocalDateTime gehen auch Instant, OffsetDateTime und ZonedDateTime
+     * (siehe {@link AllenRelation#vergleiche(Temporal, Temporal)}). Wenn die Parameter andere Typen sind (oder
+     * wechselseitig unterschiedlich) dann wird die Routine abstürzen. Das ist gewollt, denn dann hat man beim Aufruf
+     * ärgere Probleme ignoriert und dann soll der Vergleich scheitern.
      * 
-     * @param a ein LocalDate oder ein LocalDateTime
-     * @param b ein LocalDate oder ein LocalDateTime
+     * @param a ein LocalDate, LocalDateTime, Instant, OffsetDateTime oder ZonedDateTime
+     * @param b vom selben Typ wie a
      * @return wahr, wenn der Zeitpunkt A nach dem Zeitpunkt B war
      */
     public static boolean istAnachB(Temporal a, Temporal b) {
@@ -123,16 +317,17 @@ public class ComfortableDuration {
     }
 
     /**
-     * Testet, ob Zeitpunkt A gleich dem Zeitpunkt B ist. Wenn die Parameter nicht LocalDate oder LocalDateTime sind
-     * (oder wechselseitig unterschiedlich) dann wird die Routine abstürzen. Das ist gewollt, denn dann hat man beim
-     * Aufruf ärgere Probleme ignoriert und dann soll der Vergleich scheitern.
+     * Testet, ob Zeitpunkt A gleich dem Zeitpunkt B ist. Neben LocalDate und LocalDateTime gehen auch Instant,
+     * OffsetDateTime und ZonedDateTime (siehe {@link AllenRelation#vergleiche(Temporal, Temporal)}). Wenn die
+     * Parameter andere Typen sind (oder wechselseitig unterschiedlich) dann wird die Routine abstürzen. Das ist
+     * gewollt, denn dann hat man beim Aufruf ärgere Probleme ignoriert und dann soll der Vergleich scheitern.
      * 
-     * @param a ein LocalDate oder ein LocalDateTime
-     * @param b ein LocalDate oder ein LocalDateTime
+     * @param a ein LocalDate, LocalDateTime, Instant, OffsetDateTime oder ZonedDateTime
+     * @param b vom selben Typ wie a
      * @return wahr, wenn der Zeitpunkt A weder vor noch nach dem Zeitpunkt B war, also gleich sein muss
      */
     public static boolean istAgleichB(Temporal a, Temporal b) {
-        return (!(istAvorB(a, b) || istAnachB(a, b))); // wenn weder noch, dann gleich
+        return AllenRelation.vergleiche(a, b) == 0; // weder vor noch nach, also gleich
     }
 
     /**
@@ -143,7 +338,9 @@ public class ComfortableDuration {
      * Der Beginn von A hinter dem Beginn von B ist und das Ende von A vor dem Ende von B ist [...{...}...] <br/>
      * Ansonsten retorunliert es false. <br/>
      * Der Typ aller Intervallgrenzen muss gleich sein, es kann LocalDate oder LocalDateTime sein, aber alle vier
-     * Parameter müssen typgleich sein.
+     * Parameter müssen typgleich sein. (Instant, OffsetDateTime und ZonedDateTime gehen auch.) <br/>
+     * Die vollständige Relation der beiden Intervalle liefert {@link AllenRelation#bestimme(Temporal, Temporal,
+     * Temporal, Temporal)}, mit höchstens drei Vergleichen.
      * 
      * @param beginnA Beginn Intervall A - nimmt LocalDate oder LocalDateTime an
      * @param endeA Ende Intervall A - nimmt LocalDate oder LocalDateTime an, muss aber gleich dem Typ von beginnA sein
@@ -154,28 +351,15 @@ public class ComfortableDuration {
      */
     public static boolean istIntervallAinIntervallB(Temporal beginnA, Temporal endeA, Temporal beginnB,
         Temporal endeB) {
-        // [{...}] äquivalent geschrieben {[...]}
-        if (istAgleichB(beginnA, beginnB) && istAgleichB(endeA, endeB)) {
-            return true; // beide Intervalle sind gleich
-        }
-
-        // [{...}...] äquivalent {[...}...]
-        if (istAgleichB(beginnA, beginnB) && istAvorB(endeA, endeB)) {
-            return true;
-        }
-
-        // [...{...}] äquivalent [...{...]}
-        if (istAgleichB(endeA, endeB) && istAnachB(beginnA, beginnB)) {
-            return true;
-        }
-
-        // [...{...}...] oder wenn das hier nicht wahr ist, ist es eben false, weil A nicht in B liegt
-        return (istAnachB(beginnA, beginnB) && istAvorB(endeA, endeB));
+        // [{...}], [{...}...], [...{...}] und [...{...}...] - siehe AllenRelation.istInnerhalb()
+        return AllenRelation.bestimme(beginnA, endeA, beginnB, endeB).istInnerhalb();
     }
 
     /**
      * Wandelt ein Date um in ein LocalDateTime. z.B. ein Heutiges Datum RAW: Fri Jan 22 09:42:08 CET 2021 in
-     * LocalDateTime RAW: 2021-01-22T09:42:08.295
+     * LocalDateTime RAW: 2021-01-22T09:42:08.295 <br/>
+     * Rechnet direkt über {@link DatumKonverter} (threadsicher, ohne SimpleDateFormat), das Ergebnis ist dasselbe wie
+     * beim Umweg über den String "yyyy-MM-dd HH:mm:ss.SSS".
      * 
      * @param datum - Date Objekt das umgewandelt werden soll
      * @param sprache - z.B. Locale aktuelleSprache = Locale.GERMAN;
@@ -183,6 +367,18 @@ public class ComfortableDuration {
      * @return - ein Objekt vom Typ LocalDateTime
      */
     public static LocalDateTime dateToLocalDateTime(Date datum, Locale sprache, TimeZone ort) {
+        final long epochMilli = datum.getTime();
+        if (DatumKonverter.istDirektKonvertierbar(epochMilli, sprache)) {
+            return DatumKonverter.toLocalDateTime(epochMilli, ort);
+        }
+        return dateToLocalDateTimeUeberString(datum, sprache, ort);
+    }
+
+    /**
+     * Der ursprüngliche Weg über SimpleDateFormat und String, nur noch für Zeitpunkte/Sprachen, bei denen
+     * {@link DatumKonverter} nicht das gleiche Ergebnis liefern würde (z.B. julianischer Kalender vor 1583).
+     */
+    private static LocalDateTime dateToLocalDateTimeUeberString(Date datum, Locale sprache, TimeZone ort) {
         LocalDateTime ldt = null;
         final String fullReadableTSFormatString = "yyyy-MM-dd HH:mm:ss.SSS"; // Millisekunden, max. Auflösung von Date
 
@@ -217,10 +413,24 @@ public class ComfortableDuration {
         return datum.toInstant().atZone(ort.toZoneId()).toLocalDateTime();
     }
 
+    /**
+     * Wandelt viele Zeitpunkte (Epoch-Millisekunden, also z.B. Date.getTime() einer ganzen Ergebnismenge) auf einmal in
+     * LocalDateTimes um; gleiches Ergebnis wie {@link #convertToLocalDateTimeViaInstant(Date, TimeZone)} pro Element.
+     * Große Arrays werden parallel umgewandelt, siehe {@link DatumMassenKonverter}.
+     * 
+     * @param epochMillis - die Zeitpunkte
+     * @param ort - Zone, also z.B. TimeZone.getTimeZone("Europe/Vienna")
+     * @param ziel - hier landen die LocalDateTime Objekte, muss mindestens so lang sein wie epochMillis
+     */
+    public static void convertToLocalDateTimeViaInstant(long[] epochMillis, TimeZone ort, LocalDateTime[] ziel) {
+        DatumMassenKonverter.toLocalDateTime(epochMillis, ort, ziel);
+    }
+
     /**
      * Wandelt ein Date um in ein LocalDate. z.B. Date: Fri Jan 22 13:47:39 CET 2021 -> LocalDate: 2021-01-22 <br/>
      * Eine Liste der möglichen Werte für getTimeZone bekommt man mit String[] alleTimeZones =
-     * TimeZone.getAvailableIDs();
+     * TimeZone.getAvailableIDs(); <br/>
+     * Rechnet direkt über {@link DatumKonverter}, siehe {@link #dateToLocalDateTime(Date, Locale, TimeZone)}.
      * 
      * @param datum - Date Objekt das umgewandelt werden soll
      * @param sprache - z.B. Locale aktuelleSprache = Locale.GERMAN;
@@ -228,6 +438,17 @@ public class ComfortableDuration {
      * @return - ein Objekt vom Typ LocalDateTime
      */
     public static LocalDate dateToLocalDate(Date datum, Locale sprache, TimeZone ort) {
+        final long epochMilli = datum.getTime();
+        if (DatumKonverter.istDirektKonvertierbar(epochMilli, sprache)) {
+            return DatumKonverter.toLocalDate(epochMilli, ort);
+        }
+        return dateToLocalDateUeberString(datum, sprache, ort);
+    }
+
+    /**
+     * Der ursprüngliche Weg über SimpleDateFormat und String, siehe {@link #dateToLocalDateTimeUeberString}.
+     */
+    private static LocalDate dateToLocalDateUeberString(Date datum, Locale sprache, TimeZone ort) {
         LocalDate ldt = null;
         final String fullReadableTSFormatString = "yyyy-MM-dd"; // Nur Jahr-Monat-Tag
 
@@ -312,14 +533,7 @@ public class ComfortableDuration {
      * @param d - Duration
      */
     public ComfortableDuration(Duration d) {
-        super();
-        inhalt = extractTageStundenMinutenSekundenNanos(d);
-    }
-
-
-    @SuppressWarnings("unused")
-    private ComfortableDuration() {
-        super();
+        this(d.getSeconds(), d.getNano());
     }
 
 
@@ -327,36 +541,128 @@ public class ComfortableDuration {
      * @return Tage als Long
      */
     public Long getTage() {
-        return inhalt.get("Tage");
+        return Long.valueOf(tage);
     }
 
     /**
      * @return Stunden als Long
      */
     public Long getStunden() {
-        return inhalt.get("Stunden");
+        return Long.valueOf(stunden);
     }
 
     /**
      * @return Minuten als Long
      */
     public Long getMinuten() {
-        return inhalt.get("Minuten");
+        return Long.valueOf(minuten);
     }
 
     /**
      * @return Sekunden als Long
      */
     public Long getSekunden() {
-        return inhalt.get("Sekunden");
+        return Long.valueOf(sekunden);
     }
 
     /**
      * @return Nanosekunden als Long
      */
     public Long getNanos() {
-        return inhalt.get("Nanosekunden");
+        return Long.valueOf(nanos);
+    }
+
+    /**
+     * @return Tage als primitiver long (ohne Boxing)
+     */
+    public long tage() {
+        return tage;
+    }
+
+    /**
+     * @return Stunden als primitiver long (ohne Boxing)
+     */
+    public long stunden() {
+        return stunden;
+    }
+
+    /**
+     * @return Minuten als primitiver long (ohne Boxing)
+     */
+    public long minuten() {
+        return minuten;
+    }
+
+    /**
+     * @return Sekunden als primitiver long (ohne Boxing)
+     */
+    public long sekunden() {
+        return sekunden;
+    }
+
+    /**
+     * @return Nanosekunden als primitiver long (ohne Boxing)
+     */
+    public long nanos() {
+        return nanos;
+    }
+
+    /**
+     * @return die gesamte Dauer in Sekunden, wie Duration.getSeconds()
+     */
+    public long gesamtSekunden() {
+        return gesamtSekunden;
     }
-}
 
+    /**
+     * @return die Dauer wieder als Duration
+     */
+    public Duration toDuration() {
+        return Duration.ofSeconds(gesamtSekunden, nanos);
+    }
 
+    /**
+     * Zerlegt die Dauer ab einem Anker in Jahre, Monate, Wochen, Tage, Stunden, Minuten, Sekunden, Nanosekunden,
+     * genau über Monatslängen und Schaltjahre. Für viele Paare (Anker, Ende) auf einmal siehe
+     * {@link KalenderZerlegung#zerlegeAlle(long[], long[], int, long[])}.
+     * <br/> <b>Beispiel:</b> PT1990H40M32.025S ab 2021-01-01T00:00
+     * <br/>-> Jahre : 0, Monate : 2, Wochen : 3, Tage : 2, Stunden : 22, Minuten : 40, Sekunden : 32, Nanosekunden : 25000000
+     * 
+     * @param anker - Beginn der Dauer
+     * @return die Zerlegung von anker bis anker + Dauer
+     */
+    public KalenderZerlegung zerlegeAb(LocalDateTime anker) {
+        return KalenderZerlegung.ab(anker, gesamtSekunden, nanos);
+    }
+
+    /**
+     * Wie {@link #zerlegeAb(LocalDateTime)}, ab Beginn des Tages.
+     * 
+     * @param anker - Tag, an dessen Beginn die Dauer beginnt
+     * @return die Zerlegung
+     */
+    public KalenderZerlegung zerlegeAb(LocalDate anker) {
+        return KalenderZerlegung.ab(anker.atStartOfDay(), gesamtSekunden, nanos);
+    }
+
+    /**
+     * Gleich sind zwei ComfortableDurations mit derselben Dauer, egal ob geteilt (über of(...)) oder neu angelegt.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof ComfortableDuration)) {
+            return false;
+        }
+        ComfortableDuration andere = (ComfortableDuration) obj;
+        return gesamtSekunden == andere.gesamtSekunden && nanos == andere.nanos;
+    }
+
+    @Override
+    public int hashCode() {
+        // wie Duration.hashCode()
+        return ((int) (gesamtSekunden ^ (gesamtSekunden >>> 32))) + (51 * nanos);
+    }
+}
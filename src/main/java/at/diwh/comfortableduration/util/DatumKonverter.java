@@ -0,0 +1,181 @@
+package at.diwh.comfortableduration.util;
+
+import java.text.DecimalFormatSymbols;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneRules;
+import java.util.Calendar;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Wandelt Epoch-Millisekunden (also z.B. Date.getTime()) direkt in LocalDateTime bzw. LocalDate um, ohne Umweg über
+ * SimpleDateFormat und String. Die ZoneRules werden pro Zone einmal ermittelt und danach aus einem Cache genommen.
+ * <br/> Alle Methoden sind statisch und threadsicher, die Klasse hält keinen veränderlichen Zustand außer den Caches.
+ * <br/> Die Auflösung ist Millisekunden, genau wie bei Date.
+ * <br/> <b>Achtung:</b> TimeZone und ZoneRules sind nicht immer gleich. Vor ca. 1900 (Ortszeit/LMT) und bei manchen
+ * Zonen nach 2037 (z.B. Africa/Casablanca) weichen die Offsets ab. Deshalb rechnen die Methoden mit TimeZone mit
+ * TimeZone.getOffset(...), genau wie SimpleDateFormat (also wie {@link ComfortableDuration#dateToLocalDateTime}), die
+ * Methoden mit ZoneId mit den gecachten ZoneRules (also wie Date.toInstant().atZone(...)).
+ * 
+ * @author diwh
+ */
+public final class DatumKonverter {
+
+    /**
+     * 1583-01-01T00:00Z - ab hier rechnen SimpleDateFormat (GregorianCalendar) und java.time gleich. Davor gilt im
+     * GregorianCalendar der julianische Kalender, dort wird weiter der String-Umweg gegangen.
+     */
+    static final long MILLIS_AB = -12212553600000L;
+
+    /**
+     * 9999-12-31T00:00Z - bis hierher sind die Jahre vierstellig, einen Tag Abstand wegen der Zonen-Offsets.
+     */
+    static final long MILLIS_BIS = 253402214400000L;
+
+    private static final ConcurrentMap<String, ZoneRules> ZONEN_REGELN = new ConcurrentHashMap<String, ZoneRules>();
+
+    private static final ConcurrentMap<Locale, Boolean> GREGORIANISCH = new ConcurrentHashMap<Locale, Boolean>();
+
+    private DatumKonverter() {
+        super();
+    }
+
+    /**
+     * Liefert die (gecachten) ZoneRules einer TimeZone. Kurz-IDs wie "CET" oder "EST" werden wie bei
+     * TimeZone.toZoneId() aufgelöst.
+     * 
+     * @param ort - z.B. TimeZone.getTimeZone("Europe/Vienna")
+     * @return die ZoneRules der Zone
+     */
+    public static ZoneRules zonenRegeln(TimeZone ort) {
+        ZoneRules regeln = ZONEN_REGELN.get(ort.getID());
+        if (regeln == null) {
+            regeln = ort.toZoneId().getRules();
+            ZONEN_REGELN.putIfAbsent(ort.getID(), regeln);
+        }
+        return regeln;
+    }
+
+    /**
+     * Liefert die (gecachten) ZoneRules einer ZoneId.
+     * 
+     * @param zone - z.B. ZoneId.of("Europe/Vienna")
+     * @return die ZoneRules der Zone
+     */
+    public static ZoneRules zonenRegeln(ZoneId zone) {
+        if (zone instanceof ZoneOffset) {
+            return ((ZoneOffset) zone).getRules();
+        }
+        ZoneRules regeln = ZONEN_REGELN.get(zone.getId());
+        if (regeln == null) {
+            regeln = zone.getRules();
+            ZONEN_REGELN.putIfAbsent(zone.getId(), regeln);
+        }
+        return regeln;
+    }
+
+    /**
+     * Offset der Zone zum Zeitpunkt in Sekunden.
+     * 
+     * @param epochMilli - Millisekunden seit 1970-01-01T00:00Z
+     * @param regeln - ZoneRules, z.B. aus {@link #zonenRegeln(ZoneId)}
+     * @return Offset in Sekunden
+     */
+    public static int offsetSekunden(long epochMilli, ZoneRules regeln) {
+        if (regeln.isFixedOffset()) {
+            return regeln.getOffset(Instant.EPOCH).getTotalSeconds();
+        }
+        return regeln.getOffset(Instant.ofEpochMilli(epochMilli)).getTotalSeconds();
+    }
+
+    /**
+     * Wandelt Epoch-Millisekunden in ein LocalDateTime in der Zone um. Der Offset kommt von der TimeZone selbst, das
+     * Ergebnis ist daher dasselbe wie mit SimpleDateFormat und "yyyy-MM-dd HH:mm:ss.SSS".
+     * 
+     * @param epochMilli - z.B. Date.getTime()
+     * @param ort - z.B. TimeZone.getTimeZone("Europe/Vienna")
+     * @return das LocalDateTime (Auflösung Millisekunden)
+     */
+    public static LocalDateTime toLocalDateTime(long epochMilli, TimeZone ort) {
+        return lokal(Math.addExact(epochMilli, ort.getOffset(epochMilli)));
+    }
+
+    /**
+     * Wandelt Epoch-Millisekunden in ein LocalDateTime in der Zone um. Rechnet mit den gecachten ZoneRules, also wie
+     * Date.toInstant().atZone(zone).toLocalDateTime(), nur ohne die Zwischenobjekte.
+     * 
+     * @param epochMilli - z.B. Date.getTime()
+     * @param zone - z.B. ZoneId.of("Europe/Vienna")
+     * @return das LocalDateTime (Auflösung Millisekunden)
+     */
+    public static LocalDateTime toLocalDateTime(long epochMilli, ZoneId zone) {
+        return lokal(epochMilli + offsetSekunden(epochMilli, zonenRegeln(zone)) * 1000L);
+    }
+
+    /**
+     * Wandelt Epoch-Millisekunden in ein LocalDate in der Zone um. Der Offset kommt von der TimeZone selbst, das
+     * Ergebnis ist daher dasselbe wie mit SimpleDateFormat und "yyyy-MM-dd".
+     * 
+     * @param epochMilli - z.B. Date.getTime()
+     * @param ort - z.B. TimeZone.getTimeZone("Europe/Vienna")
+     * @return das LocalDate
+     */
+    public static LocalDate toLocalDate(long epochMilli, TimeZone ort) {
+        return lokalesDatum(Math.addExact(epochMilli, ort.getOffset(epochMilli)));
+    }
+
+    /**
+     * Wandelt Epoch-Millisekunden in ein LocalDate in der Zone um. Rechnet mit den gecachten ZoneRules, also wie
+     * Date.toInstant().atZone(zone).toLocalDate(), nur ohne die Zwischenobjekte.
+     * 
+     * @param epochMilli - z.B. Date.getTime()
+     * @param zone - z.B. ZoneId.of("Europe/Vienna")
+     * @return das LocalDate
+     */
+    public static LocalDate toLocalDate(long epochMilli, ZoneId zone) {
+        return lokalesDatum(epochMilli + offsetSekunden(epochMilli, zonenRegeln(zone)) * 1000L);
+    }
+
+    /**
+     * Prüft, ob die direkte Umrechnung dasselbe liefert wie SimpleDateFormat mit dieser Sprache. Das ist nicht der
+     * Fall vor 1583 (julianischer Kalender), ab dem Jahr 10000 (fünfstellige Jahre) und bei Sprachen mit eigenem
+     * Kalender (z.B. th_TH buddhistisch) oder eigenen Ziffern.
+     * 
+     * @param epochMilli - Zeitpunkt
+     * @param sprache - Locale, mit der bisher formatiert wurde
+     * @return wahr, wenn direkt umgerechnet werden darf
+     */
+    static boolean istDirektKonvertierbar(long epochMilli, Locale sprache) {
+        if (epochMilli < MILLIS_AB || epochMilli >= MILLIS_BIS) {
+            return false;
+        }
+        Boolean gregorianisch = GREGORIANISCH.get(sprache);
+        if (gregorianisch == null) {
+            gregorianisch = Boolean.valueOf("gregory".equals(Calendar.getInstance(sprache).getCalendarType())
+                    && DecimalFormatSymbols.getInstance(sprache).getZeroDigit() == '0');
+            GREGORIANISCH.putIfAbsent(sprache, gregorianisch);
+        }
+        return gregorianisch.booleanValue();
+    }
+
+    private static LocalDateTime lokal(long lokaleMillis) {
+        long lokaleSekunde = Math.floorDiv(lokaleMillis, 1000L);
+        int nanos = (int) Math.floorMod(lokaleMillis, 1000L) * 1000000;
+        try {
+            return LocalDateTime.ofEpochSecond(lokaleSekunde, nanos, ZoneOffset.UTC);
+        } catch (DateTimeException e) {
+            throw new DateTimeException("Zeitpunkt " + lokaleMillis + " liegt außerhalb von LocalDateTime", e);
+        }
+    }
+
+    private static LocalDate lokalesDatum(long lokaleMillis) {
+        return LocalDate.ofEpochDay(Math.floorDiv(lokaleMillis, ComfortableDuration.SEKUNDEN_PRO_TAG * 1000L));
+    }
+}
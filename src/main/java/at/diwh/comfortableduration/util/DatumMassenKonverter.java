@@ -0,0 +1,180 @@
+package at.diwh.comfortableduration.util;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.TimeZone;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Wandelt ganze Arrays von Epoch-Millisekunden (z.B. Date.getTime() oder Timestamp.getTime() einer Ergebnismenge) in
+ * lokale Zeitpunkte um. Die Offsets kommen aus den vorberechneten {@link ZonenUebergaenge}, pro Element bleibt also
+ * ein Vergleich mit dem letzten Abschnitt (bzw. eine binäre Suche) und etwas Arithmetik.
+ * <br/> Das Ergebnis ist dasselbe wie bei {@link ComfortableDuration#convertToLocalDateTimeViaInstant(java.util.Date,
+ * TimeZone)}, also Date.toInstant().atZone(ort.toZoneId()).toLocalDateTime().
+ * <br/> Ab {@link #PARALLEL_AB} Elementen wird im ForkJoinPool.commonPool() parallel gerechnet.
+ * <br/> Gepackt heißt hier: lokale Epoch-Millisekunden, also die Millisekunden seit 1970-01-01T00:00 <b>lokaler</b>
+ * Zeit. Die Werte sind so sortierbar wie die LocalDateTimes selbst, {@link #entpacken(long)} macht wieder ein
+ * LocalDateTime daraus.
+ * 
+ * @author diwh
+ */
+public final class DatumMassenKonverter {
+
+    /**
+     * Ab so vielen Elementen wird parallel gerechnet, darunter lohnt sich das Aufteilen nicht.
+     */
+    public static final int PARALLEL_AB = 1 << 14;
+
+    private static final int TEILSTUECK = 1 << 13;
+
+    private DatumMassenKonverter() {
+        super();
+    }
+
+    /**
+     * Wandelt Epoch-Millisekunden in gepackte lokale Millisekunden um.
+     * 
+     * @param epochMillis - Zeitpunkte, z.B. Date.getTime()
+     * @param ort - z.B. TimeZone.getTimeZone("Europe/Vienna")
+     * @param ziel - Ergebnis, mindestens so lang wie epochMillis (darf auch epochMillis selbst sein)
+     */
+    public static void toLokaleMillis(long[] epochMillis, TimeZone ort, long[] ziel) {
+        toLokaleMillis(epochMillis, ort.toZoneId(), ziel);
+    }
+
+    /**
+     * Wandelt Epoch-Millisekunden in gepackte lokale Millisekunden um.
+     * 
+     * @param epochMillis - Zeitpunkte, z.B. Date.getTime()
+     * @param zone - z.B. ZoneId.of("Europe/Vienna")
+     * @param ziel - Ergebnis, mindestens so lang wie epochMillis (darf auch epochMillis selbst sein)
+     */
+    public static void toLokaleMillis(long[] epochMillis, ZoneId zone, long[] ziel) {
+        pruefeLaenge(epochMillis.length, ziel.length);
+        ausfuehren(new Auftrag(epochMillis, tabelle(epochMillis, zone), ziel, null, 0, epochMillis.length));
+    }
+
+    /**
+     * Wandelt Epoch-Millisekunden in LocalDateTimes um.
+     * 
+     * @param epochMillis - Zeitpunkte, z.B. Date.getTime()
+     * @param ort - z.B. TimeZone.getTimeZone("Europe/Vienna")
+     * @param ziel - Ergebnis, mindestens so lang wie epochMillis
+     */
+    public static void toLocalDateTime(long[] epochMillis, TimeZone ort, LocalDateTime[] ziel) {
+        toLocalDateTime(epochMillis, ort.toZoneId(), ziel);
+    }
+
+    /**
+     * Wandelt Epoch-Millisekunden in LocalDateTimes um.
+     * 
+     * @param epochMillis - Zeitpunkte, z.B. Date.getTime()
+     * @param zone - z.B. ZoneId.of("Europe/Vienna")
+     * @param ziel - Ergebnis, mindestens so lang wie epochMillis
+     */
+    public static void toLocalDateTime(long[] epochMillis, ZoneId zone, LocalDateTime[] ziel) {
+        pruefeLaenge(epochMillis.length, ziel.length);
+        ausfuehren(new Auftrag(epochMillis, tabelle(epochMillis, zone), null, ziel, 0, epochMillis.length));
+    }
+
+    /**
+     * Macht aus gepackten lokalen Millisekunden wieder ein LocalDateTime.
+     * 
+     * @param lokaleMillis - Millisekunden seit 1970-01-01T00:00 lokaler Zeit
+     * @return das LocalDateTime
+     */
+    public static LocalDateTime entpacken(long lokaleMillis) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(lokaleMillis, 1000L),
+            (int) Math.floorMod(lokaleMillis, 1000L) * 1000000, ZoneOffset.UTC);
+    }
+
+    private static void pruefeLaenge(int laenge, int zielLaenge) {
+        if (zielLaenge < laenge) {
+            throw new IllegalArgumentException("Ziel-Array zu kurz: " + zielLaenge + " < " + laenge);
+        }
+    }
+
+    private static ZonenUebergaenge tabelle(long[] epochMillis, ZoneId zone) {
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (long wert : epochMillis) {
+            min = Math.min(min, wert);
+            max = Math.max(max, wert);
+        }
+        if (min > max) {
+            min = 0L;
+            max = 0L;
+        }
+        return ZonenUebergaenge.fuer(zone, min, max);
+    }
+
+    private static void ausfuehren(Auftrag auftrag) {
+        if (auftrag.bis - auftrag.von >= PARALLEL_AB) {
+            ForkJoinPool.commonPool().invoke(auftrag);
+        } else {
+            auftrag.rechne();
+        }
+    }
+
+    /**
+     * Teilt das Array rekursiv, bis die Stücke klein genug sind; jedes Stück merkt sich den zuletzt benutzten
+     * Abschnitt der Übergangstabelle.
+     */
+    private static final class Auftrag extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final long[] epochMillis;
+        private final transient ZonenUebergaenge tabelle;
+        private final long[] lokaleMillis;
+        private final LocalDateTime[] lokaleZeiten;
+        private final int von;
+        private final int bis;
+
+        Auftrag(long[] epochMillis, ZonenUebergaenge tabelle, long[] lokaleMillis, LocalDateTime[] lokaleZeiten,
+            int von, int bis) {
+            super();
+            this.epochMillis = epochMillis;
+            this.tabelle = tabelle;
+            this.lokaleMillis = lokaleMillis;
+            this.lokaleZeiten = lokaleZeiten;
+            this.von = von;
+            this.bis = bis;
+        }
+
+        @Override
+        protected void compute() {
+            if (bis - von <= TEILSTUECK) {
+                rechne();
+                return;
+            }
+            int mitte = (von + bis) >>> 1;
+            invokeAll(new Auftrag(epochMillis, tabelle, lokaleMillis, lokaleZeiten, von, mitte),
+                new Auftrag(epochMillis, tabelle, lokaleMillis, lokaleZeiten, mitte, bis));
+        }
+
+        void rechne() {
+            int abschnitt = -1;
+            for (int i = von; i < bis; i++) {
+                long wert = epochMillis[i];
+                int offset;
+                if (tabelle.deckt(wert)) {
+                    if (abschnitt < 0 || !tabelle.liegtIn(abschnitt, wert)) {
+                        abschnitt = tabelle.abschnitt(wert);
+                    }
+                    offset = tabelle.offsetImAbschnitt(abschnitt);
+                } else {
+                    offset = tabelle.offsetSekunden(wert);
+                }
+                long lokal = wert + offset * 1000L;
+                if (lokaleMillis != null) {
+                    lokaleMillis[i] = lokal;
+                } else {
+                    lokaleZeiten[i] = entpacken(lokal);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,328 @@
+package at.diwh.comfortableduration.util;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * Threadsicherer Summenzähler für Dauern nach dem Muster von LongAdder: statt einer gemeinsamen Summe (mit Lock oder
+ * CAS-Schleife auf einer Duration) gibt es mehrere Zellen, jeder Thread schreibt in "seine" Zelle. Erst wenn sich
+ * Threads in die Quere kommen, wird die Zahl der Zellen verdoppelt, bis zur nächsten Zweierpotenz über der Anzahl der
+ * Prozessoren.
+ * <br/> Jede Zelle führt Anzahl, Sekunden und Nanosekunden (mit Übertrag, wie Duration), Minimum und Maximum. Eine
+ * Zelle wird für ein Update kurz über ein CAS belegt; ist sie schon belegt, weicht der Thread auf eine andere Zelle
+ * aus, statt zu warten. Dadurch ist jeder Wert in {@link #stand()} entweder ganz oder gar nicht enthalten (Anzahl,
+ * Summe, Min und Max passen immer zusammen), und bei {@link #standUndZuruecksetzen()} wird jeder Wert genau einmal
+ * gemeldet. Werte, die während eines Stands dazukommen, können schon dabei sein oder erst im nächsten.
+ * 
+ * @author diwh
+ */
+public final class DauerAddierer {
+
+    private static final AtomicIntegerFieldUpdater<DauerAddierer> WACHSEN = AtomicIntegerFieldUpdater
+            .newUpdater(DauerAddierer.class, "waechst");
+
+    private volatile Zelle[] zellen = { new Zelle() };
+
+    @SuppressWarnings("unused")
+    private volatile int waechst;
+
+    public DauerAddierer() {
+        super();
+    }
+
+    /**
+     * Addiert eine Dauer in Nanosekunden (auch negativ).
+     * 
+     * @param nanos - die Dauer, z.B. System.nanoTime() - start
+     */
+    public void addiere(long nanos) {
+        addiere(Math.floorDiv(nanos, ComfortableDuration.NANOS_PRO_SEKUNDE),
+            (int) Math.floorMod(nanos, ComfortableDuration.NANOS_PRO_SEKUNDE));
+    }
+
+    /**
+     * Addiert eine Duration.
+     * 
+     * @param dauer - die Dauer
+     */
+    public void addiere(Duration dauer) {
+        addiere(dauer.getSeconds(), dauer.getNano());
+    }
+
+    /**
+     * Addiert eine Dauer in Sekunden und Nanosekunden, wie Duration.ofSeconds(sekunden, nanos).
+     * 
+     * @param sekunden - die Sekunden
+     * @param nanos - die Nanosekunden, 0 bis 999 999 999
+     */
+    public void addiere(long sekunden, int nanos) {
+        if (nanos < 0 || nanos >= ComfortableDuration.NANOS_PRO_SEKUNDE) {
+            throw new IllegalArgumentException("Nanosekunden außerhalb 0 bis 999999999: " + nanos);
+        }
+        Zelle[] z = zellen;
+        int versuche = 0;
+        Zelle zelle;
+        while ((zelle = Streifen.belege(z)) == null) {
+            // Kollision: anderswo versuchen, ab der zweiten auch mehr Zellen anlegen
+            if (++versuche > 1 && z.length < Streifen.MAX) {
+                wachsen(z);
+                versuche = 0;
+            } else if (versuche > z.length * 2) {
+                Thread.yield();
+                versuche = 0;
+            }
+            z = zellen;
+        }
+        try {
+            zelle.addiere(sekunden, nanos);
+        } finally {
+            zelle.freigeben();
+        }
+    }
+
+    /**
+     * @return der aktuelle Stand über alle Zellen
+     */
+    public Stand stand() {
+        return sammeln(false);
+    }
+
+    /**
+     * Liefert den aktuellen Stand und setzt dabei jede Zelle zurück; jeder Wert kommt genau in einem Stand vor. Dafür
+     * werden kurz alle Zellen belegt; läuft die Summe über (ArithmeticException), bleiben alle Zellen unverändert.
+     * 
+     * @return der Stand seit dem letzten Zurücksetzen
+     */
+    public Stand standUndZuruecksetzen() {
+        return sammeln(true);
+    }
+
+    /**
+     * @return die aktuelle Summe
+     */
+    public ComfortableDuration summe() {
+        return stand().getSumme();
+    }
+
+    /**
+     * Setzt alle Zellen zurück.
+     */
+    public void zuruecksetzen() {
+        sammeln(true);
+    }
+
+    /**
+     * @return Anzahl der Zellen (wächst bei Kollisionen bis zur Prozessoranzahl)
+     */
+    public int anzahlZellen() {
+        return zellen.length;
+    }
+
+    private Stand sammeln(boolean zuruecksetzen) {
+        Zelle[] z = zellen;
+        Sammlung sammlung = new Sammlung();
+        if (!zuruecksetzen) {
+            for (Zelle zelle : z) {
+                zelle.belegenWartend();
+                try {
+                    sammlung.dazu(zelle);
+                } finally {
+                    zelle.freigeben();
+                }
+            }
+            return sammlung.stand();
+        }
+        // alle Zellen halten und erst leeren, wenn die Summe gelungen ist: bei Überlauf bleibt jeder Wert erhalten
+        int belegt = 0;
+        try {
+            while (belegt < z.length) {
+                z[belegt].belegenWartend();
+                belegt++;
+            }
+            for (Zelle zelle : z) {
+                sammlung.dazu(zelle);
+            }
+            for (Zelle zelle : z) {
+                zelle.leeren();
+            }
+        } finally {
+            for (int i = 0; i < belegt; i++) {
+                z[i].freigeben();
+            }
+        }
+        return sammlung.stand();
+    }
+
+    private void wachsen(Zelle[] alt) {
+        if (zellen == alt && WACHSEN.compareAndSet(this, 0, 1)) {
+            try {
+                if (zellen == alt) {
+                    Zelle[] neu = new Zelle[alt.length << 1];
+                    System.arraycopy(alt, 0, neu, 0, alt.length);
+                    for (int i = alt.length; i < neu.length; i++) {
+                        neu[i] = new Zelle();
+                    }
+                    zellen = neu;
+                }
+            } finally {
+                waechst = 0;
+            }
+        }
+    }
+
+    private static boolean kleiner(long sekundenA, int nanosA, long sekundenB, int nanosB) {
+        return sekundenA < sekundenB || (sekundenA == sekundenB && nanosA < nanosB);
+    }
+
+    /**
+     * Summe über Zellen, die gerade belegt sind.
+     */
+    private static final class Sammlung {
+
+        private long anzahl;
+        private long sekunden;
+        private long nanos;
+        private long minSekunden = Long.MAX_VALUE;
+        private int minNanos;
+        private long maxSekunden = Long.MIN_VALUE;
+        private int maxNanos;
+
+        void dazu(Zelle zelle) {
+            if (zelle.anzahl == 0L) {
+                return;
+            }
+            anzahl += zelle.anzahl;
+            sekunden = Math.addExact(sekunden, zelle.sekunden);
+            nanos += zelle.nanos;
+            if (nanos >= ComfortableDuration.NANOS_PRO_SEKUNDE) {
+                nanos -= ComfortableDuration.NANOS_PRO_SEKUNDE;
+                sekunden = Math.addExact(sekunden, 1L);
+            }
+            if (kleiner(zelle.minSekunden, zelle.minNanos, minSekunden, minNanos)) {
+                minSekunden = zelle.minSekunden;
+                minNanos = zelle.minNanos;
+            }
+            if (kleiner(maxSekunden, maxNanos, zelle.maxSekunden, zelle.maxNanos)) {
+                maxSekunden = zelle.maxSekunden;
+                maxNanos = zelle.maxNanos;
+            }
+        }
+
+        Stand stand() {
+            if (anzahl == 0L) {
+                ComfortableDuration nichts = ComfortableDuration.of(0L);
+                return new Stand(0L, nichts, nichts, nichts, nichts);
+            }
+            return new Stand(anzahl, ComfortableDuration.ofSekunden(sekunden, (int) nanos),
+                    ComfortableDuration.ofSekunden(minSekunden, minNanos),
+                    ComfortableDuration.ofSekunden(maxSekunden, maxNanos),
+                    ComfortableDuration.durchschnitt(sekunden, nanos, anzahl));
+        }
+    }
+
+    /**
+     * Eine Zelle; die Felder werden nur gelesen und geschrieben, während die Zelle belegt ist.
+     */
+    private static final class Zelle extends Streifen.Belegbar {
+
+        private long anzahl;
+        private long sekunden;
+        private int nanos;
+        private long minSekunden = Long.MAX_VALUE;
+        private int minNanos;
+        private long maxSekunden = Long.MIN_VALUE;
+        private int maxNanos;
+
+        /**
+         * Bei Überlauf (ArithmeticException) bleibt die Zelle unverändert.
+         */
+        void addiere(long s, int n) {
+            int summe = nanos + n;
+            long neueSekunden;
+            if (summe >= ComfortableDuration.NANOS_PRO_SEKUNDE) {
+                summe -= (int) ComfortableDuration.NANOS_PRO_SEKUNDE;
+                neueSekunden = Math.addExact(sekunden, Math.addExact(s, 1L));
+            } else {
+                neueSekunden = Math.addExact(sekunden, s);
+            }
+            anzahl++;
+            sekunden = neueSekunden;
+            nanos = summe;
+            if (kleiner(s, n, minSekunden, minNanos)) {
+                minSekunden = s;
+                minNanos = n;
+            }
+            if (kleiner(maxSekunden, maxNanos, s, n)) {
+                maxSekunden = s;
+                maxNanos = n;
+            }
+        }
+
+        void leeren() {
+            anzahl = 0L;
+            sekunden = 0L;
+            nanos = 0;
+            minSekunden = Long.MAX_VALUE;
+            minNanos = 0;
+            maxSekunden = Long.MIN_VALUE;
+            maxNanos = 0;
+        }
+    }
+
+    /**
+     * Unveränderlicher Stand eines DauerAddierers
+     */
+    public static final class Stand {
+
+        private final long anzahl;
+        private final ComfortableDuration summe;
+        private final ComfortableDuration min;
+        private final ComfortableDuration max;
+        private final ComfortableDuration durchschnitt;
+
+        Stand(long anzahl, ComfortableDuration summe, ComfortableDuration min, ComfortableDuration max,
+                ComfortableDuration durchschnitt) {
+            super();
+            this.anzahl = anzahl;
+            this.summe = summe;
+            this.min = min;
+            this.max = max;
+            this.durchschnitt = durchschnitt;
+        }
+
+        /**
+         * @return Anzahl der addierten Dauern
+         */
+        public long getAnzahl() {
+            return anzahl;
+        }
+
+        /**
+         * @return Summe, 0 wenn leer
+         */
+        public ComfortableDuration getSumme() {
+            return summe;
+        }
+
+        /**
+         * @return kleinste Dauer, 0 wenn leer
+         */
+        public ComfortableDuration getMin() {
+            return min;
+        }
+
+        /**
+         * @return größte Dauer, 0 wenn leer
+         */
+        public ComfortableDuration getMax() {
+            return max;
+        }
+
+        /**
+         * @return Durchschnitt (auf Nanosekunden abgerundet), 0 wenn leer
+         */
+        public ComfortableDuration getDurchschnitt() {
+            return durchschnitt;
+        }
+    }
+}
@@ -0,0 +1,442 @@
+package at.diwh.comfortableduration.util;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binäres Format für ComfortableDuration, z.B. für Caches und zum Verschicken: statt der Textform (über 100 Zeichen)
+ * oder der Map aus getInhalt() meist 2 bis 6 Bytes.
+ * <br/> Gespeichert werden Sekunden und Nanosekunden (die fünf Teile ergeben sich daraus wie in ComfortableDuration):
+ * <li>die Sekunden als Zig-Zag-Varint (kleine Beträge, auch negative, brauchen wenige Bytes)</li>
+ * <li>die Nanosekunden als Varint (bruchteil &lt;&lt; 2 | stufe), stufe 3 = ganze Sekunde (bruchteil 0), 2 =
+ * Millisekunden, 1 = Mikrosekunden, 0 = Nanosekunden - 25 ms sind damit ein Byte</li>
+ * PT1990H40M32.025S braucht so 5 Bytes. Listen beginnen mit ihrer Anzahl als Varint.
+ * <br/> Geschrieben und gelesen wird in ByteBuffer, DataOutput/DataInput und byte[] ab einer Position. Beim Lesen in
+ * einen wiederverwendbaren {@link Wert} oder in primitive Arrays wird nichts angelegt. Ungültige Daten ergeben eine
+ * IllegalArgumentException, zu kurze die übliche Ausnahme der Quelle (BufferUnderflowException, EOFException,
+ * ArrayIndexOutOfBoundsException).
+ * 
+ * @author diwh
+ */
+public final class DauerCodec {
+
+    /** höchstens so viele Bytes braucht eine Dauer */
+    public static final int MAX_LAENGE = 15;
+
+    private static final int[] TEILER = { 1, 1000, 1000000 };
+
+    private DauerCodec() {
+        super();
+    }
+
+    /**
+     * Ziel zum Lesen ohne neue Objekte: wird bei jedem Lesen überschrieben, die Teile sind dieselben wie bei
+     * ComfortableDuration.
+     */
+    public static final class Wert {
+
+        private long gesamtSekunden;
+        private int nanos;
+
+        public Wert() {
+            super();
+        }
+
+        /** @return Sekunden gesamt, wie Duration.getSeconds() */
+        public long gesamtSekunden() {
+            return gesamtSekunden;
+        }
+
+        /** @return Nanosekunden, 0 bis 999 999 999 */
+        public int nanos() {
+            return nanos;
+        }
+
+        /** @return ganze Tage */
+        public long tage() {
+            return gesamtSekunden / ComfortableDuration.SEKUNDEN_PRO_TAG;
+        }
+
+        /** @return Stunden des angebrochenen Tages */
+        public long stunden() {
+            return gesamtSekunden % ComfortableDuration.SEKUNDEN_PRO_TAG / ComfortableDuration.SEKUNDEN_PRO_STUNDE;
+        }
+
+        /** @return Minuten der angebrochenen Stunde */
+        public long minuten() {
+            return gesamtSekunden % ComfortableDuration.SEKUNDEN_PRO_STUNDE / ComfortableDuration.SEKUNDEN_PRO_MINUTE;
+        }
+
+        /** @return Sekunden der angebrochenen Minute */
+        public long sekunden() {
+            return gesamtSekunden % ComfortableDuration.SEKUNDEN_PRO_MINUTE;
+        }
+
+        /** @return als (neue) ComfortableDuration */
+        public ComfortableDuration toComfortableDuration() {
+            return ComfortableDuration.ofSekunden(gesamtSekunden, nanos);
+        }
+
+        void setze(long sekunden, long nanosMitStufe) {
+            this.nanos = nanosAusStufe(nanosMitStufe);
+            this.gesamtSekunden = sekunden;
+        }
+    }
+
+    /**
+     * @param d - die Dauer
+     * @return Anzahl Bytes der Kodierung
+     */
+    public static int laenge(ComfortableDuration d) {
+        return laenge(d.gesamtSekunden(), (int) d.nanos());
+    }
+
+    /**
+     * @param sekunden - Sekunden gesamt
+     * @param nanos - 0 bis 999 999 999
+     * @return Anzahl Bytes der Kodierung
+     */
+    public static int laenge(long sekunden, int nanos) {
+        return varintLaenge(zigZag(sekunden)) + varintLaenge(nanosMitStufe(nanos));
+    }
+
+    // --- byte[] ---
+
+    /**
+     * @param d - die Dauer
+     * @param ziel - das Array, ab position müssen bis zu {@link #MAX_LAENGE} Bytes frei sein
+     * @param position - erste Position
+     * @return Position nach der Dauer
+     */
+    public static int schreibe(ComfortableDuration d, byte[] ziel, int position) {
+        return schreibe(d.gesamtSekunden(), (int) d.nanos(), ziel, position);
+    }
+
+    /**
+     * @param sekunden - Sekunden gesamt
+     * @param nanos - 0 bis 999 999 999
+     * @param ziel - das Array
+     * @param position - erste Position
+     * @return Position nach der Dauer
+     */
+    public static int schreibe(long sekunden, int nanos, byte[] ziel, int position) {
+        int p = schreibeVarint(zigZag(sekunden), ziel, position);
+        return schreibeVarint(nanosMitStufe(nanos), ziel, p);
+    }
+
+    /**
+     * Liest eine Dauer ohne neue Objekte.
+     * 
+     * @param quelle - das Array
+     * @param position - erste Position
+     * @param ziel - wird überschrieben
+     * @return Position nach der Dauer
+     */
+    public static int lese(byte[] quelle, int position, Wert ziel) {
+        int p = position;
+        long wert = 0L;
+        for (int verschiebung = 0;; verschiebung += 7) {
+            pruefeVarint(verschiebung, p);
+            byte b = quelle[p++];
+            wert |= (long) (b & 0x7F) << verschiebung;
+            if (b >= 0) {
+                break;
+            }
+        }
+        long sekunden = ausZigZag(wert);
+        wert = 0L;
+        for (int verschiebung = 0;; verschiebung += 7) {
+            pruefeVarint(verschiebung, p);
+            byte b = quelle[p++];
+            wert |= (long) (b & 0x7F) << verschiebung;
+            if (b >= 0) {
+                break;
+            }
+        }
+        ziel.setze(sekunden, wert);
+        return p;
+    }
+
+    // --- ByteBuffer ---
+
+    /**
+     * Schreibt ab position() und schiebt sie weiter.
+     * 
+     * @param d - die Dauer
+     * @param ziel - der Puffer
+     */
+    public static void schreibe(ComfortableDuration d, ByteBuffer ziel) {
+        schreibe(d.gesamtSekunden(), (int) d.nanos(), ziel);
+    }
+
+    /**
+     * @param sekunden - Sekunden gesamt
+     * @param nanos - 0 bis 999 999 999
+     * @param ziel - der Puffer
+     */
+    public static void schreibe(long sekunden, int nanos, ByteBuffer ziel) {
+        schreibeVarint(zigZag(sekunden), ziel);
+        schreibeVarint(nanosMitStufe(nanos), ziel);
+    }
+
+    /**
+     * Liest ab position() ohne neue Objekte.
+     * 
+     * @param quelle - der Puffer
+     * @param ziel - wird überschrieben
+     */
+    public static void lese(ByteBuffer quelle, Wert ziel) {
+        long sekunden = ausZigZag(leseVarint(quelle));
+        ziel.setze(sekunden, leseVarint(quelle));
+    }
+
+    /**
+     * @param quelle - der Puffer
+     * @return die Dauer ab position()
+     */
+    public static ComfortableDuration lese(ByteBuffer quelle) {
+        Wert w = new Wert();
+        lese(quelle, w);
+        return w.toComfortableDuration();
+    }
+
+    /**
+     * Schreibt eine Liste: Anzahl, dann die Dauern.
+     * 
+     * @param dauern - die Dauern
+     * @param ziel - der Puffer
+     */
+    public static void schreibeAlle(List<ComfortableDuration> dauern, ByteBuffer ziel) {
+        schreibeVarint(dauern.size(), ziel);
+        for (ComfortableDuration d : dauern) {
+            schreibe(d, ziel);
+        }
+    }
+
+    /**
+     * Schreibt eine Liste aus primitiven Arrays: Anzahl, dann die Dauern.
+     * 
+     * @param sekunden - Sekunden je Dauer
+     * @param nanos - Nanosekunden je Dauer
+     * @param anzahl - wie viele
+     * @param ziel - der Puffer
+     */
+    public static void schreibeAlle(long[] sekunden, int[] nanos, int anzahl, ByteBuffer ziel) {
+        schreibeVarint(anzahl, ziel);
+        for (int i = 0; i < anzahl; i++) {
+            schreibe(sekunden[i], nanos[i], ziel);
+        }
+    }
+
+    /**
+     * @param quelle - der Puffer
+     * @return die Liste ab position()
+     */
+    public static List<ComfortableDuration> leseAlle(ByteBuffer quelle) {
+        int anzahl = leseAnzahl(quelle);
+        // die Anzahl ist ungeprüft: jede Dauer braucht mindestens 2 Bytes, mehr passen nicht in den Rest
+        List<ComfortableDuration> dauern = new ArrayList<ComfortableDuration>(Math.min(anzahl, quelle.remaining() / 2));
+        Wert w = new Wert();
+        for (int i = 0; i < anzahl; i++) {
+            lese(quelle, w);
+            dauern.add(w.toComfortableDuration());
+        }
+        return dauern;
+    }
+
+    /**
+     * Liest eine Liste in wiederverwendbare Arrays, ohne neue Objekte.
+     * 
+     * @param quelle - der Puffer
+     * @param sekunden - bekommt die Sekunden, muss groß genug sein
+     * @param nanos - bekommt die Nanosekunden, muss groß genug sein
+     * @return Anzahl der gelesenen Dauern
+     */
+    public static int leseAlle(ByteBuffer quelle, long[] sekunden, int[] nanos) {
+        int anzahl = leseAnzahl(quelle);
+        if (anzahl > sekunden.length || anzahl > nanos.length) {
+            throw new IllegalArgumentException("Liste mit " + anzahl + " Dauern passt nicht in die Arrays ("
+                    + sekunden.length + " / " + nanos.length + ")");
+        }
+        for (int i = 0; i < anzahl; i++) {
+            sekunden[i] = ausZigZag(leseVarint(quelle));
+            nanos[i] = nanosAusStufe(leseVarint(quelle));
+        }
+        return anzahl;
+    }
+
+    // --- DataOutput / DataInput ---
+
+    /**
+     * @param d - die Dauer
+     * @param ziel - z.B. ein DataOutputStream
+     * @throws IOException vom Ziel
+     */
+    public static void schreibe(ComfortableDuration d, DataOutput ziel) throws IOException {
+        schreibeVarint(zigZag(d.gesamtSekunden()), ziel);
+        schreibeVarint(nanosMitStufe((int) d.nanos()), ziel);
+    }
+
+    /**
+     * Liest ohne neue Objekte.
+     * 
+     * @param quelle - z.B. ein DataInputStream
+     * @param ziel - wird überschrieben
+     * @throws IOException von der Quelle, EOFException wenn sie zu früh endet
+     */
+    public static void lese(DataInput quelle, Wert ziel) throws IOException {
+        long sekunden = ausZigZag(leseVarint(quelle));
+        ziel.setze(sekunden, leseVarint(quelle));
+    }
+
+    /**
+     * @param quelle - z.B. ein DataInputStream
+     * @return die Dauer
+     * @throws IOException von der Quelle
+     */
+    public static ComfortableDuration lese(DataInput quelle) throws IOException {
+        Wert w = new Wert();
+        lese(quelle, w);
+        return w.toComfortableDuration();
+    }
+
+    /**
+     * @param dauern - die Dauern
+     * @param ziel - z.B. ein DataOutputStream
+     * @throws IOException vom Ziel
+     */
+    public static void schreibeAlle(List<ComfortableDuration> dauern, DataOutput ziel) throws IOException {
+        schreibeVarint(dauern.size(), ziel);
+        for (ComfortableDuration d : dauern) {
+            schreibe(d, ziel);
+        }
+    }
+
+    /**
+     * @param quelle - z.B. ein DataInputStream
+     * @return die Liste
+     * @throws IOException von der Quelle
+     */
+    public static List<ComfortableDuration> leseAlle(DataInput quelle) throws IOException {
+        long anzahl = leseVarint(quelle);
+        if (anzahl < 0L || anzahl > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Ungültige Anzahl " + anzahl);
+        }
+        List<ComfortableDuration> dauern = new ArrayList<ComfortableDuration>((int) Math.min(anzahl, 1024L));
+        Wert w = new Wert();
+        for (long i = 0L; i < anzahl; i++) {
+            lese(quelle, w);
+            dauern.add(w.toComfortableDuration());
+        }
+        return dauern;
+    }
+
+    // --- Varint ---
+
+    private static long zigZag(long wert) {
+        return (wert << 1) ^ (wert >> 63);
+    }
+
+    private static long ausZigZag(long wert) {
+        return (wert >>> 1) ^ -(wert & 1L);
+    }
+
+    private static long nanosMitStufe(int nanos) {
+        if (nanos < 0 || nanos >= ComfortableDuration.NANOS_PRO_SEKUNDE) {
+            throw new IllegalArgumentException("Nanosekunden außerhalb 0 bis 999999999: " + nanos);
+        }
+        if (nanos == 0) {
+            return 3L;
+        } else if (nanos % 1000000 == 0) {
+            return ((long) (nanos / 1000000) << 2) | 2L;
+        } else if (nanos % 1000 == 0) {
+            return ((long) (nanos / 1000) << 2) | 1L;
+        }
+        return (long) nanos << 2;
+    }
+
+    private static int nanosAusStufe(long nanosMitStufe) {
+        int stufe = (int) (nanosMitStufe & 3L);
+        long bruchteil = nanosMitStufe >>> 2;
+        if (stufe == 3 ? bruchteil != 0L : bruchteil >= ComfortableDuration.NANOS_PRO_SEKUNDE / TEILER[stufe]) {
+            throw new IllegalArgumentException("Ungültiger Sekundenbruchteil " + bruchteil + " (Stufe " + stufe + ")");
+        }
+        return stufe == 3 ? 0 : (int) bruchteil * TEILER[stufe];
+    }
+
+    private static int varintLaenge(long wert) {
+        return wert == 0L ? 1 : (63 - Long.numberOfLeadingZeros(wert)) / 7 + 1;
+    }
+
+    private static int schreibeVarint(long wert, byte[] ziel, int position) {
+        int p = position;
+        long w = wert;
+        while ((w & ~0x7FL) != 0L) {
+            ziel[p++] = (byte) ((w & 0x7F) | 0x80);
+            w >>>= 7;
+        }
+        ziel[p++] = (byte) w;
+        return p;
+    }
+
+    private static void schreibeVarint(long wert, ByteBuffer ziel) {
+        long w = wert;
+        while ((w & ~0x7FL) != 0L) {
+            ziel.put((byte) ((w & 0x7F) | 0x80));
+            w >>>= 7;
+        }
+        ziel.put((byte) w);
+    }
+
+    private static void schreibeVarint(long wert, DataOutput ziel) throws IOException {
+        long w = wert;
+        while ((w & ~0x7FL) != 0L) {
+            ziel.writeByte((int) ((w & 0x7F) | 0x80));
+            w >>>= 7;
+        }
+        ziel.writeByte((int) w);
+    }
+
+    private static long leseVarint(ByteBuffer quelle) {
+        long wert = 0L;
+        for (int verschiebung = 0;; verschiebung += 7) {
+            pruefeVarint(verschiebung, quelle.position());
+            byte b = quelle.get();
+            wert |= (long) (b & 0x7F) << verschiebung;
+            if (b >= 0) {
+                return wert;
+            }
+        }
+    }
+
+    private static long leseVarint(DataInput quelle) throws IOException {
+        long wert = 0L;
+        for (int verschiebung = 0;; verschiebung += 7) {
+            pruefeVarint(verschiebung, -1);
+            byte b = quelle.readByte();
+            wert |= (long) (b & 0x7F) << verschiebung;
+            if (b >= 0) {
+                return wert;
+            }
+        }
+    }
+
+    private static int leseAnzahl(ByteBuffer quelle) {
+        long anzahl = leseVarint(quelle);
+        if (anzahl < 0L || anzahl > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Ungültige Anzahl " + anzahl);
+        }
+        return (int) anzahl;
+    }
+
+    private static void pruefeVarint(int verschiebung, int position) {
+        if (verschiebung > 63) {
+            throw new IllegalArgumentException("Varint länger als 10 Bytes"
+                    + (position >= 0 ? " (Position " + position + ")" : ""));
+        }
+    }
+}
@@ -0,0 +1,318 @@
+package at.diwh.comfortableduration.util;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Gleitende Statistik über einen endlosen Strom von Dauern, z.B. Anzahl, Summe und Maximum der letzten 1, 5 und 15
+ * Minuten für ein Dashboard, ohne die einzelnen Ereignisse aufzuheben.
+ * <br/> Die Zeit ist in Eimer der Länge <i>aufloesung</i> geteilt (nach System.nanoTime()); ein Ring aus Eimern deckt
+ * das längste Fenster ab, jeder Eimer hält Anzahl, Summe, Min und Max als primitive Werte. Erfassen kostet O(1): der
+ * Eimer des Zeitpunkts wird erhöht, gehört er noch zu einer älteren Runde des Rings, wird er dabei geleert (so
+ * verschwinden alte Werte nebenbei, ohne eigenen Aufräum-Durchlauf). Eine Abfrage läuft über die Eimer des Fensters,
+ * nicht über die Ereignisse.
+ * <br/> Ein Fenster umfasst die letzten ceil(fenster / aufloesung) Eimer einschließlich des laufenden, also je nach
+ * Zeitpunkt innerhalb des laufenden Eimers zwischen fenster - aufloesung und fenster.
+ * <br/> Zwei Arten:
+ * <li>{@link #fuerEinenSchreiber}: genau ein Thread erfasst, ganz ohne Lock und CAS</li>
+ * <li>{@link #fuerMehrereSchreiber}: ein Ring pro Streifen (nächste Zweierpotenz über der Anzahl der Prozessoren), ein
+ * Thread belegt seinen Streifen kurz über ein CAS und weicht bei Kollision auf einen anderen aus, wie bei
+ * {@link DauerAddierer}</li>
+ * Lesen blockiert in beiden Fällen keinen Schreiber: jeder Eimer hat einen Stempel, der während eines Updates ungerade
+ * ist; ein Leser liest den Eimer erneut, wenn sich der Stempel dabei geändert hat. Jedes Ereignis ist daher ganz oder
+ * gar nicht in einer Abfrage enthalten.
+ * 
+ * @author diwh
+ */
+public final class DauerFenster {
+
+    private static final int STEMPEL = 0;
+    private static final int PERIODE = 1;
+    private static final int ANZAHL = 2;
+    private static final int SUMME = 3;
+    private static final int MIN = 4;
+    private static final int MAX = 5;
+    private static final int FELDER = 6;
+
+    private static final long LEER = Long.MIN_VALUE;
+
+    private final long aufloesungNanos;
+    private final int eimerProRing;
+    private final Ring[] ringe;
+    private final boolean mehrereSchreiber;
+    private final AtomicLong verworfen = new AtomicLong();
+
+    private DauerFenster(Duration aufloesung, Duration laengstesFenster, int streifen) {
+        super();
+        this.aufloesungNanos = aufloesung.toNanos();
+        if (aufloesungNanos <= 0L) {
+            throw new IllegalArgumentException("Auflösung muss positiv sein: " + aufloesung);
+        }
+        long eimer = eimerFuer(laengstesFenster.toNanos());
+        if (eimer > (1 << 20)) {
+            throw new IllegalArgumentException("Zu viele Eimer: " + laengstesFenster + " / " + aufloesung);
+        }
+        // ein Eimer Reserve für Schreiber, deren Zeitpunkt schon im nächsten Eimer liegt
+        this.eimerProRing = (int) eimer + 1;
+        this.ringe = new Ring[streifen];
+        for (int i = 0; i < streifen; i++) {
+            ringe[i] = new Ring(eimerProRing);
+        }
+        this.mehrereSchreiber = streifen > 1;
+    }
+
+    /**
+     * Für genau einen schreibenden Thread (beliebig viele lesende).
+     * 
+     * @param aufloesung - Länge eines Eimers, z.B. 1 Sekunde
+     * @param laengstesFenster - das längste Fenster, das abgefragt wird, z.B. 15 Minuten
+     * @return das Fenster
+     */
+    public static DauerFenster fuerEinenSchreiber(Duration aufloesung, Duration laengstesFenster) {
+        return new DauerFenster(aufloesung, laengstesFenster, 1);
+    }
+
+    /**
+     * Für beliebig viele schreibende Threads.
+     * 
+     * @param aufloesung - Länge eines Eimers, z.B. 1 Sekunde
+     * @param laengstesFenster - das längste Fenster, das abgefragt wird, z.B. 15 Minuten
+     * @return das Fenster
+     */
+    public static DauerFenster fuerMehrereSchreiber(Duration aufloesung, Duration laengstesFenster) {
+        return new DauerFenster(aufloesung, laengstesFenster, Math.max(2, Streifen.MAX));
+    }
+
+    /**
+     * Erfasst eine Dauer zum aktuellen Zeitpunkt.
+     * 
+     * @param dauerNanos - die Dauer, nicht negativ
+     */
+    public void erfasse(long dauerNanos) {
+        erfasse(dauerNanos, System.nanoTime());
+    }
+
+    /**
+     * Erfasst eine Dauer.
+     * 
+     * @param dauer - die Dauer, nicht negativ
+     */
+    public void erfasse(Duration dauer) {
+        erfasse(dauer.toNanos(), System.nanoTime());
+    }
+
+    /**
+     * Erfasst eine Dauer zu einem Zeitpunkt, z.B. dem Ende einer mit {@link Stoppuhr} gemessenen Operation. Liegt der
+     * Zeitpunkt so weit zurück, dass sein Eimer schon neu belegt ist, wird die Dauer verworfen (siehe
+     * {@link #verworfen()}).
+     * 
+     * @param dauerNanos - die Dauer, nicht negativ
+     * @param zeitpunktNanos - Zeitpunkt nach System.nanoTime()
+     */
+    public void erfasse(long dauerNanos, long zeitpunktNanos) {
+        if (dauerNanos < 0L) {
+            throw new IllegalArgumentException("Negative Dauer: " + dauerNanos);
+        }
+        long periode = Math.floorDiv(zeitpunktNanos, aufloesungNanos);
+        boolean erfasst;
+        if (!mehrereSchreiber) {
+            erfasst = ringe[0].erfasse(periode, dauerNanos);
+        } else {
+            int versuche = 0;
+            Ring ring;
+            while ((ring = Streifen.belege(ringe)) == null) {
+                // Kollision: anderswo versuchen
+                if (++versuche > ringe.length * 2) {
+                    Thread.yield();
+                    versuche = 0;
+                }
+            }
+            try {
+                erfasst = ring.erfasse(periode, dauerNanos);
+            } finally {
+                ring.freigeben();
+            }
+        }
+        if (!erfasst) {
+            verworfen.incrementAndGet();
+        }
+    }
+
+    /**
+     * @param fenster - Länge des Fensters, höchstens das längste Fenster
+     * @return Anzahl, Summe, Min, Max und Durchschnitt der Dauern im Fenster bis jetzt
+     */
+    public DauerAddierer.Stand stand(Duration fenster) {
+        return staende(System.nanoTime(), fenster)[0];
+    }
+
+    /**
+     * Mehrere Fenster in einem Durchlauf über die Eimer, z.B. staende(1 min, 5 min, 15 min).
+     * 
+     * @param fenster - die Fenster, jedes höchstens das längste Fenster
+     * @return ein Stand pro Fenster, in derselben Reihenfolge
+     */
+    public DauerAddierer.Stand[] staende(Duration... fenster) {
+        return staende(System.nanoTime(), fenster);
+    }
+
+    /**
+     * Wie {@link #staende(Duration...)}, bis zu einem Zeitpunkt.
+     * 
+     * @param jetztNanos - Ende der Fenster nach System.nanoTime()
+     * @param fenster - die Fenster
+     * @return ein Stand pro Fenster
+     */
+    public DauerAddierer.Stand[] staende(long jetztNanos, Duration... fenster) {
+        int n = fenster.length;
+        long[] eimer = new long[n];
+        long[] anzahl = new long[n];
+        long[] summe = new long[n];
+        long[] min = new long[n];
+        long[] max = new long[n];
+        long weitester = 0L;
+        for (int f = 0; f < n; f++) {
+            eimer[f] = eimerFuer(fenster[f].toNanos());
+            if (eimer[f] >= eimerProRing) {
+                throw new IllegalArgumentException("Fenster " + fenster[f] + " ist länger als das längste Fenster "
+                        + Duration.ofNanos((eimerProRing - 1) * aufloesungNanos));
+            }
+            weitester = Math.max(weitester, eimer[f]);
+            min[f] = Long.MAX_VALUE;
+        }
+        long jetzt = Math.floorDiv(jetztNanos, aufloesungNanos);
+        long[] werte = new long[FELDER];
+        for (Ring ring : ringe) {
+            for (int b = 0; b < eimerProRing; b++) {
+                if (!ring.lese(b, werte)) {
+                    continue;
+                }
+                long alter = jetzt - werte[PERIODE];
+                if (alter < 0L || alter >= weitester) {
+                    continue;
+                }
+                for (int f = 0; f < n; f++) {
+                    if (alter < eimer[f]) {
+                        anzahl[f] += werte[ANZAHL];
+                        summe[f] += werte[SUMME];
+                        min[f] = Math.min(min[f], werte[MIN]);
+                        max[f] = Math.max(max[f], werte[MAX]);
+                    }
+                }
+            }
+        }
+        DauerAddierer.Stand[] staende = new DauerAddierer.Stand[n];
+        for (int f = 0; f < n; f++) {
+            boolean leer = anzahl[f] == 0L;
+            staende[f] = new DauerAddierer.Stand(anzahl[f], ComfortableDuration.ofNanos(summe[f]),
+                ComfortableDuration.ofNanos(leer ? 0L : min[f]), ComfortableDuration.ofNanos(leer ? 0L : max[f]),
+                ComfortableDuration.ofNanos(leer ? 0L : summe[f] / anzahl[f]));
+        }
+        return staende;
+    }
+
+    /**
+     * @return Anzahl der Dauern, deren Zeitpunkt für den Ring schon zu alt war
+     */
+    public long verworfen() {
+        return verworfen.get();
+    }
+
+    /**
+     * @return Länge eines Eimers
+     */
+    public Duration getAufloesung() {
+        return Duration.ofNanos(aufloesungNanos);
+    }
+
+    private long eimerFuer(long fensterNanos) {
+        if (fensterNanos <= 0L) {
+            throw new IllegalArgumentException("Fenster muss positiv sein: " + Duration.ofNanos(fensterNanos));
+        }
+        return (fensterNanos + aufloesungNanos - 1) / aufloesungNanos;
+    }
+
+    /**
+     * Ein Ring aus Eimern, je FELDER Werte hintereinander. Geschrieben wird nur von einem Thread zugleich (im
+     * Mehr-Schreiber-Betrieb der, der den Ring belegt hat), immer mit lazySet: jeder Wert wird erst nach allen davor
+     * geschriebenen sichtbar, der Stempel ist also ungerade, bevor sich der Eimer ändert, und wieder gerade, wenn alles
+     * geschrieben ist.
+     */
+    private static final class Ring extends Streifen.Belegbar {
+
+        private final AtomicLongArray eimer;
+        private final int groesse;
+
+        Ring(int groesse) {
+            super();
+            this.groesse = groesse;
+            this.eimer = new AtomicLongArray(groesse * FELDER);
+            for (int b = 0; b < groesse; b++) {
+                eimer.set(b * FELDER + PERIODE, LEER);
+            }
+        }
+
+        /**
+         * @return falsch, wenn der Eimer schon zu einer neueren Periode gehört
+         */
+        boolean erfasse(long periode, long nanos) {
+            int b = (int) Math.floorMod(periode, (long) groesse) * FELDER;
+            long alt = eimer.get(b + PERIODE);
+            if (alt > periode) {
+                return false;
+            }
+            long stempel = eimer.get(b + STEMPEL);
+            eimer.lazySet(b + STEMPEL, stempel + 1);
+            if (alt != periode) {
+                eimer.lazySet(b + PERIODE, periode);
+                eimer.lazySet(b + ANZAHL, 1L);
+                eimer.lazySet(b + SUMME, nanos);
+                eimer.lazySet(b + MIN, nanos);
+                eimer.lazySet(b + MAX, nanos);
+            } else {
+                eimer.lazySet(b + ANZAHL, eimer.get(b + ANZAHL) + 1L);
+                eimer.lazySet(b + SUMME, eimer.get(b + SUMME) + nanos);
+                if (nanos < eimer.get(b + MIN)) {
+                    eimer.lazySet(b + MIN, nanos);
+                }
+                if (nanos > eimer.get(b + MAX)) {
+                    eimer.lazySet(b + MAX, nanos);
+                }
+            }
+            eimer.lazySet(b + STEMPEL, stempel + 2);
+            return true;
+        }
+
+        /**
+         * Liest einen Eimer stimmig, ohne den Schreiber aufzuhalten.
+         * 
+         * @return falsch, wenn der Eimer leer ist
+         */
+        boolean lese(int index, long[] werte) {
+            int b = index * FELDER;
+            int versuche = 0;
+            while (true) {
+                long stempel = eimer.get(b + STEMPEL);
+                if ((stempel & 1L) == 0L) {
+                    for (int f = PERIODE; f < FELDER; f++) {
+                        werte[f] = eimer.get(b + f);
+                    }
+                    if (eimer.get(b + STEMPEL) == stempel) {
+                        return werte[PERIODE] != LEER;
+                    }
+                }
+                if (++versuche > 64) {
+                    Thread.yield(); // der Schreiber ist mitten im Update verdrängt worden
+                    versuche = 0;
+                }
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "DauerFenster [aufloesung=" + getAufloesung() + ", eimer=" + (eimerProRing - 1) + ", streifen="
+                + ringe.length + ", verworfen=" + verworfen() + "]";
+    }
+}
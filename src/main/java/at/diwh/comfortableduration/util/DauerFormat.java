@@ -0,0 +1,346 @@
+package at.diwh.comfortableduration.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Vorkompilierte Ausgabe einer {@link ComfortableDuration} als Text, direkt in einen StringBuilder, ein char[], einen
+ * (auch direkten) ByteBuffer oder ein beliebiges Appendable. Auf diesem Weg entstehen keine Zwischen-Strings: die
+ * Beschriftungen liegen als char[] vor, die Zahlen werden Ziffer für Ziffer geschrieben.
+ * <br/> Vorlagen:
+ * <li>{@link #DEUTSCH}: Tage : [82]       Stunden : [22]       Minuten : [40]       Sekunden : [32]       Nanosekunden : [25000000]
+ * (genau die Ausgabe von ComfortableDuration.toString())</li>
+ * <li>{@link #ENGLISCH}: Days : [82]       Hours : [22] ...</li>
+ * <li>{@link #KOMPAKT}: 82d 22h 40m 32s 25000000ns, Nullen werden weggelassen, also z.B. 1d 22h 40m</li>
+ * <li>{@link #ISO8601}: PT1990H40M32.025S, also dasselbe wie Duration.toString()</li>
+ * Der ByteBuffer bekommt UTF-8; alle Vorlagen hier kommen ohne Umlaute aus, dann ist das reines ASCII und wird
+ * Zeichen für Zeichen geschrieben.
+ * <br/> Die Instanzen sind unveränderlich und threadsicher.
+ * 
+ * @author diwh
+ */
+public final class DauerFormat {
+
+    private static final int TAGE = 0;
+    private static final int SEKUNDEN = 3;
+    private static final int NANOS = 4;
+
+    /** Tage : [82]       Stunden : [22] ... wie ComfortableDuration.toString() */
+    public static final DauerFormat DEUTSCH = new DauerFormat(
+        new String[] { ComfortableDuration.TAGE + " : [", ComfortableDuration.STUNDEN + " : [",
+                ComfortableDuration.MINUTEN + " : [", ComfortableDuration.SEKUNDEN + " : [",
+                ComfortableDuration.NANOSEKUNDEN + " : [" },
+        new String[] { "]", "]", "]", "]", "]" }, "       ", false);
+
+    /** Days : [82]       Hours : [22] ... */
+    public static final DauerFormat ENGLISCH = new DauerFormat(
+        new String[] { "Days : [", "Hours : [", "Minutes : [", "Seconds : [", "Nanoseconds : [" },
+        new String[] { "]", "]", "]", "]", "]" }, "       ", false);
+
+    /** 1d 22h 40m - Einheiten mit 0 fallen weg */
+    public static final DauerFormat KOMPAKT = new DauerFormat(new String[] { "", "", "", "", "" },
+        new String[] { "d", "h", "m", "s", "ns" }, " ", true);
+
+    /** PT1990H40M32.025S wie Duration.toString() */
+    public static final DauerFormat ISO8601 = new DauerFormat();
+
+    // Puffer pro Thread, für Ziele, in die nicht direkt Ziffer für Ziffer geschrieben werden kann; wächst bei Vorlagen
+    // mit langen Texten mit, siehe puffer()
+    private static final ThreadLocal<char[]> PUFFER = new ThreadLocal<char[]>() {
+        @Override
+        protected char[] initialValue() {
+            return new char[256];
+        }
+    };
+
+    private final char[][] vor;
+    private final char[][] nach;
+    private final char[] trenner;
+    private final boolean nullenWeglassen;
+    private final boolean iso;
+    private final int maxLaenge;
+    private final boolean nurAscii;
+
+    /**
+     * Eigene Vorlage: pro Einheit (Tage, Stunden, Minuten, Sekunden, Nanosekunden) ein Text vor und einer nach dem
+     * Wert, dazu ein Trenner zwischen den Einheiten.
+     * 
+     * @param vor - 5 Texte vor dem Wert
+     * @param nach - 5 Texte nach dem Wert
+     * @param trenner - zwischen zwei Einheiten
+     * @param nullenWeglassen - wahr, wenn Einheiten mit dem Wert 0 weggelassen werden (sind alle 0, bleiben die
+     *            Sekunden stehen)
+     */
+    public DauerFormat(String[] vor, String[] nach, String trenner, boolean nullenWeglassen) {
+        super();
+        if (vor.length != 5 || nach.length != 5) {
+            throw new IllegalArgumentException("Es braucht genau 5 Texte vor und nach den Werten");
+        }
+        this.vor = new char[5][];
+        this.nach = new char[5][];
+        int laenge = 0;
+        for (int i = 0; i < 5; i++) {
+            this.vor[i] = vor[i].toCharArray();
+            this.nach[i] = nach[i].toCharArray();
+            laenge += this.vor[i].length + this.nach[i].length + 20;
+        }
+        this.trenner = trenner.toCharArray();
+        this.nullenWeglassen = nullenWeglassen;
+        this.iso = false;
+        this.maxLaenge = laenge + 4 * this.trenner.length;
+        this.nurAscii = nurAscii(this.vor) && nurAscii(this.nach) && nurAscii(new char[][] { this.trenner });
+    }
+
+    private DauerFormat() {
+        super();
+        this.vor = null;
+        this.nach = null;
+        this.trenner = null;
+        this.nullenWeglassen = false;
+        this.iso = true;
+        this.maxLaenge = 48;
+        this.nurAscii = true;
+    }
+
+    private static boolean nurAscii(char[][] texte) {
+        for (char[] text : texte) {
+            for (char c : text) {
+                if (c >= 0x80) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private char[] puffer() {
+        char[] puffer = PUFFER.get();
+        if (puffer.length < maxLaenge) {
+            puffer = new char[maxLaenge];
+            PUFFER.set(puffer);
+        }
+        return puffer;
+    }
+
+    /**
+     * @return dieselbe Vorlage, nur ohne Einheiten mit dem Wert 0
+     */
+    public DauerFormat ohneNullen() {
+        if (iso || nullenWeglassen) {
+            return this;
+        }
+        String[] v = new String[5];
+        String[] n = new String[5];
+        for (int i = 0; i < 5; i++) {
+            v[i] = new String(vor[i]);
+            n[i] = new String(nach[i]);
+        }
+        return new DauerFormat(v, n, new String(trenner), true);
+    }
+
+    /**
+     * @return so viele Zeichen schreibt diese Vorlage höchstens
+     */
+    public int maxLaenge() {
+        return maxLaenge;
+    }
+
+    /**
+     * @param d - die Dauer
+     * @return der Text (hier entsteht natürlich ein String)
+     */
+    public String format(ComfortableDuration d) {
+        char[] puffer = puffer();
+        return new String(puffer, 0, schreibe(d, puffer, 0));
+    }
+
+    /**
+     * Schreibt in einen StringBuilder.
+     * 
+     * @param d - die Dauer
+     * @param ziel - der StringBuilder
+     * @return ziel
+     */
+    public StringBuilder format(ComfortableDuration d, StringBuilder ziel) {
+        char[] puffer = puffer();
+        return ziel.append(puffer, 0, schreibe(d, puffer, 0));
+    }
+
+    /**
+     * Schreibt in ein beliebiges Appendable, z.B. einen Writer.
+     * 
+     * @param d - die Dauer
+     * @param ziel - das Appendable
+     * @throws IOException wenn das Appendable nicht schreiben kann
+     */
+    public void format(ComfortableDuration d, Appendable ziel) throws IOException {
+        if (ziel instanceof StringBuilder) {
+            format(d, (StringBuilder) ziel);
+            return;
+        }
+        char[] puffer = puffer();
+        int laenge = schreibe(d, puffer, 0);
+        for (int i = 0; i < laenge; i++) {
+            ziel.append(puffer[i]);
+        }
+    }
+
+    /**
+     * Schreibt in ein char[] ab position; es muss Platz für {@link #maxLaenge()} Zeichen sein.
+     * 
+     * @param d - die Dauer
+     * @param ziel - das Array
+     * @param position - ab hier wird geschrieben
+     * @return die Position nach dem letzten geschriebenen Zeichen
+     */
+    public int format(ComfortableDuration d, char[] ziel, int position) {
+        if (ziel.length - position < maxLaenge) {
+            // eventuell passt es trotzdem, dann über den Puffer
+            char[] puffer = puffer();
+            int laenge = schreibe(d, puffer, 0);
+            System.arraycopy(puffer, 0, ziel, position, laenge);
+            return position + laenge;
+        }
+        return schreibe(d, ziel, position);
+    }
+
+    /**
+     * Schreibt den Text als UTF-8 an die aktuelle Position eines ByteBuffers (auch eines direkten) und schiebt die
+     * Position weiter. Bei Vorlagen nur aus ASCII ist das ein Byte pro Zeichen, ohne Zwischen-String.
+     * 
+     * @param d - die Dauer
+     * @param ziel - der ByteBuffer
+     * @return ziel
+     */
+    public ByteBuffer format(ComfortableDuration d, ByteBuffer ziel) {
+        char[] puffer = puffer();
+        int laenge = schreibe(d, puffer, 0);
+        if (!nurAscii) {
+            return ziel.put(new String(puffer, 0, laenge).getBytes(StandardCharsets.UTF_8));
+        }
+        for (int i = 0; i < laenge; i++) {
+            ziel.put((byte) puffer[i]);
+        }
+        return ziel;
+    }
+
+    private int schreibe(ComfortableDuration d, char[] ziel, int position) {
+        if (iso) {
+            return schreibeIso(d.gesamtSekunden(), (int) d.nanos(), ziel, position);
+        }
+        int p = position;
+        boolean erste = true;
+        boolean alleNull = d.tage() == 0 && d.stunden() == 0 && d.minuten() == 0 && d.sekunden() == 0
+                && d.nanos() == 0;
+        for (int einheit = TAGE; einheit <= NANOS; einheit++) {
+            long wert = wert(d, einheit);
+            if (nullenWeglassen && wert == 0 && !(alleNull && einheit == SEKUNDEN)) {
+                continue;
+            }
+            if (!erste) {
+                p = kopiere(trenner, ziel, p);
+            }
+            erste = false;
+            p = kopiere(vor[einheit], ziel, p);
+            p = zahl(wert, ziel, p);
+            p = kopiere(nach[einheit], ziel, p);
+        }
+        return p;
+    }
+
+    private static long wert(ComfortableDuration d, int einheit) {
+        switch (einheit) {
+            case 0:
+                return d.tage();
+            case 1:
+                return d.stunden();
+            case 2:
+                return d.minuten();
+            case 3:
+                return d.sekunden();
+            default:
+                return d.nanos();
+        }
+    }
+
+    /**
+     * Wie Duration.toString(), nur ohne StringBuilder.
+     */
+    private static int schreibeIso(long sekunden, int nanos, char[] ziel, int position) {
+        int p = position;
+        ziel[p++] = 'P';
+        ziel[p++] = 'T';
+        if (sekunden == 0 && nanos == 0) {
+            ziel[p++] = '0';
+            ziel[p++] = 'S';
+            return p;
+        }
+        long effektiv = sekunden;
+        if (sekunden < 0 && nanos > 0) {
+            effektiv++;
+        }
+        long stunden = effektiv / ComfortableDuration.SEKUNDEN_PRO_STUNDE;
+        int minuten = (int) ((effektiv % ComfortableDuration.SEKUNDEN_PRO_STUNDE)
+                / ComfortableDuration.SEKUNDEN_PRO_MINUTE);
+        int sek = (int) (effektiv % ComfortableDuration.SEKUNDEN_PRO_MINUTE);
+        if (stunden != 0) {
+            p = zahl(stunden, ziel, p);
+            ziel[p++] = 'H';
+        }
+        if (minuten != 0) {
+            p = zahl(minuten, ziel, p);
+            ziel[p++] = 'M';
+        }
+        if (sek == 0 && nanos == 0 && p - position > 2) {
+            return p;
+        }
+        if (sekunden < 0 && nanos > 0 && sek == 0) {
+            ziel[p++] = '-';
+            ziel[p++] = '0';
+        } else {
+            p = zahl(sek, ziel, p);
+        }
+        if (nanos > 0) {
+            int bruch = sekunden < 0 ? (int) (ComfortableDuration.NANOS_PRO_SEKUNDE - nanos) : nanos;
+            ziel[p++] = '.';
+            int teiler = 100000000;
+            while (bruch > 0) {
+                ziel[p++] = (char) ('0' + bruch / teiler);
+                bruch %= teiler;
+                teiler /= 10;
+            }
+        }
+        ziel[p++] = 'S';
+        return p;
+    }
+
+    private static int kopiere(char[] text, char[] ziel, int position) {
+        System.arraycopy(text, 0, ziel, position, text.length);
+        return position + text.length;
+    }
+
+    /**
+     * Schreibt die Dezimaldarstellung von wert (auch Long.MIN_VALUE), gerechnet wird im negativen Bereich.
+     */
+    static int zahl(long wert, char[] ziel, int position) {
+        int p = position;
+        long negativ = wert;
+        if (wert < 0) {
+            ziel[p++] = '-';
+        } else {
+            negativ = -wert;
+        }
+        int stellen = 1;
+        long grenze = -10L;
+        while (stellen < 19 && negativ <= grenze) {
+            stellen++;
+            grenze *= 10L;
+        }
+        for (int i = stellen - 1; i >= 0; i--) {
+            ziel[p + i] = (char) ('0' - (negativ % 10L));
+            negativ /= 10L;
+        }
+        return p + stellen;
+    }
+}
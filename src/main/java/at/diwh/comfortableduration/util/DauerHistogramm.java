@@ -0,0 +1,326 @@
+package at.diwh.comfortableduration.util;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Histogramm für Dauern in Nanosekunden mit logarithmischen Klassen (wie HdrHistogram): jede Zweierpotenz wird in
+ * gleich breite Unterklassen geteilt, die Klasse eines Werts ergibt sich mit ein paar Bitoperationen, Erfassen ist
+ * also O(1) und legt nichts an. Bei der Standardgenauigkeit von 7 Bit liegt jedes Perzentil auf weniger als 1 %
+ * genau, Summe, Minimum und Maximum sind exakt.
+ * <br/> Die Zeilen (eine pro Zweierpotenz) werden erst beim ersten Wert angelegt, der Speicher ist also höchstens
+ * (65 - Genauigkeit) * 2^(Genauigkeit - 1) longs (bei 7 Bit 29 KB), praktisch meist nur ein paar KB.
+ * <br/> Nicht threadsicher; für parallele Auswertungen pro Thread eines verwenden und mit {@link #uebernimm}
+ * zusammenführen, für Streams gibt es dafür {@link DauerSammler}.
+ * 
+ * @author diwh
+ */
+public final class DauerHistogramm {
+
+    /**
+     * Unterklassen pro Zweierpotenz = 2^(GENAUIGKEIT - 1), relativer Fehler der Perzentile unter 2^-GENAUIGKEIT
+     */
+    public static final int GENAUIGKEIT = 7;
+
+    private final int bits;
+    private final int halb;
+    private final long[][] zeilen;
+
+    private long anzahl;
+    private long summeSekunden;
+    private long summeNanos;
+    private long min = Long.MAX_VALUE;
+    private long max = Long.MIN_VALUE;
+
+    /**
+     * Histogramm mit {@link #GENAUIGKEIT} Bit.
+     */
+    public DauerHistogramm() {
+        this(GENAUIGKEIT);
+    }
+
+    /**
+     * @param bits - Genauigkeit von 2 bis 16 Bit, der relative Fehler der Perzentile ist kleiner als 2^-bits
+     */
+    public DauerHistogramm(int bits) {
+        super();
+        pruefeBits(bits);
+        this.bits = bits;
+        this.halb = 1 << (bits - 1);
+        this.zeilen = new long[65 - bits][];
+    }
+
+    /**
+     * @param bits - Genauigkeit wie bei {@link #DauerHistogramm(int)}
+     * @throws IllegalArgumentException außerhalb von 2 bis 16 Bit
+     */
+    static void pruefeBits(int bits) {
+        if (bits < 2 || bits > 16) {
+            throw new IllegalArgumentException("Genauigkeit muss zwischen 2 und 16 Bit liegen: " + bits);
+        }
+    }
+
+    /**
+     * Erfasst eine Dauer.
+     * 
+     * @param nanos - die Dauer in Nanosekunden, nicht negativ
+     */
+    public void erfasse(long nanos) {
+        erfasse(nanos, 1L);
+    }
+
+    /**
+     * Erfasst eine Dauer.
+     * 
+     * @param dauer - nicht negativ und höchstens ca. 292 Jahre
+     */
+    public void erfasse(Duration dauer) {
+        erfasse(dauer.toNanos(), 1L);
+    }
+
+    /**
+     * Erfasst eine Dauer.
+     * 
+     * @param dauer - nicht negativ und höchstens ca. 292 Jahre
+     */
+    public void erfasse(ComfortableDuration dauer) {
+        erfasse(Math.addExact(Math.multiplyExact(dauer.gesamtSekunden(), ComfortableDuration.NANOS_PRO_SEKUNDE),
+            dauer.nanos()), 1L);
+    }
+
+    /**
+     * Erfasst eine Dauer mehrfach.
+     * 
+     * @param nanos - die Dauer in Nanosekunden, nicht negativ
+     * @param wieOft - Anzahl, nicht negativ
+     */
+    public void erfasse(long nanos, long wieOft) {
+        if (nanos < 0L) {
+            throw new IllegalArgumentException("Negative Dauer: " + nanos);
+        }
+        if (wieOft <= 0L) {
+            if (wieOft < 0L) {
+                throw new IllegalArgumentException("Negative Anzahl: " + wieOft);
+            }
+            return;
+        }
+        int klasse = klasse(nanos);
+        long[] zeile = zeilen[klasse >>> (bits - 1)];
+        if (zeile == null) {
+            zeile = new long[halb];
+            zeilen[klasse >>> (bits - 1)] = zeile;
+        }
+        zeile[klasse & (halb - 1)] += wieOft;
+        anzahl += wieOft;
+        addiere(Math.multiplyExact(nanos / ComfortableDuration.NANOS_PRO_SEKUNDE, wieOft),
+            Math.multiplyExact(nanos % ComfortableDuration.NANOS_PRO_SEKUNDE, wieOft));
+        if (nanos < min) {
+            min = nanos;
+        }
+        if (nanos > max) {
+            max = nanos;
+        }
+    }
+
+    /**
+     * Nimmt alle Werte eines anderen Histogramms dazu, das andere bleibt unverändert.
+     * 
+     * @param andere - Histogramm mit derselben Genauigkeit
+     */
+    public void uebernimm(DauerHistogramm andere) {
+        if (andere.bits != bits) {
+            throw new IllegalArgumentException("Unterschiedliche Genauigkeit: " + bits + " / " + andere.bits);
+        }
+        if (andere.anzahl == 0L) {
+            return;
+        }
+        for (int z = 0; z < zeilen.length; z++) {
+            long[] quelle = andere.zeilen[z];
+            if (quelle != null) {
+                if (zeilen[z] == null) {
+                    zeilen[z] = quelle.clone();
+                } else {
+                    long[] ziel = zeilen[z];
+                    for (int i = 0; i < halb; i++) {
+                        ziel[i] += quelle[i];
+                    }
+                }
+            }
+        }
+        anzahl += andere.anzahl;
+        addiere(andere.summeSekunden, andere.summeNanos);
+        min = Math.min(min, andere.min);
+        max = Math.max(max, andere.max);
+    }
+
+    /**
+     * Löscht alle Werte, die Zeilen bleiben für die Wiederverwendung angelegt.
+     */
+    public void zuruecksetzen() {
+        for (long[] zeile : zeilen) {
+            if (zeile != null) {
+                Arrays.fill(zeile, 0L);
+            }
+        }
+        anzahl = 0L;
+        summeSekunden = 0L;
+        summeNanos = 0L;
+        min = Long.MAX_VALUE;
+        max = Long.MIN_VALUE;
+    }
+
+    /**
+     * @return Anzahl der erfassten Dauern
+     */
+    public long anzahl() {
+        return anzahl;
+    }
+
+    /**
+     * @return kleinste Dauer in Nanosekunden, 0 wenn leer
+     */
+    public long minNanos() {
+        return anzahl == 0L ? 0L : min;
+    }
+
+    /**
+     * @return größte Dauer in Nanosekunden, 0 wenn leer
+     */
+    public long maxNanos() {
+        return anzahl == 0L ? 0L : max;
+    }
+
+    /**
+     * Perzentil in Nanosekunden: die Mitte der Klasse, in der der gesuchte Rang liegt (begrenzt auf Minimum und
+     * Maximum). 0 und 100 liefern genau Minimum und Maximum.
+     * 
+     * @param prozent - 0 bis 100, z.B. 99.9
+     * @return Perzentil in Nanosekunden, 0 wenn leer
+     */
+    public long perzentilNanos(double prozent) {
+        if (prozent < 0.0 || prozent > 100.0 || Double.isNaN(prozent)) {
+            throw new IllegalArgumentException("Perzentil muss zwischen 0 und 100 liegen: " + prozent);
+        }
+        if (anzahl == 0L) {
+            return 0L;
+        }
+        if (prozent == 0.0) {
+            return min;
+        }
+        if (prozent == 100.0) {
+            return max;
+        }
+        long rang = Math.max(1L, (long) Math.ceil(prozent / 100.0 * anzahl));
+        long bisher = 0L;
+        for (int z = 0; z < zeilen.length; z++) {
+            long[] zeile = zeilen[z];
+            if (zeile == null) {
+                continue;
+            }
+            for (int i = 0; i < halb; i++) {
+                bisher += zeile[i];
+                if (bisher >= rang) {
+                    long wert = mitte((z << (bits - 1)) | i);
+                    return Math.max(min, Math.min(max, wert));
+                }
+            }
+        }
+        return max;
+    }
+
+    /**
+     * @return Summe aller Dauern
+     */
+    public ComfortableDuration summe() {
+        return ComfortableDuration.ofSekunden(summeSekunden, (int) summeNanos);
+    }
+
+    /**
+     * @return kleinste Dauer, 0 wenn leer
+     */
+    public ComfortableDuration min() {
+        return ComfortableDuration.ofNanos(minNanos());
+    }
+
+    /**
+     * @return größte Dauer, 0 wenn leer
+     */
+    public ComfortableDuration max() {
+        return ComfortableDuration.ofNanos(maxNanos());
+    }
+
+    /**
+     * @return Durchschnitt (abgerundet auf Nanosekunden), 0 wenn leer
+     */
+    public ComfortableDuration durchschnitt() {
+        if (anzahl == 0L) {
+            return ComfortableDuration.of(0L);
+        }
+        return ComfortableDuration.durchschnitt(summeSekunden, summeNanos, anzahl);
+    }
+
+    /**
+     * @param prozent - 0 bis 100, z.B. 99.9
+     * @return das Perzentil als ComfortableDuration
+     */
+    public ComfortableDuration perzentil(double prozent) {
+        return ComfortableDuration.ofNanos(perzentilNanos(prozent));
+    }
+
+    /**
+     * @return die Genauigkeit in Bit
+     */
+    public int genauigkeit() {
+        return bits;
+    }
+
+    /**
+     * @return z.B. "Anzahl 12, Summe 3s 200000000ns, Min ..., Max ..., p50 ..., p90 ..., p99 ..., p99.9 ..."
+     */
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder(200);
+        text.append("Anzahl ").append(anzahl).append(", Summe ");
+        DauerFormat.KOMPAKT.format(summe(), text).append(", Min ");
+        DauerFormat.KOMPAKT.format(min(), text).append(", Max ");
+        DauerFormat.KOMPAKT.format(max(), text).append(", p50 ");
+        DauerFormat.KOMPAKT.format(perzentil(50.0), text).append(", p90 ");
+        DauerFormat.KOMPAKT.format(perzentil(90.0), text).append(", p99 ");
+        DauerFormat.KOMPAKT.format(perzentil(99.0), text).append(", p99.9 ");
+        return DauerFormat.KOMPAKT.format(perzentil(99.9), text).toString();
+    }
+
+    private void addiere(long sekunden, long nanos) {
+        long n = summeNanos + nanos;
+        summeSekunden = Math.addExact(summeSekunden,
+            Math.addExact(sekunden, n / ComfortableDuration.NANOS_PRO_SEKUNDE));
+        summeNanos = n % ComfortableDuration.NANOS_PRO_SEKUNDE;
+    }
+
+    /**
+     * Werte unter 2^bits bekommen je eine eigene Klasse, darüber teilt sich jede Zweierpotenz in 2^(bits-1) Klassen.
+     */
+    int klasse(long wert) {
+        if (wert < (halb << 1)) {
+            return (int) wert;
+        }
+        int exponent = 64 - Long.numberOfLeadingZeros(wert) - bits;
+        return (exponent << (bits - 1)) + (int) (wert >>> exponent);
+    }
+
+    long untergrenze(int klasse) {
+        if (klasse < (halb << 1)) {
+            return klasse;
+        }
+        int exponent = (klasse >>> (bits - 1)) - 1;
+        return ((long) (klasse - (exponent << (bits - 1)))) << exponent;
+    }
+
+    private long mitte(int klasse) {
+        if (klasse < (halb << 1)) {
+            return klasse;
+        }
+        int exponent = (klasse >>> (bits - 1)) - 1;
+        return untergrenze(klasse) + ((1L << exponent) >>> 1);
+    }
+}
@@ -0,0 +1,580 @@
+package at.diwh.comfortableduration.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Handgeschriebener Parser (ohne Regex) für
+ * <li>ISO8601-Durations wie PT1990H40M32.025S oder P82DT22H40M32.025S, mit demselben Ergebnis wie Duration.parse</li>
+ * <li>die Textform von ComfortableDuration.toString(): Tage : [82]       Stunden : [22]       Minuten : [40]
+ * Sekunden : [32]       Nanosekunden : [25000000]</li>
+ * Welche Form vorliegt, wird am ersten Zeichen erkannt. Gelesen wird direkt aus einer CharSequence, einem Bereich
+ * eines char[], byte[] oder ByteBuffers (ASCII), ohne vorher etwas zu kopieren; das Ergebnis sind Sekunden und
+ * Nanosekunden wie bei Duration, daraus entsteht auf Wunsch eine ComfortableDuration.
+ * <br/> Wie bei Duration.parse sind Leerzeichen oder Tabs vor und nach der Dauer ein Fehler; wer sie (z.B. in
+ * eingerückten Logzeilen) überspringen will, nimmt {@link #DauerParser(boolean)} mit true.
+ * <br/> Fehler werden als DateTimeParseException gemeldet, getErrorIndex() ist die Position des ersten falschen
+ * Zeichens (relativ zum Beginn des Bereichs).
+ * <br/> Ein DauerParser merkt sich das Ergebnis des letzten {@link #lese}-Aufrufs und ist daher <b>nicht</b>
+ * threadsicher; pro Thread einen eigenen verwenden, er kann beliebig oft wiederverwendet werden.
+ * 
+ * @author diwh
+ */
+public final class DauerParser {
+
+    /**
+     * Bekommt bei {@link DauerParser#leseZeilen} jede gelesene Dauer.
+     */
+    @FunctionalInterface
+    public interface DauerVerbraucher {
+
+        /**
+         * @param zeile - Zeilennummer, ab 1
+         * @param sekunden - Sekunden wie Duration.getSeconds()
+         * @param nanos - Nanosekunden wie Duration.getNano()
+         */
+        void dauer(long zeile, long sekunden, int nanos);
+    }
+
+    private static final String[] BESCHRIFTUNGEN = { ComfortableDuration.TAGE, ComfortableDuration.STUNDEN,
+            ComfortableDuration.MINUTEN, ComfortableDuration.SEKUNDEN, ComfortableDuration.NANOSEKUNDEN };
+
+    private static final long[] SEKUNDEN_JE_EINHEIT = { ComfortableDuration.SEKUNDEN_PRO_TAG,
+            ComfortableDuration.SEKUNDEN_PRO_STUNDE, ComfortableDuration.SEKUNDEN_PRO_MINUTE, 1L };
+
+    // Blockgröße beim Einlesen einer Datei, die Blöcke werden an Zeilengrenzen geschnitten
+    private static final int BLOCK = 1 << 30;
+
+    private final boolean raenderUeberspringen;
+
+    // die aktuelle Quelle, genau eine ist gesetzt
+    private CharSequence text;
+    private char[] zeichen;
+    private byte[] bytes;
+    private ByteBuffer puffer;
+    private int anfang;
+
+    // Ergebnis des letzten lese-Aufrufs
+    private long sekunden;
+    private int nanos;
+
+    // Lesezustand
+    private int pos;
+    private int ende;
+
+    public DauerParser() {
+        this(false);
+    }
+
+    /**
+     * @param raenderUeberspringen - wahr, wenn Leerzeichen und Tabs vor und nach der Dauer überlesen werden (abweichend
+     *            von Duration.parse)
+     */
+    public DauerParser(boolean raenderUeberspringen) {
+        super();
+        this.raenderUeberspringen = raenderUeberspringen;
+    }
+
+    /**
+     * Liest eine Dauer, z.B. "PT1990H40M32.025S" oder die Ausgabe von ComfortableDuration.toString().
+     * 
+     * @param eingabe - der Text
+     * @return die ComfortableDuration
+     * @throws DateTimeParseException wenn der Text keine Dauer ist
+     */
+    public ComfortableDuration parse(CharSequence eingabe) {
+        lese(eingabe, 0, eingabe.length());
+        return ComfortableDuration.ofSekunden(sekunden, nanos);
+    }
+
+    /**
+     * Liest eine Dauer aus eingabe[von, bis).
+     * 
+     * @return die ComfortableDuration
+     * @throws DateTimeParseException wenn der Bereich keine Dauer ist
+     */
+    public ComfortableDuration parse(char[] eingabe, int von, int bis) {
+        lese(eingabe, von, bis);
+        return ComfortableDuration.ofSekunden(sekunden, nanos);
+    }
+
+    /**
+     * Liest eine Dauer aus den ASCII-Bytes eingabe[von, bis).
+     * 
+     * @return die ComfortableDuration
+     * @throws DateTimeParseException wenn der Bereich keine Dauer ist
+     */
+    public ComfortableDuration parse(byte[] eingabe, int von, int bis) {
+        lese(eingabe, von, bis);
+        return ComfortableDuration.ofSekunden(sekunden, nanos);
+    }
+
+    /**
+     * Liest eine Dauer aus den ASCII-Bytes an den absoluten Positionen [von, bis) des ByteBuffers; position() und
+     * limit() des Puffers bleiben unverändert.
+     * 
+     * @return die ComfortableDuration
+     * @throws DateTimeParseException wenn der Bereich keine Dauer ist
+     */
+    public ComfortableDuration parse(ByteBuffer eingabe, int von, int bis) {
+        lese(eingabe, von, bis);
+        return ComfortableDuration.ofSekunden(sekunden, nanos);
+    }
+
+    /**
+     * Wie {@link #parse(CharSequence)}, legt aber kein Objekt an: das Ergebnis steht danach in {@link #sekunden()}
+     * und {@link #nanos()}.
+     */
+    public void lese(CharSequence eingabe, int von, int bis) {
+        quelle(eingabe, null, null, null, von, bis);
+        lese();
+    }
+
+    /**
+     * Wie {@link #parse(char[], int, int)}, Ergebnis in {@link #sekunden()} und {@link #nanos()}.
+     */
+    public void lese(char[] eingabe, int von, int bis) {
+        quelle(null, eingabe, null, null, von, bis);
+        lese();
+    }
+
+    /**
+     * Wie {@link #parse(byte[], int, int)}, Ergebnis in {@link #sekunden()} und {@link #nanos()}.
+     */
+    public void lese(byte[] eingabe, int von, int bis) {
+        quelle(null, null, eingabe, null, von, bis);
+        lese();
+    }
+
+    /**
+     * Wie {@link #parse(ByteBuffer, int, int)}, Ergebnis in {@link #sekunden()} und {@link #nanos()}.
+     */
+    public void lese(ByteBuffer eingabe, int von, int bis) {
+        quelle(null, null, null, eingabe, von, bis);
+        lese();
+    }
+
+    /**
+     * @return Sekunden der zuletzt gelesenen Dauer (wie Duration.getSeconds())
+     */
+    public long sekunden() {
+        return sekunden;
+    }
+
+    /**
+     * @return Nanosekunden der zuletzt gelesenen Dauer (0 bis 999 999 999, wie Duration.getNano())
+     */
+    public int nanos() {
+        return nanos;
+    }
+
+    /**
+     * Liest zeilenweise Dauern aus den Bytes [von, bis) eines ByteBuffers (z.B. eines MappedByteBuffers). Leere
+     * Zeilen werden übersprungen, ein \r am Zeilenende stört nicht.
+     * 
+     * @param eingabe - der Puffer
+     * @param von - absolute Startposition
+     * @param bis - absolute Endposition (exklusiv)
+     * @param ersteZeile - Nummer der ersten Zeile, für die Meldungen an den verbraucher
+     * @param verbraucher - bekommt jede Dauer
+     * @return Anzahl der gelesenen Dauern
+     * @throws DateTimeParseException mit der Zeilennummer im Text, wenn eine Zeile keine Dauer ist
+     */
+    public long leseZeilen(ByteBuffer eingabe, int von, int bis, long ersteZeile, DauerVerbraucher verbraucher) {
+        long anzahl = 0L;
+        long zeile = ersteZeile;
+        int zeilenAnfang = von;
+        for (int i = von; i <= bis; i++) {
+            if (i == bis || eingabe.get(i) == '\n') {
+                int zeilenEnde = i;
+                if (zeilenEnde > zeilenAnfang && eingabe.get(zeilenEnde - 1) == '\r') {
+                    zeilenEnde--;
+                }
+                if (!leer(eingabe, zeilenAnfang, zeilenEnde)) {
+                    try {
+                        lese(eingabe, zeilenAnfang, zeilenEnde);
+                    } catch (DateTimeParseException e) {
+                        throw new DateTimeParseException("Zeile " + zeile + ": " + e.getMessage(),
+                            e.getParsedString(), e.getErrorIndex(), e);
+                    }
+                    verbraucher.dauer(zeile, sekunden, nanos);
+                    anzahl++;
+                }
+                zeile++;
+                zeilenAnfang = i + 1;
+            }
+        }
+        return anzahl;
+    }
+
+    /**
+     * Liest eine Datei mit einer Dauer pro Zeile über Memory-Mapping, in Blöcken zu höchstens 1 GB, die an
+     * Zeilengrenzen geschnitten werden. Es wird nichts in den Heap kopiert.
+     * 
+     * @param datei - die Datei (ASCII bzw. UTF-8 ohne Sonderzeichen)
+     * @param verbraucher - bekommt jede Dauer
+     * @return Anzahl der gelesenen Dauern
+     * @throws IOException wenn die Datei nicht gelesen werden kann
+     */
+    public long leseDatei(Path datei, DauerVerbraucher verbraucher) throws IOException {
+        long anzahl = 0L;
+        long zeile = 1L;
+        try (FileChannel kanal = FileChannel.open(datei, StandardOpenOption.READ)) {
+            long groesse = kanal.size();
+            long position = 0L;
+            while (position < groesse) {
+                long laenge = Math.min(BLOCK, groesse - position);
+                MappedByteBuffer block = kanal.map(FileChannel.MapMode.READ_ONLY, position, laenge);
+                int bis = (int) laenge;
+                if (position + laenge < groesse) {
+                    // nur bis zur letzten vollständigen Zeile, der Rest kommt mit dem nächsten Block
+                    while (bis > 0 && block.get(bis - 1) != '\n') {
+                        bis--;
+                    }
+                    if (bis == 0) {
+                        throw new IOException("Zeile " + zeile + " ist länger als " + BLOCK + " Bytes");
+                    }
+                }
+                anzahl += leseZeilen(block, 0, bis, zeile, verbraucher);
+                zeile += zeilenzahl(block, bis);
+                position += bis;
+            }
+        }
+        return anzahl;
+    }
+
+    private static long zeilenzahl(ByteBuffer block, int bis) {
+        long anzahl = 0L;
+        for (int i = 0; i < bis; i++) {
+            if (block.get(i) == '\n') {
+                anzahl++;
+            }
+        }
+        return anzahl;
+    }
+
+    private static boolean leer(ByteBuffer eingabe, int von, int bis) {
+        for (int i = von; i < bis; i++) {
+            byte b = eingabe.get(i);
+            if (b != ' ' && b != '\t') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void quelle(CharSequence t, char[] z, byte[] b, ByteBuffer p, int von, int bis) {
+        if (von < 0 || bis < von) {
+            throw new IndexOutOfBoundsException("Bereich " + von + " bis " + bis);
+        }
+        this.text = t;
+        this.zeichen = z;
+        this.bytes = b;
+        this.puffer = p;
+        this.anfang = von;
+        this.pos = von;
+        this.ende = bis;
+    }
+
+    private char zeichen(int i) {
+        if (zeichen != null) {
+            return zeichen[i];
+        } else if (bytes != null) {
+            return (char) (bytes[i] & 0xFF);
+        } else if (puffer != null) {
+            return (char) (puffer.get(i) & 0xFF);
+        }
+        return text.charAt(i);
+    }
+
+    private void lese() {
+        if (raenderUeberspringen) {
+            while (pos < ende && istLeer(zeichen(pos))) {
+                pos++;
+            }
+            while (ende > pos && istLeer(zeichen(ende - 1))) {
+                ende--;
+            }
+        }
+        if (pos < ende && zeichen(pos) == BESCHRIFTUNGEN[0].charAt(0)) {
+            leseTextform();
+        } else {
+            leseIso();
+        }
+    }
+
+    /**
+     * [-+]?P([-+]?[0-9]+D)?(T([-+]?[0-9]+H)?([-+]?[0-9]+M)?([-+]?[0-9]+([.,][0-9]{0,9})?S)?)? - wie Duration.parse,
+     * Groß-/Kleinschreibung egal.
+     */
+    private void leseIso() {
+        boolean negativ = false;
+        if (pos < ende && (zeichen(pos) == '-' || zeichen(pos) == '+')) {
+            negativ = zeichen(pos) == '-';
+            pos++;
+        }
+        erwarte('P');
+        if (pos == ende) {
+            fehler("Nach P fehlen Tage oder Zeitangaben", pos);
+        }
+        long summe = 0L;
+        int bruch = 0;
+        if (!istZeichen(pos, 'T')) {
+            summe = teil(leseZahl(), 'D', 0);
+        }
+        if (pos < ende) {
+            boolean kleinesT = zeichen(pos) == 't';
+            erwarte('T');
+            if (pos == ende) {
+                if (kleinesT && !istZeichen(pos - 2, 'D')) {
+                    fehler("Nach P fehlen Tage oder Zeitangaben", pos - 1);
+                } else if (!kleinesT) {
+                    fehler("Nach T fehlen Stunden, Minuten oder Sekunden", pos);
+                }
+                // Duration.parse nimmt ein kleines t ohne Zeitangaben hin (P1Dt), daher hier ebenso
+            }
+            int naechsteEinheit = 1;
+            while (pos < ende) {
+                boolean vorzeichenMinus = zeichen(pos) == '-';
+                int zahlAnfang = pos;
+                long wert = leseZahl();
+                if (pos < ende && (zeichen(pos) == '.' || zeichen(pos) == ',')) {
+                    pos++;
+                    bruch = leseBruch(vorzeichenMinus);
+                    if (!istZeichen(pos, 'S')) {
+                        fehler("Nach dem Bruchteil muss S folgen", pos);
+                    }
+                }
+                if (pos == ende) {
+                    fehler("Einheit (H, M oder S) fehlt", pos);
+                }
+                int einheit = istZeichen(pos, 'H') ? 1 : (istZeichen(pos, 'M') ? 2 : (istZeichen(pos, 'S') ? 3 : -1));
+                if (einheit < 0) {
+                    fehler("Unbekannte Einheit, erwartet H, M oder S", pos);
+                }
+                if (einheit < naechsteEinheit) {
+                    fehler("Einheit doppelt oder in falscher Reihenfolge", pos);
+                }
+                naechsteEinheit = einheit + 1;
+                summe = addiere(summe, teil(wert, zeichen(pos), einheit), zahlAnfang);
+                if (einheit < 3 && bruch != 0) {
+                    fehler("Bruchteil nur bei Sekunden erlaubt", pos);
+                }
+            }
+        }
+        ergebnis(summe, bruch, negativ);
+    }
+
+    private long teil(long wert, char einheitZeichen, int einheit) {
+        if (einheit == 0) {
+            erwarte(einheitZeichen);
+        } else {
+            pos++;
+        }
+        try {
+            return Math.multiplyExact(wert, SEKUNDEN_JE_EINHEIT[einheit]);
+        } catch (ArithmeticException e) {
+            throw fehlerMitUrsache("Überlauf", pos - 1, e);
+        }
+    }
+
+    private long addiere(long a, long b, int position) {
+        try {
+            return Math.addExact(a, b);
+        } catch (ArithmeticException e) {
+            throw fehlerMitUrsache("Überlauf", position, e);
+        }
+    }
+
+    private void ergebnis(long summe, int bruch, boolean negativ) {
+        long s = summe;
+        long n = bruch;
+        if (n < 0) {
+            s = addiere(s, -1L, pos);
+            n += ComfortableDuration.NANOS_PRO_SEKUNDE;
+        }
+        if (negativ) {
+            // wie Duration.negated(): -(s + n/1e9)
+            if (n == 0) {
+                s = negiere(s);
+            } else {
+                s = negiere(addiere(s, 1L, pos));
+                n = ComfortableDuration.NANOS_PRO_SEKUNDE - n;
+            }
+        }
+        this.sekunden = s;
+        this.nanos = (int) n;
+    }
+
+    private long negiere(long wert) {
+        try {
+            return Math.negateExact(wert);
+        } catch (ArithmeticException e) {
+            throw fehlerMitUrsache("Überlauf", anfang, e);
+        }
+    }
+
+    /**
+     * Tage : [82]       Stunden : [22]       Minuten : [40]       Sekunden : [32]       Nanosekunden : [25000000]
+     */
+    private void leseTextform() {
+        long summe = 0L;
+        long n = 0L;
+        for (int i = 0; i < BESCHRIFTUNGEN.length; i++) {
+            if (i > 0) {
+                ueberspringeLeer();
+            }
+            String beschriftung = BESCHRIFTUNGEN[i];
+            for (int k = 0; k < beschriftung.length(); k++) {
+                if (pos >= ende || zeichen(pos) != beschriftung.charAt(k)) {
+                    fehler("Erwartet: " + beschriftung, pos);
+                }
+                pos++;
+            }
+            ueberspringeLeer();
+            erwarteGenau(':');
+            ueberspringeLeer();
+            erwarteGenau('[');
+            int zahlAnfang = pos;
+            long wert = leseZahl();
+            erwarteGenau(']');
+            if (i < SEKUNDEN_JE_EINHEIT.length) {
+                long sek;
+                try {
+                    sek = Math.multiplyExact(wert, SEKUNDEN_JE_EINHEIT[i]);
+                } catch (ArithmeticException e) {
+                    throw fehlerMitUrsache("Überlauf", zahlAnfang, e);
+                }
+                summe = addiere(summe, sek, zahlAnfang);
+            } else {
+                if (wert < 0 || wert >= ComfortableDuration.NANOS_PRO_SEKUNDE) {
+                    fehler("Nanosekunden müssen zwischen 0 und 999999999 liegen", zahlAnfang);
+                }
+                n = wert;
+            }
+        }
+        if (pos != ende) {
+            fehler("Unerwartete Zeichen nach den Nanosekunden", pos);
+        }
+        this.sekunden = summe;
+        this.nanos = (int) n;
+    }
+
+    /**
+     * [-+]?[0-9]+ als long
+     */
+    private long leseZahl() {
+        int start = pos;
+        boolean negativ = false;
+        if (pos < ende && (zeichen(pos) == '-' || zeichen(pos) == '+')) {
+            negativ = zeichen(pos) == '-';
+            pos++;
+        }
+        int ziffernAnfang = pos;
+        long wert = 0L; // negativ aufsummiert, damit auch Long.MIN_VALUE geht
+        while (pos < ende) {
+            char c = zeichen(pos);
+            if (c < '0' || c > '9') {
+                break;
+            }
+            if (wert < Long.MIN_VALUE / 10 || (wert == Long.MIN_VALUE / 10 && c - '0' > -(Long.MIN_VALUE % 10))) {
+                fehler("Zahl zu groß", start);
+            }
+            wert = wert * 10 - (c - '0');
+            pos++;
+        }
+        if (pos == ziffernAnfang) {
+            fehler("Ziffer erwartet", pos);
+        }
+        if (!negativ) {
+            if (wert == Long.MIN_VALUE) {
+                fehler("Zahl zu groß", start);
+            }
+            return -wert;
+        }
+        return wert;
+    }
+
+    /**
+     * [0-9]{0,9} als Nanosekunden, mit dem Vorzeichen der Sekunden
+     */
+    private int leseBruch(boolean negativ) {
+        int wert = 0;
+        int stellen = 0;
+        while (pos < ende && zeichen(pos) >= '0' && zeichen(pos) <= '9') {
+            if (stellen == 9) {
+                fehler("Mehr als 9 Nachkommastellen", pos);
+            }
+            wert = wert * 10 + (zeichen(pos) - '0');
+            stellen++;
+            pos++;
+        }
+        for (; stellen < 9; stellen++) {
+            wert *= 10;
+        }
+        return negativ ? -wert : wert;
+    }
+
+    private boolean istZeichen(int i, char grossbuchstabe) {
+        return i < ende && Character.toUpperCase(zeichen(i)) == grossbuchstabe;
+    }
+
+    private void erwarte(char grossbuchstabe) {
+        if (!istZeichen(pos, grossbuchstabe)) {
+            fehler("Erwartet: " + grossbuchstabe, pos);
+        }
+        pos++;
+    }
+
+    private void erwarteGenau(char c) {
+        if (pos >= ende || zeichen(pos) != c) {
+            fehler("Erwartet: " + c, pos);
+        }
+        pos++;
+    }
+
+    private void ueberspringeLeer() {
+        while (pos < ende && istLeer(zeichen(pos))) {
+            pos++;
+        }
+    }
+
+    private static boolean istLeer(char c) {
+        return c == ' ' || c == '\t';
+    }
+
+    private void fehler(String meldung, int position) {
+        throw fehlerMitUrsache(meldung, position, null);
+    }
+
+    private DateTimeParseException fehlerMitUrsache(String meldung, int position, Throwable ursache) {
+        String gelesen = gelesenerText();
+        return new DateTimeParseException("Text cannot be parsed to a Duration: " + meldung + " (Position "
+                + (position - anfang) + ")", gelesen, position - anfang, ursache);
+    }
+
+    /**
+     * Nur für Fehlermeldungen, daher darf hier kopiert werden.
+     */
+    private String gelesenerText() {
+        int bis = Math.max(ende, pos);
+        if (text != null) {
+            return text.subSequence(anfang, Math.min(bis, text.length())).toString();
+        } else if (zeichen != null) {
+            return new String(zeichen, anfang, bis - anfang);
+        } else if (bytes != null) {
+            return new String(bytes, anfang, bis - anfang, StandardCharsets.ISO_8859_1);
+        }
+        StringBuilder builder = new StringBuilder(bis - anfang);
+        for (int i = anfang; i < bis; i++) {
+            builder.append((char) (puffer.get(i) & 0xFF));
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,108 @@
+package at.diwh.comfortableduration.util;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collector;
+
+/**
+ * Collectors, die Dauern in ein {@link DauerHistogramm} sammeln, statt sie in eine Liste zu legen und zu sortieren.
+ * Der Speicher ist pro Histogramm begrenzt (unabhängig von der Anzahl der Werte), jeder Wert kostet O(1), und bei
+ * parallelen Streams werden die Teilhistogramme zusammengeführt. Summe, Minimum, Maximum, Durchschnitt und
+ * Perzentile kommen danach als ComfortableDuration aus dem Histogramm:
+ * 
+ * <pre>
+ * DauerHistogramm h = dauern.parallelStream().collect(DauerSammler.histogramm());
+ * ComfortableDuration p99 = h.perzentil(99.0);
+ * </pre>
+ * 
+ * Negative Dauern werden abgelehnt (IllegalArgumentException), ebenso Dauern über ca. 292 Jahre (ArithmeticException
+ * von Duration.toNanos()).
+ * 
+ * @author diwh
+ */
+public final class DauerSammler {
+
+    private DauerSammler() {
+        super();
+    }
+
+    /**
+     * @return Collector für Durations mit der Standardgenauigkeit
+     */
+    public static Collector<Duration, DauerHistogramm, DauerHistogramm> histogramm() {
+        return histogramm(Duration::toNanos, DauerHistogramm.GENAUIGKEIT);
+    }
+
+    /**
+     * Collector für beliebige Elemente, die Dauer liefert die Funktion in Nanosekunden, z.B. für ComfortableDuration:
+     * {@code DauerSammler.histogramm(cd -> cd.toDuration().toNanos())}.
+     * 
+     * @param nanos - Dauer eines Elements in Nanosekunden
+     * @return der Collector mit der Standardgenauigkeit
+     */
+    public static <T> Collector<T, DauerHistogramm, DauerHistogramm> histogramm(ToLongFunction<? super T> nanos) {
+        return histogramm(nanos, DauerHistogramm.GENAUIGKEIT);
+    }
+
+    /**
+     * @param nanos - Dauer eines Elements in Nanosekunden
+     * @param bits - Genauigkeit des Histogramms, siehe {@link DauerHistogramm#DauerHistogramm(int)}
+     * @return der Collector
+     */
+    public static <T> Collector<T, DauerHistogramm, DauerHistogramm> histogramm(final ToLongFunction<? super T> nanos,
+            final int bits) {
+        // gleich prüfen, nicht erst beim ersten Element
+        DauerHistogramm.pruefeBits(bits);
+        return new HistogrammSammler<T>(() -> new DauerHistogramm(bits), (h, t) -> h.erfasse(nanos.applyAsLong(t)));
+    }
+
+    private static final class HistogrammSammler<T> implements Collector<T, DauerHistogramm, DauerHistogramm> {
+
+        private static final Set<Characteristics> EIGENSCHAFTEN = Collections
+                .unmodifiableSet(EnumSet.of(Characteristics.IDENTITY_FINISH, Characteristics.UNORDERED));
+
+        private final Supplier<DauerHistogramm> neu;
+        private final BiConsumer<DauerHistogramm, T> erfasse;
+
+        HistogrammSammler(Supplier<DauerHistogramm> neu, BiConsumer<DauerHistogramm, T> erfasse) {
+            super();
+            this.neu = neu;
+            this.erfasse = erfasse;
+        }
+
+        @Override
+        public Supplier<DauerHistogramm> supplier() {
+            return neu;
+        }
+
+        @Override
+        public BiConsumer<DauerHistogramm, T> accumulator() {
+            return erfasse;
+        }
+
+        @Override
+        public BinaryOperator<DauerHistogramm> combiner() {
+            return (a, b) -> {
+                a.uebernimm(b);
+                return a;
+            };
+        }
+
+        @Override
+        public Function<DauerHistogramm, DauerHistogramm> finisher() {
+            return Function.identity();
+        }
+
+        @Override
+        public Set<Characteristics> characteristics() {
+            return EIGENSCHAFTEN;
+        }
+    }
+}
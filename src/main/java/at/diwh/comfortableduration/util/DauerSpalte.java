@@ -0,0 +1,508 @@
+package at.diwh.comfortableduration.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Spaltenspeicher für sehr viele Dauern außerhalb des Heaps: jede Dauer hat eine feste Breite, entweder
+ * {@link Format#NANOS} (ein long mit Nanosekunden, 8 Bytes, bis ca. 292 Jahre) oder {@link Format#SEKUNDEN_NANOS}
+ * (long Sekunden + int Nanosekunden, 12 Bytes, wie Duration). Die Werte liegen in Segmenten zu je 4 Mio. Dauern,
+ * entweder in direkten ByteBuffern ({@link #imSpeicher}) oder in einer Datei, die über Memory-Mapping eingeblendet
+ * wird ({@link #erstelle}, {@link #oeffne}, {@link #oeffneLesend}) - beim Öffnen einer bestehenden Datei wird nichts
+ * kopiert.
+ * <br/> Summe, Minimum, Maximum, Durchschnitt und Histogramm laufen parallel über Blöcke der Segmente (im
+ * ForkJoinPool.commonPool()), die inneren Schleifen lesen nur und verzweigen nicht. Die Ergebnisse kommen als
+ * ComfortableDuration.
+ * <br/> Dateiformat: 32 Bytes Kopf (Kennung "CDUR", Version, Breite, Anzahl), danach die Werte in
+ * Little-Endian-Reihenfolge. Die Anzahl im Kopf wird bei jedem {@link #dazu} mitgeschrieben.
+ * <br/> Anhängen ist nicht threadsicher und darf nicht gleichzeitig mit einer Auswertung laufen.
+ * 
+ * @author diwh
+ */
+public final class DauerSpalte implements AutoCloseable {
+
+    /**
+     * Breite einer gespeicherten Dauer
+     */
+    public enum Format {
+        /** ein long mit Nanosekunden, ca. ±292 Jahre */
+        NANOS(8),
+        /** long Sekunden und int Nanosekunden (0 bis 999 999 999), der ganze Bereich von Duration */
+        SEKUNDEN_NANOS(12);
+
+        private final int breite;
+
+        Format(int breite) {
+            this.breite = breite;
+        }
+
+        /**
+         * @return Bytes pro Dauer
+         */
+        public int getBreite() {
+            return breite;
+        }
+    }
+
+    static final int KOPF = 32;
+    private static final int KENNUNG = 0x43445552; // "CDUR"
+    private static final int VERSION = 1;
+    private static final int ANZAHL_POSITION = 16;
+
+    // 2^22 Dauern pro Segment, 2^18 pro Block einer Auswertung
+    static final int SEGMENT_BITS = 22;
+    private static final int BLOCK_BITS = 18;
+
+    private static final long ZWEI_HOCH_32 = 1L << 32;
+
+    private final Format format;
+    private final int breite;
+    private final FileChannel kanal;
+    private final boolean nurLesen;
+    private final ByteBuffer kopf;
+    private final List<ByteBuffer> segmente = new ArrayList<ByteBuffer>();
+    private long groesse;
+
+    private DauerSpalte(Format format, FileChannel kanal, boolean nurLesen, ByteBuffer kopf, long groesse) {
+        super();
+        this.format = format;
+        this.breite = format.breite;
+        this.kanal = kanal;
+        this.nurLesen = nurLesen;
+        this.kopf = kopf;
+        this.groesse = groesse;
+    }
+
+    /**
+     * Leere Spalte in direkten ByteBuffern (außerhalb des Heaps, aber ohne Datei).
+     * 
+     * @param format - Breite der Werte
+     * @return die Spalte
+     */
+    public static DauerSpalte imSpeicher(Format format) {
+        return new DauerSpalte(format, null, false, null, 0L);
+    }
+
+    /**
+     * Legt eine neue, leere Spaltendatei an; eine bestehende Datei wird überschrieben.
+     * 
+     * @param datei - die Datei
+     * @param format - Breite der Werte
+     * @return die Spalte, am Ende mit {@link #close()} schließen
+     * @throws IOException wenn die Datei nicht angelegt werden kann
+     */
+    public static DauerSpalte erstelle(Path datei, Format format) throws IOException {
+        FileChannel kanal = FileChannel.open(datei, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            MappedByteBuffer kopf = kanal.map(FileChannel.MapMode.READ_WRITE, 0L, KOPF);
+            kopf.order(ByteOrder.LITTLE_ENDIAN);
+            kopf.putInt(0, KENNUNG);
+            kopf.putInt(4, VERSION);
+            kopf.putInt(8, format.breite);
+            kopf.putLong(ANZAHL_POSITION, 0L);
+            return new DauerSpalte(format, kanal, false, kopf, 0L);
+        } catch (IOException | RuntimeException e) {
+            kanal.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Öffnet eine bestehende Spaltendatei zum Lesen und Anhängen, ohne die Werte zu kopieren. Das letzte Segment wird
+     * dabei in voller Größe eingeblendet, die Datei wächst also bis zum {@link #close()}; nur zum Auswerten besser
+     * {@link #oeffneLesend(Path)}.
+     * 
+     * @param datei - die Datei
+     * @return die Spalte, am Ende mit {@link #close()} schließen
+     * @throws IOException wenn die Datei fehlt oder keine Spaltendatei ist
+     */
+    public static DauerSpalte oeffne(Path datei) throws IOException {
+        return oeffne(datei, false);
+    }
+
+    /**
+     * Öffnet eine bestehende Spaltendatei nur zum Lesen, ohne die Werte zu kopieren: eingeblendet werden nur Kopf und
+     * vorhandene Werte, die Datei bleibt unverändert und darf schreibgeschützt sein. {@link #dazu} wirft dann eine
+     * IllegalStateException.
+     * 
+     * @param datei - die Datei
+     * @return die Spalte, am Ende mit {@link #close()} schließen
+     * @throws IOException wenn die Datei fehlt oder keine Spaltendatei ist
+     */
+    public static DauerSpalte oeffneLesend(Path datei) throws IOException {
+        return oeffne(datei, true);
+    }
+
+    private static DauerSpalte oeffne(Path datei, boolean nurLesen) throws IOException {
+        FileChannel kanal = nurLesen ? FileChannel.open(datei, StandardOpenOption.READ)
+                : FileChannel.open(datei, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            if (kanal.size() < KOPF) {
+                throw new IOException(datei + " ist keine Spaltendatei (zu kurz)");
+            }
+            MappedByteBuffer kopf = kanal.map(nurLesen ? FileChannel.MapMode.READ_ONLY : FileChannel.MapMode.READ_WRITE,
+                0L, KOPF);
+            kopf.order(ByteOrder.LITTLE_ENDIAN);
+            if (kopf.getInt(0) != KENNUNG || kopf.getInt(4) != VERSION) {
+                throw new IOException(datei + " ist keine Spaltendatei (Kennung/Version)");
+            }
+            Format format = null;
+            for (Format f : Format.values()) {
+                if (f.breite == kopf.getInt(8)) {
+                    format = f;
+                }
+            }
+            long anzahl = kopf.getLong(ANZAHL_POSITION);
+            if (format == null || anzahl < 0L || KOPF + anzahl * format.breite > kanal.size()) {
+                throw new IOException(datei + " ist beschädigt (Breite " + kopf.getInt(8) + ", Anzahl " + anzahl
+                        + ", Größe " + kanal.size() + ")");
+            }
+            DauerSpalte spalte = new DauerSpalte(format, kanal, nurLesen, kopf, anzahl);
+            long segmente = (anzahl + (1L << SEGMENT_BITS) - 1L) >>> SEGMENT_BITS;
+            for (long s = 0L; s < segmente; s++) {
+                spalte.neuesSegment();
+            }
+            return spalte;
+        } catch (IOException | RuntimeException e) {
+            kanal.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Hängt eine Dauer in Nanosekunden an.
+     * 
+     * @param nanos - die Dauer
+     */
+    public void dazu(long nanos) {
+        ByteBuffer segment = platz();
+        int position = (int) (groesse & ((1L << SEGMENT_BITS) - 1L)) * breite;
+        if (format == Format.NANOS) {
+            segment.putLong(position, nanos);
+        } else {
+            segment.putLong(position, Math.floorDiv(nanos, ComfortableDuration.NANOS_PRO_SEKUNDE));
+            segment.putInt(position + 8, (int) Math.floorMod(nanos, ComfortableDuration.NANOS_PRO_SEKUNDE));
+        }
+        mitzaehlen();
+    }
+
+    /**
+     * Hängt eine Dauer in Sekunden und Nanosekunden an.
+     * 
+     * @param sekunden - die Sekunden
+     * @param nanos - die Nanosekunden, 0 bis 999 999 999
+     * @throws ArithmeticException wenn die Dauer im Format NANOS nicht in einen long passt
+     */
+    public void dazu(long sekunden, int nanos) {
+        if (nanos < 0 || nanos >= ComfortableDuration.NANOS_PRO_SEKUNDE) {
+            throw new IllegalArgumentException("Nanosekunden außerhalb 0 bis 999999999: " + nanos);
+        }
+        if (format == Format.NANOS) {
+            dazu(Math.addExact(Math.multiplyExact(sekunden, ComfortableDuration.NANOS_PRO_SEKUNDE), nanos));
+            return;
+        }
+        ByteBuffer segment = platz();
+        int position = (int) (groesse & ((1L << SEGMENT_BITS) - 1L)) * breite;
+        segment.putLong(position, sekunden);
+        segment.putInt(position + 8, nanos);
+        mitzaehlen();
+    }
+
+    /**
+     * @param dauer - die Dauer
+     */
+    public void dazu(Duration dauer) {
+        dazu(dauer.getSeconds(), dauer.getNano());
+    }
+
+    /**
+     * @param dauer - die Dauer
+     */
+    public void dazu(ComfortableDuration dauer) {
+        dazu(dauer.gesamtSekunden(), (int) dauer.nanos());
+    }
+
+    /**
+     * @return Anzahl der Dauern
+     */
+    public long groesse() {
+        return groesse;
+    }
+
+    /**
+     * @return das Format
+     */
+    public Format getFormat() {
+        return format;
+    }
+
+    /**
+     * @param i - Position
+     * @return die Dauer an der Position
+     */
+    public ComfortableDuration get(long i) {
+        if (i < 0L || i >= groesse) {
+            throw new IndexOutOfBoundsException("Position " + i + ", Größe " + groesse);
+        }
+        ByteBuffer segment = segmente.get((int) (i >>> SEGMENT_BITS));
+        int position = (int) (i & ((1L << SEGMENT_BITS) - 1L)) * breite;
+        if (format == Format.NANOS) {
+            return ComfortableDuration.ofNanos(segment.getLong(position));
+        }
+        return ComfortableDuration.ofSekunden(segment.getLong(position), segment.getInt(position + 8));
+    }
+
+    /**
+     * @return Summe aller Dauern
+     */
+    public ComfortableDuration summe() {
+        Teil t = auswerten();
+        return ComfortableDuration.ofSekunden(t.sekunden, (int) t.nanos);
+    }
+
+    /**
+     * @return kleinste Dauer, 0 wenn leer
+     */
+    public ComfortableDuration min() {
+        Teil t = auswerten();
+        return t.anzahl == 0L ? ComfortableDuration.of(0L)
+                : ComfortableDuration.ofSekunden(t.minSekunden, t.minNanos);
+    }
+
+    /**
+     * @return größte Dauer, 0 wenn leer
+     */
+    public ComfortableDuration max() {
+        Teil t = auswerten();
+        return t.anzahl == 0L ? ComfortableDuration.of(0L)
+                : ComfortableDuration.ofSekunden(t.maxSekunden, t.maxNanos);
+    }
+
+    /**
+     * @return Durchschnitt (auf Nanosekunden abgerundet), 0 wenn leer
+     */
+    public ComfortableDuration durchschnitt() {
+        Teil t = auswerten();
+        if (t.anzahl == 0L) {
+            return ComfortableDuration.of(0L);
+        }
+        return ComfortableDuration.durchschnitt(t.sekunden, t.nanos, t.anzahl);
+    }
+
+    /**
+     * Alle Dauern als Histogramm, für Perzentile. Die Dauern dürfen nicht negativ sein und höchstens ca. 292 Jahre.
+     * 
+     * @return das Histogramm
+     */
+    public DauerHistogramm histogramm() {
+        return IntStream.range(0, bloecke()).parallel().mapToObj(b -> {
+            DauerHistogramm h = new DauerHistogramm();
+            ByteBuffer segment = segment(b);
+            int von = erster(b);
+            int bis = letzter(b);
+            if (format == Format.NANOS) {
+                for (int i = von; i < bis; i++) {
+                    h.erfasse(segment.getLong(i * 8));
+                }
+            } else {
+                for (int i = von; i < bis; i++) {
+                    int p = i * 12;
+                    h.erfasse(Math.addExact(Math.multiplyExact(segment.getLong(p),
+                        ComfortableDuration.NANOS_PRO_SEKUNDE), segment.getInt(p + 8)));
+                }
+            }
+            return h;
+        }).collect(DauerHistogramm::new, DauerHistogramm::uebernimm, DauerHistogramm::uebernimm);
+    }
+
+    /**
+     * Schreibt alle Änderungen auf die Platte (nur bei Dateien).
+     */
+    public void force() {
+        if (kanal != null && !nurLesen) {
+            ((MappedByteBuffer) kopf).force();
+            for (ByteBuffer segment : segmente) {
+                ((MappedByteBuffer) segment).force();
+            }
+        }
+    }
+
+    /**
+     * Schreibt die Datei fertig und schließt sie. Das letzte Segment wird dabei auf die tatsächliche Anzahl gekürzt,
+     * wo das Betriebssystem das bei eingeblendeten Dateien erlaubt.
+     */
+    @Override
+    public void close() throws IOException {
+        if (kanal == null) {
+            segmente.clear();
+            return;
+        }
+        try {
+            force();
+            segmente.clear();
+            if (nurLesen) {
+                return;
+            }
+            try {
+                kanal.truncate(KOPF + groesse * breite);
+            } catch (IOException e) {
+                // z.B. unter Windows, solange die Datei noch eingeblendet ist; die Anzahl im Kopf gilt trotzdem
+            }
+        } finally {
+            kanal.close();
+        }
+    }
+
+    private ByteBuffer platz() {
+        if (nurLesen) {
+            throw new IllegalStateException("Die Spalte ist nur zum Lesen geöffnet");
+        }
+        int s = (int) (groesse >>> SEGMENT_BITS);
+        if (s == segmente.size()) {
+            try {
+                neuesSegment();
+            } catch (IOException e) {
+                throw new IllegalStateException("Segment " + s + " kann nicht eingeblendet werden", e);
+            }
+        }
+        return segmente.get(s);
+    }
+
+    private void neuesSegment() throws IOException {
+        int bytes = breite << SEGMENT_BITS;
+        ByteBuffer segment;
+        long anfang = KOPF + (long) segmente.size() * bytes;
+        if (kanal == null) {
+            segment = ByteBuffer.allocateDirect(bytes);
+        } else if (nurLesen) {
+            // nur die vorhandenen Werte, das letzte Segment ist meist kürzer
+            long vorhanden = Math.min(bytes, KOPF + groesse * breite - anfang);
+            segment = kanal.map(FileChannel.MapMode.READ_ONLY, anfang, vorhanden);
+        } else {
+            segment = kanal.map(FileChannel.MapMode.READ_WRITE, anfang, bytes);
+        }
+        segment.order(ByteOrder.LITTLE_ENDIAN);
+        segmente.add(segment);
+    }
+
+    private void mitzaehlen() {
+        groesse++;
+        if (kopf != null) {
+            kopf.putLong(ANZAHL_POSITION, groesse);
+        }
+    }
+
+    private int bloecke() {
+        return (int) ((groesse + (1L << BLOCK_BITS) - 1L) >>> BLOCK_BITS);
+    }
+
+    private ByteBuffer segment(int block) {
+        return segmente.get(block >>> (SEGMENT_BITS - BLOCK_BITS));
+    }
+
+    // erste und letzte (exklusiv) Position des Blocks innerhalb seines Segments
+    private static int erster(int block) {
+        return (block & ((1 << (SEGMENT_BITS - BLOCK_BITS)) - 1)) << BLOCK_BITS;
+    }
+
+    private int letzter(int block) {
+        long ende = Math.min(groesse, ((long) block + 1L) << BLOCK_BITS);
+        return erster(block) + (int) (ende - ((long) block << BLOCK_BITS));
+    }
+
+    private Teil auswerten() {
+        return IntStream.range(0, bloecke()).parallel().mapToObj(this::block).reduce(new Teil(), Teil::dazu);
+    }
+
+    private Teil block(int block) {
+        ByteBuffer segment = segment(block);
+        int von = erster(block);
+        int bis = letzter(block);
+        Teil t = new Teil();
+        t.anzahl = bis - von;
+        if (format == Format.NANOS) {
+            // oberer und unterer Teil getrennt summiert, damit nichts überläuft (höchstens 2^18 Werte pro Block)
+            long hoch = 0L;
+            long tief = 0L;
+            long min = Long.MAX_VALUE;
+            long max = Long.MIN_VALUE;
+            for (int i = von; i < bis; i++) {
+                long wert = segment.getLong(i << 3);
+                hoch += wert >> 32;
+                tief += wert & 0xFFFFFFFFL;
+                min = Math.min(min, wert);
+                max = Math.max(max, wert);
+            }
+            // hoch * 2^32 + tief in Sekunden und Nanosekunden
+            long hochSekunden = Math.floorDiv(hoch, ComfortableDuration.NANOS_PRO_SEKUNDE);
+            long hochRest = Math.floorMod(hoch, ComfortableDuration.NANOS_PRO_SEKUNDE) * ZWEI_HOCH_32;
+            t.sekunden = hochSekunden * ZWEI_HOCH_32 + hochRest / ComfortableDuration.NANOS_PRO_SEKUNDE
+                    + tief / ComfortableDuration.NANOS_PRO_SEKUNDE;
+            t.nanos = hochRest % ComfortableDuration.NANOS_PRO_SEKUNDE + tief % ComfortableDuration.NANOS_PRO_SEKUNDE;
+            t.minSekunden = Math.floorDiv(min, ComfortableDuration.NANOS_PRO_SEKUNDE);
+            t.minNanos = (int) Math.floorMod(min, ComfortableDuration.NANOS_PRO_SEKUNDE);
+            t.maxSekunden = Math.floorDiv(max, ComfortableDuration.NANOS_PRO_SEKUNDE);
+            t.maxNanos = (int) Math.floorMod(max, ComfortableDuration.NANOS_PRO_SEKUNDE);
+        } else {
+            long sekunden = 0L;
+            long nanos = 0L;
+            for (int i = von; i < bis; i++) {
+                int p = i * 12;
+                long s = segment.getLong(p);
+                int n = segment.getInt(p + 8);
+                sekunden = Math.addExact(sekunden, s);
+                nanos += n; // höchstens 2^18 Werte unter 1e9, passt
+                if (s < t.minSekunden || (s == t.minSekunden && n < t.minNanos)) {
+                    t.minSekunden = s;
+                    t.minNanos = n;
+                }
+                if (s > t.maxSekunden || (s == t.maxSekunden && n > t.maxNanos)) {
+                    t.maxSekunden = s;
+                    t.maxNanos = n;
+                }
+            }
+            t.sekunden = sekunden;
+            t.nanos = nanos;
+        }
+        return t;
+    }
+
+    /**
+     * Teilergebnis eines Blocks; nanos darf über eine Sekunde gehen, übertragen wird erst am Ende
+     */
+    private static final class Teil {
+        private long anzahl;
+        private long sekunden;
+        private long nanos;
+        private long minSekunden = Long.MAX_VALUE;
+        private int minNanos = Integer.MAX_VALUE;
+        private long maxSekunden = Long.MIN_VALUE;
+        private int maxNanos = Integer.MIN_VALUE;
+
+        Teil dazu(Teil b) {
+            Teil t = new Teil();
+            t.anzahl = anzahl + b.anzahl;
+            long n = nanos + b.nanos;
+            t.sekunden = Math.addExact(Math.addExact(sekunden, b.sekunden),
+                Math.floorDiv(n, ComfortableDuration.NANOS_PRO_SEKUNDE));
+            t.nanos = Math.floorMod(n, ComfortableDuration.NANOS_PRO_SEKUNDE);
+            boolean aKleiner = minSekunden < b.minSekunden || (minSekunden == b.minSekunden && minNanos <= b.minNanos);
+            t.minSekunden = aKleiner ? minSekunden : b.minSekunden;
+            t.minNanos = aKleiner ? minNanos : b.minNanos;
+            boolean aGroesser = maxSekunden > b.maxSekunden || (maxSekunden == b.maxSekunden && maxNanos >= b.maxNanos);
+            t.maxSekunden = aGroesser ? maxSekunden : b.maxSekunden;
+            t.maxNanos = aGroesser ? maxNanos : b.maxNanos;
+            return t;
+        }
+    }
+}
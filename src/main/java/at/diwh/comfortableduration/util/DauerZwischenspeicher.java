@@ -0,0 +1,196 @@
+package at.diwh.comfortableduration.util;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Begrenzter Zwischenspeicher für häufige "krumme" Dauern (z.B. immer wieder dieselben Timeouts wie PT2.5S), die
+ * {@link ComfortableDuration#of(long)} nicht abdeckt. Ganze Sekunden im Bereich von of(long) gehen direkt dorthin und
+ * zählen nicht mit.
+ * <br/> Aufbau: eine Tabelle aus Sätzen zu je {@value #WEGE} Plätzen, der Satz ergibt sich aus dem Hash der Dauer. Ist
+ * ein Satz voll, wird nach dem CLOCK-Verfahren verdrängt: jeder Platz hat ein Bit "kürzlich benutzt", der Zeiger des
+ * Satzes läuft über die Plätze, löscht gesetzte Bits und nimmt den ersten Platz ohne Bit. Das kommt LRU nahe, ohne
+ * Liste und ohne Lock.
+ * <br/> Threadsicher ohne Synchronisation: die Einträge sind unveränderlich (alle Felder final) und werden vor der
+ * Rückgabe verglichen. Bei gleichzeitigen Zugriffen kann ein Eintrag verloren gehen oder doppelt angelegt werden, das
+ * kostet höchstens einen Fehlgriff, liefert aber nie eine falsche Dauer.
+ * 
+ * @author diwh
+ */
+public final class DauerZwischenspeicher {
+
+    /**
+     * Plätze pro Satz
+     */
+    public static final int WEGE = 4;
+
+    private final ComfortableDuration[] eintraege;
+    private final byte[] benutzt;
+    private final byte[] zeiger;
+    private final int saetzeMaske;
+
+    private final LongAdder treffer = new LongAdder();
+    private final LongAdder fehlgriffe = new LongAdder();
+    private final LongAdder verdraengt = new LongAdder();
+
+    /**
+     * @param kapazitaet - höchstens so viele Einträge, wird auf ein Vielfaches von {@value #WEGE} mal eine
+     *            Zweierpotenz aufgerundet
+     */
+    public DauerZwischenspeicher(int kapazitaet) {
+        super();
+        if (kapazitaet <= 0 || kapazitaet > (1 << 28)) {
+            throw new IllegalArgumentException("Kapazität außerhalb 1 bis " + (1 << 28) + ": " + kapazitaet);
+        }
+        int saetze = (kapazitaet + WEGE - 1) / WEGE;
+        saetze = saetze <= 1 ? 1 : Integer.highestOneBit(saetze - 1) << 1;
+        this.eintraege = new ComfortableDuration[saetze * WEGE];
+        this.benutzt = new byte[saetze * WEGE];
+        this.zeiger = new byte[saetze];
+        this.saetzeMaske = saetze - 1;
+    }
+
+    /**
+     * @param sekunden - Sekunden gesamt
+     * @param nanos - Nanosekunden (Anpassung), wie bei {@link ComfortableDuration#ofSekunden(long, int)}
+     * @return eine geteilte oder neue ComfortableDuration
+     */
+    public ComfortableDuration of(long sekunden, int nanos) {
+        long s = sekunden;
+        long n = nanos;
+        if (n < 0 || n >= ComfortableDuration.NANOS_PRO_SEKUNDE) {
+            s = Math.addExact(s, Math.floorDiv(n, ComfortableDuration.NANOS_PRO_SEKUNDE));
+            n = Math.floorMod(n, ComfortableDuration.NANOS_PRO_SEKUNDE);
+        }
+        return suche(s, (int) n);
+    }
+
+    /**
+     * @param nanos - Nanosekunden gesamt
+     * @return eine geteilte oder neue ComfortableDuration
+     */
+    public ComfortableDuration ofNanos(long nanos) {
+        return suche(Math.floorDiv(nanos, ComfortableDuration.NANOS_PRO_SEKUNDE),
+            (int) Math.floorMod(nanos, ComfortableDuration.NANOS_PRO_SEKUNDE));
+    }
+
+    /**
+     * @param d - Duration
+     * @return eine geteilte oder neue ComfortableDuration
+     */
+    public ComfortableDuration of(Duration d) {
+        return suche(d.getSeconds(), d.getNano());
+    }
+
+    private ComfortableDuration suche(long sekunden, int nanos) {
+        if (nanos == 0 && ComfortableDuration.istKanonisch(sekunden)) {
+            return ComfortableDuration.of(sekunden); // Standardbereich von of(long), spart die Plätze hier
+        }
+        long h = (sekunden * 0x9E3779B97F4A7C15L) ^ (nanos * 0xC2B2AE3D27D4EB4FL);
+        int satz = (int) (h ^ (h >>> 32)) & saetzeMaske;
+        int basis = satz * WEGE;
+        for (int w = basis; w < basis + WEGE; w++) {
+            ComfortableDuration e = eintraege[w];
+            if (e != null && e.gesamtSekunden() == sekunden && e.nanos() == nanos) {
+                if (benutzt[w] == 0) {
+                    benutzt[w] = 1;
+                }
+                treffer.increment();
+                return e;
+            }
+        }
+        fehlgriffe.increment();
+        ComfortableDuration neu = ComfortableDuration.ofSekunden(sekunden, nanos);
+        // CLOCK: nach spätestens einer Runde ist jedes Bit gelöscht
+        int z = zeiger[satz];
+        for (int schritt = 0; schritt <= WEGE; schritt++) {
+            int w = basis + z;
+            z = (z + 1) & (WEGE - 1);
+            if (eintraege[w] == null) {
+                break;
+            }
+            if (benutzt[w] == 0 || schritt == WEGE) {
+                verdraengt.increment();
+                break;
+            }
+            benutzt[w] = 0;
+        }
+        int platz = basis + ((z - 1) & (WEGE - 1));
+        benutzt[platz] = 0; // erst ein zweiter Zugriff schützt vor dem Verdrängen
+        eintraege[platz] = neu;
+        zeiger[satz] = (byte) z;
+        return neu;
+    }
+
+    /**
+     * @return Anzahl der Aufrufe, die eine vorhandene Instanz geliefert haben
+     */
+    public long treffer() {
+        return treffer.sum();
+    }
+
+    /**
+     * @return Anzahl der Aufrufe, die eine neue Instanz angelegt haben
+     */
+    public long fehlgriffe() {
+        return fehlgriffe.sum();
+    }
+
+    /**
+     * @return Anzahl der Einträge, die für neue Platz machen mussten
+     */
+    public long verdraengt() {
+        return verdraengt.sum();
+    }
+
+    /**
+     * @return Treffer / (Treffer + Fehlgriffe), 0 ohne Aufrufe
+     */
+    public double trefferquote() {
+        long t = treffer.sum();
+        long gesamt = t + fehlgriffe.sum();
+        return gesamt == 0L ? 0.0 : (double) t / gesamt;
+    }
+
+    /**
+     * @return aktuelle Anzahl der Einträge (Momentaufnahme)
+     */
+    public int groesse() {
+        int n = 0;
+        for (ComfortableDuration e : eintraege) {
+            if (e != null) {
+                n++;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * @return höchste Anzahl der Einträge
+     */
+    public int kapazitaet() {
+        return eintraege.length;
+    }
+
+    /**
+     * Entfernt alle Einträge und setzt die Zähler zurück.
+     */
+    public void leeren() {
+        for (int i = 0; i < eintraege.length; i++) {
+            eintraege[i] = null;
+            benutzt[i] = 0;
+        }
+        for (int i = 0; i < zeiger.length; i++) {
+            zeiger[i] = 0;
+        }
+        treffer.reset();
+        fehlgriffe.reset();
+        verdraengt.reset();
+    }
+
+    @Override
+    public String toString() {
+        return "DauerZwischenspeicher [kapazitaet=" + kapazitaet() + ", treffer=" + treffer() + ", fehlgriffe="
+                + fehlgriffe() + ", verdraengt=" + verdraengt() + "]";
+    }
+}
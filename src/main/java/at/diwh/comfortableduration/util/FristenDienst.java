@@ -0,0 +1,534 @@
+package at.diwh.comfortableduration.util;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Überwacht sehr viele Fristen (z.B. 1 Mio. SLA-Termine) und meldet jede abgelaufene Frist an einen {@link Ablauf}.
+ * Statt pro Abfrage Duration.between(now(), frist) zu rechnen, läuft eine gemeinsame Uhr im Takt der Auflösung; die
+ * Restzeit ist dann eine Subtraktion.
+ * <br/> Die Fristen liegen in einem hierarchischen Zeitrad: 6 Stufen zu je 64 Fächern (Stufe k fasst 64^k Takte),
+ * darüber eine Überlaufliste. Jedes Fach ist eine doppelt verkettete Liste über primitive Arrays, Planen und Stornieren
+ * kosten daher O(1) und legen keine Objekte an. Pro Takt wird ein Fach der Stufe 0 fällig; erreicht die Uhr das Fach
+ * einer höheren Stufe, werden dessen Fristen eine Stufe tiefer einsortiert.
+ * <br/> Eine Frist läuft frühestens ab, wenn die Uhr sie erreicht hat, und höchstens etwa einen Takt später. Die
+ * Meldungen gehen in Paketen an einen begrenzten Executor (Standard: wenige Daemon-Threads mit begrenzter Warteschlange,
+ * ist sie voll, meldet der Takt-Thread selbst). Ab Java 21 kann z.B. Executors.newVirtualThreadPerTaskExecutor()
+ * übergeben werden.
+ * <br/> Eine geplante Frist wird über ihren Griff (long) angesprochen; nach Ablauf oder Stornieren ist der Griff
+ * ungültig, auch wenn sein Platz wiederverwendet wird. Alle Methoden sind threadsicher.
+ * 
+ * @author diwh
+ */
+public final class FristenDienst implements AutoCloseable {
+
+    /**
+     * Bekommt jede abgelaufene Frist.
+     */
+    @FunctionalInterface
+    public interface Ablauf {
+
+        /**
+         * @param schluessel - der Schlüssel, mit dem die Frist geplant wurde
+         * @param verspaetungNanos - so lange ist die Frist beim Melden schon abgelaufen (laut gemeinsamer Uhr)
+         */
+        void abgelaufen(long schluessel, long verspaetungNanos);
+    }
+
+    /** Restzeit eines ungültigen Griffs */
+    public static final long UNBEKANNT = Long.MIN_VALUE;
+
+    private static final int BITS = 6;
+    private static final int FAECHER = 1 << BITS;
+    private static final int MASKE = FAECHER - 1;
+    private static final int STUFEN = 6;
+    private static final int UEBERLAUF = STUFEN * FAECHER;
+    private static final int LEER = -1;
+    private static final int PAKET = 256;
+
+    private final long taktNanos;
+    private final Ablauf ablauf;
+    private final Executor executor;
+    private final ExecutorService eigenerExecutor;
+    private final long startNanoTime;
+    private final long startLokal;
+    private final Object taktSperre = new Object();
+    private final AtomicLong fehler = new AtomicLong();
+
+    // Zeitrad, je Fach der erste Eintrag
+    private final int[] kopf = new int[UEBERLAUF + 1];
+    // Einträge als Spalten
+    private long[] faellig;
+    private long[] takt;
+    private long[] schluessel;
+    private int[] naechster;
+    private int[] vorheriger;
+    private int[] fach;
+    private int[] generation;
+    private int freiKopf = LEER;
+    private int benutzt;
+    private int anzahl;
+    private long aktuellerTakt;
+    private volatile long uhr;
+
+    // nur im Takt: abgelaufene Fristen bis zum Melden
+    private long[] abgelaufenSchluessel = new long[PAKET];
+    private long[] abgelaufenFaellig = new long[PAKET];
+    private int abgelaufenAnzahl;
+
+    private ScheduledExecutorService taktgeber;
+
+    /**
+     * Mit einem eigenen Executor: so viele Threads wie Prozessoren (höchstens 4), Warteschlange für 1024 Pakete.
+     * 
+     * @param aufloesung - Länge eines Takts, z.B. 10 ms
+     * @param ablauf - bekommt die abgelaufenen Fristen
+     */
+    public FristenDienst(Duration aufloesung, Ablauf ablauf) {
+        this(aufloesung, ablauf, null);
+    }
+
+    /**
+     * @param aufloesung - Länge eines Takts, z.B. 10 ms
+     * @param ablauf - bekommt die abgelaufenen Fristen
+     * @param executor - führt die Meldungen aus; null für den eigenen
+     */
+    public FristenDienst(Duration aufloesung, Ablauf ablauf, Executor executor) {
+        super();
+        this.taktNanos = aufloesung.toNanos();
+        if (taktNanos <= 0L) {
+            throw new IllegalArgumentException("Auflösung muss positiv sein: " + aufloesung);
+        }
+        this.ablauf = ablauf;
+        if (executor == null) {
+            int threads = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+            final AtomicInteger nummer = new AtomicInteger();
+            this.eigenerExecutor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(1024), r -> {
+                    Thread t = new Thread(r, "FristenDienst-Ablauf-" + nummer.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+            this.executor = eigenerExecutor;
+        } else {
+            this.eigenerExecutor = null;
+            this.executor = executor;
+        }
+        this.startNanoTime = System.nanoTime();
+        this.startLokal = GepackteZeit.ausDatumZeit(LocalDateTime.now());
+        Arrays.fill(kopf, LEER);
+        int kapazitaet = 1024;
+        this.faellig = new long[kapazitaet];
+        this.takt = new long[kapazitaet];
+        this.schluessel = new long[kapazitaet];
+        this.naechster = new int[kapazitaet];
+        this.vorheriger = new int[kapazitaet];
+        this.fach = new int[kapazitaet];
+        this.generation = new int[kapazitaet];
+    }
+
+    /**
+     * Startet den Takt in einem Daemon-Thread; läuft er schon, passiert nichts.
+     */
+    public synchronized void starte() {
+        if (taktgeber == null) {
+            taktgeber = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "FristenDienst-Takt");
+                t.setDaemon(true);
+                return t;
+            });
+            taktgeber.scheduleAtFixedRate(this::takte, taktNanos, taktNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Beendet den Takt und den eigenen Executor (einen übergebenen nicht). Geplante Fristen laufen nicht mehr ab.
+     */
+    @Override
+    public synchronized void close() {
+        if (taktgeber != null) {
+            taktgeber.shutdownNow();
+            taktgeber = null;
+        }
+        if (eigenerExecutor != null) {
+            eigenerExecutor.shutdown();
+        }
+    }
+
+    /**
+     * Ein Takt: stellt die gemeinsame Uhr, lässt das Zeitrad bis dahin laufen und meldet die abgelaufenen Fristen. Wird
+     * von {@link #starte()} regelmäßig aufgerufen, kann aber auch selbst getaktet werden.
+     */
+    public void takte() {
+        synchronized (taktSperre) {
+            long jetzt = System.nanoTime() - startNanoTime;
+            synchronized (this) {
+                uhr = jetzt;
+                vorruecken(Math.floorDiv(jetzt, taktNanos));
+            }
+            melden();
+        }
+    }
+
+    /**
+     * @param schluessel - wird beim Ablauf gemeldet, z.B. eine Auftragsnummer
+     * @param in - Abstand von der gemeinsamen Uhr
+     * @return der Griff der Frist
+     */
+    public long plane(long schluessel, Duration in) {
+        return planeNanos(schluessel, in.toNanos());
+    }
+
+    /**
+     * @param schluessel - wird beim Ablauf gemeldet
+     * @param frist - Zeitpunkt in lokaler Zeit; umgerechnet über den Abstand zwischen Uhr und Wanduhr beim Anlegen
+     * @return der Griff der Frist
+     */
+    public long planeBis(long schluessel, LocalDateTime frist) {
+        return planeAbsolut(schluessel, Math.subtractExact(GepackteZeit.ausDatumZeit(frist), startLokal));
+    }
+
+    /**
+     * @param schluessel - wird beim Ablauf gemeldet
+     * @param inNanos - Abstand von der gemeinsamen Uhr, 0 oder negativ: läuft im nächsten Takt ab
+     * @return der Griff der Frist
+     */
+    public synchronized long planeNanos(long schluessel, long inNanos) {
+        return planeAbsolut(schluessel, Math.addExact(uhr, inNanos));
+    }
+
+    /**
+     * @param f - Fälligkeit als absoluter Stand der gemeinsamen Uhr; planeBis braucht dafür die Uhr nicht, ein Takt
+     *            während des Planens verschiebt die Frist also nicht
+     */
+    private synchronized long planeAbsolut(long schluessel, long f) {
+        int i = belege();
+        this.faellig[i] = f;
+        this.takt[i] = Math.max(aktuellerTakt + 1, -Math.floorDiv(-f, taktNanos));
+        this.schluessel[i] = schluessel;
+        einhaengen(i);
+        anzahl++;
+        return ((long) generation[i] << 32) | i;
+    }
+
+    /**
+     * @param griff - von plane...
+     * @return wahr, wenn die Frist noch geplant war
+     */
+    public synchronized boolean storniere(long griff) {
+        int i = eintrag(griff);
+        if (i == LEER) {
+            return false;
+        }
+        aushaengen(i);
+        freigeben(i);
+        return true;
+    }
+
+    /**
+     * @param griff - von plane...
+     * @return wahr, solange die Frist geplant und nicht abgelaufen ist
+     */
+    public synchronized boolean istGeplant(long griff) {
+        return eintrag(griff) != LEER;
+    }
+
+    /**
+     * @param griff - von plane...
+     * @return Restzeit laut gemeinsamer Uhr (negativ, wenn die Frist im laufenden Takt abläuft), {@link #UNBEKANNT}
+     *         für einen ungültigen Griff
+     */
+    public synchronized long restNanos(long griff) {
+        int i = eintrag(griff);
+        return i == LEER ? UNBEKANNT : faellig[i] - uhr;
+    }
+
+    /**
+     * @param griff - von plane...
+     * @return Restzeit laut gemeinsamer Uhr, nicht unter 0; null für einen ungültigen Griff
+     */
+    public ComfortableDuration restzeit(long griff) {
+        long rest = restNanos(griff);
+        return rest == UNBEKANNT ? null : ComfortableDuration.ofNanos(Math.max(0L, rest));
+    }
+
+    /**
+     * Restzeiten vieler Fristen auf einmal, alle zum selben Stand der Uhr.
+     * 
+     * @param griffe - die Griffe
+     * @param anzahl - wie viele davon
+     * @param restNanos - bekommt die Restzeiten ({@link #UNBEKANNT} für ungültige Griffe)
+     * @return Anzahl der gültigen Griffe
+     */
+    public synchronized int restzeiten(long[] griffe, int anzahl, long[] restNanos) {
+        long jetzt = uhr;
+        int gueltig = 0;
+        for (int k = 0; k < anzahl; k++) {
+            int i = eintrag(griffe[k]);
+            if (i == LEER) {
+                restNanos[k] = UNBEKANNT;
+            } else {
+                restNanos[k] = faellig[i] - jetzt;
+                gueltig++;
+            }
+        }
+        return gueltig;
+    }
+
+    /**
+     * Zerlegt die Restzeiten vieler Fristen wie ComfortableDuration, ohne Objekte anzulegen: pro Griff fünf Werte
+     * hintereinander (Tage, Stunden, Minuten, Sekunden, Nanosekunden), bei ungültigen Griffen fünfmal -1.
+     * 
+     * @param griffe - die Griffe
+     * @param anzahl - wie viele davon
+     * @param zerlegung - mindestens 5 * anzahl lang
+     * @return Anzahl der gültigen Griffe
+     */
+    public synchronized int zerlegeRestzeiten(long[] griffe, int anzahl, long[] zerlegung) {
+        long jetzt = uhr;
+        int gueltig = 0;
+        for (int k = 0, z = 0; k < anzahl; k++, z += 5) {
+            int i = eintrag(griffe[k]);
+            if (i == LEER) {
+                Arrays.fill(zerlegung, z, z + 5, -1L);
+                continue;
+            }
+            gueltig++;
+            long rest = Math.max(0L, faellig[i] - jetzt);
+            long sekunden = rest / ComfortableDuration.NANOS_PRO_SEKUNDE;
+            zerlegung[z] = sekunden / ComfortableDuration.SEKUNDEN_PRO_TAG;
+            zerlegung[z + 1] = sekunden % ComfortableDuration.SEKUNDEN_PRO_TAG / ComfortableDuration.SEKUNDEN_PRO_STUNDE;
+            zerlegung[z + 2] = sekunden % ComfortableDuration.SEKUNDEN_PRO_STUNDE
+                    / ComfortableDuration.SEKUNDEN_PRO_MINUTE;
+            zerlegung[z + 3] = sekunden % ComfortableDuration.SEKUNDEN_PRO_MINUTE;
+            zerlegung[z + 4] = rest % ComfortableDuration.NANOS_PRO_SEKUNDE;
+        }
+        return gueltig;
+    }
+
+    /**
+     * Alle geplanten Fristen mit ihrer Restzeit, zum selben Stand der Uhr, in keiner bestimmten Reihenfolge.
+     * 
+     * @param schluessel - bekommt die Schlüssel
+     * @param restNanos - bekommt die Restzeiten, gleich lang wie schluessel
+     * @return Anzahl der geschriebenen Fristen, höchstens schluessel.length
+     */
+    public synchronized int alle(long[] schluessel, long[] restNanos) {
+        long jetzt = uhr;
+        int n = 0;
+        for (int i = 0; i < benutzt && n < schluessel.length; i++) {
+            if (fach[i] != LEER) {
+                schluessel[n] = this.schluessel[i];
+                restNanos[n] = faellig[i] - jetzt;
+                n++;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * @return Anzahl der geplanten Fristen
+     */
+    public synchronized int anzahl() {
+        return anzahl;
+    }
+
+    /**
+     * @return die gemeinsame Uhr: Nanosekunden seit dem Anlegen, Stand des letzten Takts
+     */
+    public long uhrNanos() {
+        return uhr;
+    }
+
+    /**
+     * @return die Länge eines Takts
+     */
+    public Duration getAufloesung() {
+        return Duration.ofNanos(taktNanos);
+    }
+
+    /**
+     * @return Anzahl der Ausnahmen aus {@link Ablauf#abgelaufen(long, long)}; sie unterbrechen das Melden nicht
+     */
+    public long getFehler() {
+        return fehler.get();
+    }
+
+    private void vorruecken(long zielTakt) {
+        while (aktuellerTakt < zielTakt) {
+            if (anzahl == 0) {
+                aktuellerTakt = zielTakt;
+                return;
+            }
+            long t = ++aktuellerTakt;
+            if ((t & MASKE) == 0L) {
+                kaskadieren(t);
+            }
+            int i = kopf[(int) (t & MASKE)];
+            while (i != LEER) {
+                int weiter = naechster[i];
+                vormerken(schluessel[i], faellig[i]);
+                freigeben(i);
+                i = weiter;
+            }
+            kopf[(int) (t & MASKE)] = LEER;
+        }
+    }
+
+    /**
+     * Sortiert die Fächer höherer Stufen, die mit Takt t an der Reihe sind, neu ein; von oben nach unten, damit jede
+     * Frist in diesem Durchgang bis zur richtigen Stufe durchfällt.
+     */
+    private void kaskadieren(long t) {
+        int stufe = 1;
+        while (stufe < STUFEN && (t & ((1L << (BITS * (stufe + 1))) - 1L)) == 0L) {
+            stufe++;
+        }
+        if (stufe == STUFEN) {
+            neuEinsortieren(UEBERLAUF);
+        }
+        for (int s = Math.min(stufe, STUFEN - 1); s >= 1; s--) {
+            neuEinsortieren(s * FAECHER + (int) ((t >>> (BITS * s)) & MASKE));
+        }
+    }
+
+    private void neuEinsortieren(int f) {
+        int i = kopf[f];
+        kopf[f] = LEER;
+        while (i != LEER) {
+            int weiter = naechster[i];
+            einhaengen(i);
+            i = weiter;
+        }
+    }
+
+    private void einhaengen(int i) {
+        long t = takt[i];
+        long unterschied = t ^ aktuellerTakt;
+        int stufe = unterschied == 0L ? 0 : (63 - Long.numberOfLeadingZeros(unterschied)) / BITS;
+        int f = stufe >= STUFEN ? UEBERLAUF : stufe * FAECHER + (int) ((t >>> (BITS * stufe)) & MASKE);
+        int alt = kopf[f];
+        naechster[i] = alt;
+        vorheriger[i] = LEER;
+        if (alt != LEER) {
+            vorheriger[alt] = i;
+        }
+        kopf[f] = i;
+        fach[i] = f;
+    }
+
+    private void aushaengen(int i) {
+        int n = naechster[i];
+        int v = vorheriger[i];
+        if (v == LEER) {
+            kopf[fach[i]] = n;
+        } else {
+            naechster[v] = n;
+        }
+        if (n != LEER) {
+            vorheriger[n] = v;
+        }
+    }
+
+    private int eintrag(long griff) {
+        int i = (int) griff;
+        if (i < 0 || i >= benutzt || generation[i] != (int) (griff >>> 32) || fach[i] == LEER) {
+            return LEER;
+        }
+        return i;
+    }
+
+    private int belege() {
+        if (freiKopf != LEER) {
+            int i = freiKopf;
+            freiKopf = naechster[i];
+            return i;
+        }
+        if (benutzt == faellig.length) {
+            int kapazitaet = benutzt * 2;
+            faellig = Arrays.copyOf(faellig, kapazitaet);
+            takt = Arrays.copyOf(takt, kapazitaet);
+            schluessel = Arrays.copyOf(schluessel, kapazitaet);
+            naechster = Arrays.copyOf(naechster, kapazitaet);
+            vorheriger = Arrays.copyOf(vorheriger, kapazitaet);
+            fach = Arrays.copyOf(fach, kapazitaet);
+            generation = Arrays.copyOf(generation, kapazitaet);
+        }
+        return benutzt++;
+    }
+
+    private void freigeben(int i) {
+        fach[i] = LEER;
+        generation[i]++;
+        naechster[i] = freiKopf;
+        freiKopf = i;
+        anzahl--;
+    }
+
+    private void vormerken(long s, long f) {
+        if (abgelaufenAnzahl == abgelaufenSchluessel.length) {
+            abgelaufenSchluessel = Arrays.copyOf(abgelaufenSchluessel, abgelaufenAnzahl * 2);
+            abgelaufenFaellig = Arrays.copyOf(abgelaufenFaellig, abgelaufenAnzahl * 2);
+        }
+        abgelaufenSchluessel[abgelaufenAnzahl] = s;
+        abgelaufenFaellig[abgelaufenAnzahl] = f;
+        abgelaufenAnzahl++;
+    }
+
+    /**
+     * Gibt die vorgemerkten Fristen in Paketen an den Executor, außerhalb der Sperre des Zeitrads.
+     */
+    private void melden() {
+        for (int von = 0; von < abgelaufenAnzahl; von += PAKET) {
+            int bis = Math.min(abgelaufenAnzahl, von + PAKET);
+            Runnable paket = new Paket(Arrays.copyOfRange(abgelaufenSchluessel, von, bis),
+                Arrays.copyOfRange(abgelaufenFaellig, von, bis));
+            try {
+                executor.execute(paket);
+            } catch (RejectedExecutionException e) {
+                paket.run(); // Executor beendet oder voll: im Takt-Thread melden
+            }
+        }
+        abgelaufenAnzahl = 0;
+    }
+
+    private final class Paket implements Runnable {
+
+        private final long[] schluessel;
+        private final long[] faellig;
+
+        Paket(long[] schluessel, long[] faellig) {
+            super();
+            this.schluessel = schluessel;
+            this.faellig = faellig;
+        }
+
+        @Override
+        public void run() {
+            for (int k = 0; k < schluessel.length; k++) {
+                try {
+                    ablauf.abgelaufen(schluessel[k], uhr - faellig[k]);
+                } catch (RuntimeException e) {
+                    fehler.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "FristenDienst [aufloesung=" + getAufloesung() + ", geplant=" + anzahl() + ", uhr="
+                + DauerFormat.KOMPAKT.format(ComfortableDuration.ofNanos(uhr)) + "]";
+    }
+}
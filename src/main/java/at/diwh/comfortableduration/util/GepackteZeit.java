@@ -0,0 +1,190 @@
+package at.diwh.comfortableduration.util;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.Temporal;
+
+/**
+ * Ein Datum oder Datum mit Uhrzeit, gepackt in einen long, dessen Reihenfolge die der Zeitpunkte ist:
+ * <li>Datum: Epoch-Tag, also LocalDate.toEpochDay()</li>
+ * <li>Datum mit Uhrzeit: Nanosekunden seit 1970-01-01T00:00 (lokal, ohne Zone), geht von ca. 1677 bis 2262</li>
+ * Statt 48 Bytes für ein LocalDateTime auf dem Heap sind es 8 Bytes, in einem long[] ohne eigenes Objekt. Vergleichen,
+ * Tagesbeginn/-ende und Dauer zwischen zwei Zeitpunkten gehen direkt auf dem long, ins java.time-Objekt wird erst bei
+ * Bedarf zurückgewandelt. Viele gepackte Zeitpunkte hält die {@link ZeitSpalte}.
+ * <br/> Ob ein long ein Datum oder eine Datum-Zeit ist, steht nicht im Wert, das muss der Aufrufer wissen - die beiden
+ * Arten lassen sich nicht miteinander vergleichen.
+ * 
+ * @author diwh
+ */
+public final class GepackteZeit {
+
+    private GepackteZeit() {
+        super();
+    }
+
+    /**
+     * @param datum - das Datum
+     * @return der Epoch-Tag
+     */
+    public static long ausDatum(LocalDate datum) {
+        return datum.toEpochDay();
+    }
+
+    /**
+     * @param zeit - Datum mit Uhrzeit zwischen ca. 1677 und 2262
+     * @return die lokalen Epoch-Nanosekunden
+     * @throws ArithmeticException außerhalb des Bereichs
+     */
+    public static long ausDatumZeit(LocalDateTime zeit) {
+        return Math.addExact(Math.multiplyExact(zeit.toEpochSecond(ZoneOffset.UTC),
+            ComfortableDuration.NANOS_PRO_SEKUNDE), zeit.getNano());
+    }
+
+    /**
+     * @param epochTag - gepacktes Datum
+     * @return das LocalDate
+     */
+    public static LocalDate zuDatum(long epochTag) {
+        return LocalDate.ofEpochDay(epochTag);
+    }
+
+    /**
+     * @param nanos - gepackte Datum-Zeit
+     * @return das LocalDateTime
+     */
+    public static LocalDateTime zuDatumZeit(long nanos) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(nanos, ComfortableDuration.NANOS_PRO_SEKUNDE),
+            (int) Math.floorMod(nanos, ComfortableDuration.NANOS_PRO_SEKUNDE), ZoneOffset.UTC);
+    }
+
+    /**
+     * Gepackter Wert für ein LocalDate oder LocalDateTime; ist das Temporal vom anderen Typ als erwartet, gibt es (wie
+     * bei istAvorB) eine ClassCastException.
+     * 
+     * @param t - der Zeitpunkt
+     * @param datumZeit - wahr, wenn ein LocalDateTime erwartet wird, sonst ein LocalDate
+     * @return der gepackte Wert
+     */
+    static long aus(Temporal t, boolean datumZeit) {
+        return datumZeit ? ausDatumZeit((LocalDateTime) t) : ausDatum((LocalDate) t);
+    }
+
+    /**
+     * Wie istAvorB, für zwei gepackte Zeitpunkte derselben Art.
+     */
+    public static boolean istVor(long a, long b) {
+        return a < b;
+    }
+
+    /**
+     * Wie istAnachB, für zwei gepackte Zeitpunkte derselben Art.
+     */
+    public static boolean istNach(long a, long b) {
+        return a > b;
+    }
+
+    /**
+     * Wie istAgleichB, für zwei gepackte Zeitpunkte derselben Art.
+     */
+    public static boolean istGleich(long a, long b) {
+        return a == b;
+    }
+
+    /**
+     * @param nanos - gepackte Datum-Zeit
+     * @return das Datum daraus als Epoch-Tag
+     */
+    public static long datum(long nanos) {
+        return Math.floorDiv(nanos, ComfortableDuration.NANOS_PRO_TAG);
+    }
+
+    /**
+     * Wie transformLocalDateToLocalDateTimeStartOfDay.
+     * 
+     * @param epochTag - gepacktes Datum
+     * @return gepackte Datum-Zeit um 00:00
+     */
+    public static long tagesbeginn(long epochTag) {
+        return Math.multiplyExact(epochTag, ComfortableDuration.NANOS_PRO_TAG);
+    }
+
+    /**
+     * Wie transformLocalDateToLocalDateTimeEndOfDay.
+     * 
+     * @param epochTag - gepacktes Datum
+     * @return gepackte Datum-Zeit um 23:59:59.999999999
+     */
+    public static long tagesende(long epochTag) {
+        return Math.addExact(tagesbeginn(epochTag), ComfortableDuration.NANOS_PRO_TAG - 1L);
+    }
+
+    /**
+     * @param nanos - gepackte Datum-Zeit
+     * @return derselbe Tag um 00:00
+     * @throws ArithmeticException wenn der Tagesbeginn vor dem Bereich liegt (erster Tag 1677)
+     */
+    public static long tagesbeginnVon(long nanos) {
+        return Math.subtractExact(nanos, Math.floorMod(nanos, ComfortableDuration.NANOS_PRO_TAG));
+    }
+
+    /**
+     * @param nanos - gepackte Datum-Zeit
+     * @return derselbe Tag um 23:59:59.999999999
+     * @throws ArithmeticException wenn das Tagesende nach dem Bereich liegt (letzter Tag 2262)
+     */
+    public static long tagesendeVon(long nanos) {
+        return Math.addExact(tagesbeginnVon(nanos), ComfortableDuration.NANOS_PRO_TAG - 1L);
+    }
+
+    /**
+     * Wie Duration.between(a, b), in Nanosekunden.
+     * 
+     * @param a - gepackte Datum-Zeit
+     * @param b - gepackte Datum-Zeit
+     * @return b - a in Nanosekunden
+     * @throws ArithmeticException wenn die Differenz nicht in einen long passt (ca. 292 Jahre)
+     */
+    public static long nanosZwischen(long a, long b) {
+        return Math.subtractExact(b, a);
+    }
+
+    /**
+     * Wie Duration.between(a, b).
+     * 
+     * @param a - gepackte Datum-Zeit
+     * @param b - gepackte Datum-Zeit
+     * @return die Duration
+     */
+    public static Duration dauerZwischen(long a, long b) {
+        return Duration.ofSeconds(Math.floorDiv(b, ComfortableDuration.NANOS_PRO_SEKUNDE)
+                - Math.floorDiv(a, ComfortableDuration.NANOS_PRO_SEKUNDE),
+            Math.floorMod(b, ComfortableDuration.NANOS_PRO_SEKUNDE)
+                    - Math.floorMod(a, ComfortableDuration.NANOS_PRO_SEKUNDE));
+    }
+
+    /**
+     * Wie new ComfortableDuration(Duration.between(a, b)).
+     * 
+     * @param a - gepackte Datum-Zeit
+     * @param b - gepackte Datum-Zeit
+     * @return die ComfortableDuration
+     */
+    public static ComfortableDuration comfortableDauerZwischen(long a, long b) {
+        long sekunden = Math.floorDiv(b, ComfortableDuration.NANOS_PRO_SEKUNDE)
+                - Math.floorDiv(a, ComfortableDuration.NANOS_PRO_SEKUNDE);
+        long nanos = Math.floorMod(b, ComfortableDuration.NANOS_PRO_SEKUNDE)
+                - Math.floorMod(a, ComfortableDuration.NANOS_PRO_SEKUNDE);
+        return ComfortableDuration.ofSekunden(sekunden, (int) nanos);
+    }
+
+    /**
+     * @param a - gepacktes Datum
+     * @param b - gepacktes Datum
+     * @return Tage von a bis b (wie ChronoUnit.DAYS.between)
+     */
+    public static long tageZwischen(long a, long b) {
+        return Math.subtractExact(b, a);
+    }
+}
@@ -0,0 +1,308 @@
+package at.diwh.comfortableduration.util;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.Temporal;
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * Unveränderlicher Index über viele Intervalle [beginn, ende], um schnell alle Intervalle zu finden, die eine Abfrage
+ * enthalten, in ihr liegen, sie überschneiden oder einen Zeitpunkt enthalten. Die Intervalle liegen als primitive
+ * long-Schlüssel nach Beginn sortiert vor; darüber liegt implizit ein balancierter Baum (Mitte des Bereichs ist der
+ * Knoten) mit dem größten und dem kleinsten Ende pro Teilbaum. Teilbäume ohne möglichen Treffer werden übersprungen,
+ * eine Abfrage kostet daher O(log n) ohne Treffer und höchstens O(log n) pro Treffer (bei dicht liegenden Treffern
+ * deutlich weniger), unabhängig davon, wie viele Intervalle nur nach Beginn in Frage kämen.
+ * <br/> Die Grenzen zählen dazu, genau wie bei {@link ComfortableDuration#istIntervallAinIntervallB(Temporal,
+ * Temporal, Temporal, Temporal)}: ein Intervall liegt in der Abfrage, wenn es gleich ist, gleich beginnt, gleich endet
+ * oder echt innerhalb liegt.
+ * <br/> Treffer werden als Index in die ursprünglichen Arrays geliefert (an einen IntConsumer, gezählt oder als
+ * int[]), ohne Boxing.
+ * 
+ * @author diwh
+ */
+public final class IntervallIndex {
+
+    private final long[] beginne;
+    private final long[] enden;
+    private final int[] ids;
+    // groesstesEnde[m] = größtes Ende im Teilbaum, dessen Knoten m ist
+    private final long[] groesstesEnde;
+    // kleinstesEnde[m] = kleinstes Ende im Teilbaum, dessen Knoten m ist
+    private final long[] kleinstesEnde;
+    // null bei reinen long-Schlüsseln, sonst LocalDate.class bzw. LocalDateTime.class
+    private final Class<?> typ;
+
+    private IntervallIndex(long[] beginne, long[] enden, Class<?> typ) {
+        super();
+        if (beginne.length != enden.length) {
+            throw new IllegalArgumentException(
+                "Beginne und Enden sind unterschiedlich lang: " + beginne.length + " / " + enden.length);
+        }
+        int n = beginne.length;
+        for (int i = 0; i < n; i++) {
+            if (beginne[i] > enden[i]) {
+                throw new IllegalArgumentException("Intervall " + i + " endet vor seinem Beginn");
+            }
+        }
+        this.ids = PrimitivSortierung.reihenfolge(beginne, enden, n);
+        this.beginne = new long[n];
+        this.enden = new long[n];
+        for (int i = 0; i < n; i++) {
+            this.beginne[i] = beginne[ids[i]];
+            this.enden[i] = enden[ids[i]];
+        }
+        this.groesstesEnde = new long[n];
+        this.kleinstesEnde = new long[n];
+        endenBerechnen(0, n);
+        this.typ = typ;
+    }
+
+    /**
+     * Baut den Index über long-Schlüssel (z.B. Epoch-Tage oder Epoch-Millis). Der Treffer-Index i bezieht sich auf
+     * beginne[i] / enden[i].
+     * 
+     * @param beginne - Beginn der Intervalle
+     * @param enden - Ende der Intervalle, gleich lang wie beginne
+     * @return der Index
+     */
+    public static IntervallIndex aus(long[] beginne, long[] enden) {
+        return new IntervallIndex(beginne, enden, null);
+    }
+
+    /**
+     * Baut den Index über LocalDate-Intervalle.
+     * 
+     * @param beginne - Beginn der Intervalle
+     * @param enden - Ende der Intervalle, gleich lang wie beginne
+     * @return der Index
+     */
+    public static IntervallIndex ausDatum(LocalDate[] beginne, LocalDate[] enden) {
+        long[] b = new long[beginne.length];
+        long[] e = new long[enden.length];
+        for (int i = 0; i < b.length; i++) {
+            b[i] = GepackteZeit.ausDatum(beginne[i]);
+        }
+        for (int i = 0; i < e.length; i++) {
+            e[i] = GepackteZeit.ausDatum(enden[i]);
+        }
+        return new IntervallIndex(b, e, LocalDate.class);
+    }
+
+    /**
+     * Baut den Index über LocalDateTime-Intervalle (zwischen ca. 1677 und 2262, siehe {@link GepackteZeit}).
+     * 
+     * @param beginne - Beginn der Intervalle
+     * @param enden - Ende der Intervalle, gleich lang wie beginne
+     * @return der Index
+     */
+    public static IntervallIndex ausDatumZeit(LocalDateTime[] beginne, LocalDateTime[] enden) {
+        long[] b = new long[beginne.length];
+        long[] e = new long[enden.length];
+        for (int i = 0; i < b.length; i++) {
+            b[i] = GepackteZeit.ausDatumZeit(beginne[i]);
+        }
+        for (int i = 0; i < e.length; i++) {
+            e[i] = GepackteZeit.ausDatumZeit(enden[i]);
+        }
+        return new IntervallIndex(b, e, LocalDateTime.class);
+    }
+
+    /**
+     * @return Anzahl der Intervalle im Index
+     */
+    public int groesse() {
+        return ids.length;
+    }
+
+    /**
+     * Alle Intervalle, die in [beginn, ende] liegen (istIntervallAinIntervallB(intervall, abfrage)).
+     * 
+     * @param beginn - Beginn der Abfrage
+     * @param ende - Ende der Abfrage
+     * @param treffer - bekommt den Index jedes Treffers
+     * @return Anzahl der Treffer
+     */
+    public int enthalten(long beginn, long ende, IntConsumer treffer) {
+        return sucheBereich(0, ids.length, ersterBeginnAb(beginn), ersterBeginnNach(ende), ende, treffer);
+    }
+
+    /**
+     * Alle Intervalle, die [beginn, ende] enthalten (istIntervallAinIntervallB(abfrage, intervall)).
+     * 
+     * @param beginn - Beginn der Abfrage
+     * @param ende - Ende der Abfrage
+     * @param treffer - bekommt den Index jedes Treffers
+     * @return Anzahl der Treffer
+     */
+    public int enthaltend(long beginn, long ende, IntConsumer treffer) {
+        return suche(0, ids.length, beginn, ende, treffer);
+    }
+
+    /**
+     * Alle Intervalle, die mit [beginn, ende] mindestens einen Zeitpunkt gemeinsam haben (auch nur eine Grenze).
+     * 
+     * @param beginn - Beginn der Abfrage
+     * @param ende - Ende der Abfrage
+     * @param treffer - bekommt den Index jedes Treffers
+     * @return Anzahl der Treffer
+     */
+    public int ueberschneidend(long beginn, long ende, IntConsumer treffer) {
+        return suche(0, ids.length, ende, beginn, treffer);
+    }
+
+    /**
+     * Alle Intervalle, die den Zeitpunkt enthalten (Grenzen eingeschlossen).
+     * 
+     * @param zeitpunkt - der Zeitpunkt
+     * @param treffer - bekommt den Index jedes Treffers
+     * @return Anzahl der Treffer
+     */
+    public int stechend(long zeitpunkt, IntConsumer treffer) {
+        return suche(0, ids.length, zeitpunkt, zeitpunkt, treffer);
+    }
+
+    /**
+     * Wie {@link #enthalten(long, long, IntConsumer)}, für einen Index über LocalDate oder LocalDateTime.
+     */
+    public int enthalten(Temporal beginn, Temporal ende, IntConsumer treffer) {
+        return enthalten(schluessel(beginn), schluessel(ende), treffer);
+    }
+
+    /**
+     * Wie {@link #enthaltend(long, long, IntConsumer)}, für einen Index über LocalDate oder LocalDateTime.
+     */
+    public int enthaltend(Temporal beginn, Temporal ende, IntConsumer treffer) {
+        return enthaltend(schluessel(beginn), schluessel(ende), treffer);
+    }
+
+    /**
+     * Wie {@link #ueberschneidend(long, long, IntConsumer)}, für einen Index über LocalDate oder LocalDateTime.
+     */
+    public int ueberschneidend(Temporal beginn, Temporal ende, IntConsumer treffer) {
+        return ueberschneidend(schluessel(beginn), schluessel(ende), treffer);
+    }
+
+    /**
+     * Wie {@link #stechend(long, IntConsumer)}, für einen Index über LocalDate oder LocalDateTime.
+     */
+    public int stechend(Temporal zeitpunkt, IntConsumer treffer) {
+        return stechend(schluessel(zeitpunkt), treffer);
+    }
+
+    /**
+     * Sammelt die Treffer einer Abfrage in ein int[], z.B. index.alsArray(a -> index.stechend(t, a)).
+     * 
+     * @param abfrage - bekommt einen IntConsumer, den sie an eine der Abfragemethoden weiterreicht
+     * @return die Indizes der Treffer, aufsteigend nach Beginn der Intervalle
+     */
+    public static int[] alsArray(Consumer<IntConsumer> abfrage) {
+        final int[][] puffer = { new int[16] };
+        final int[] anzahl = { 0 };
+        abfrage.accept(new IntConsumer() {
+            @Override
+            public void accept(int id) {
+                if (anzahl[0] == puffer[0].length) {
+                    puffer[0] = Arrays.copyOf(puffer[0], anzahl[0] * 2);
+                }
+                puffer[0][anzahl[0]++] = id;
+            }
+        });
+        return Arrays.copyOf(puffer[0], anzahl[0]);
+    }
+
+    private long schluessel(Temporal t) {
+        if (typ == null) {
+            throw new IllegalStateException("Der Index wurde mit long-Schlüsseln gebaut");
+        }
+        return GepackteZeit.aus(t, typ == LocalDateTime.class);
+    }
+
+    /**
+     * Alle Intervalle im Bereich [von, bis) mit beginn <= hoechsterBeginn und ende >= kleinstesEnde.
+     */
+    private int suche(int von, int bis, long hoechsterBeginn, long kleinstesEnde, IntConsumer treffer) {
+        if (von >= bis || beginne[von] > hoechsterBeginn) {
+            return 0;
+        }
+        int mitte = (von + bis) >>> 1;
+        if (groesstesEnde[mitte] < kleinstesEnde) {
+            return 0; // kein Intervall im Teilbaum reicht weit genug
+        }
+        int anzahl = suche(von, mitte, hoechsterBeginn, kleinstesEnde, treffer);
+        if (beginne[mitte] > hoechsterBeginn) {
+            return anzahl; // alle weiteren beginnen noch später
+        }
+        if (enden[mitte] >= kleinstesEnde) {
+            anzahl++;
+            if (treffer != null) {
+                treffer.accept(ids[mitte]);
+            }
+        }
+        return anzahl + suche(mitte + 1, bis, hoechsterBeginn, kleinstesEnde, treffer);
+    }
+
+    /**
+     * Alle Intervalle im Bereich [von, bis), deren Position in [ab, vor) liegt (Beginn passt) und deren Ende
+     * höchstens hoechstesEnde ist.
+     */
+    private int sucheBereich(int von, int bis, int ab, int vor, long hoechstesEnde, IntConsumer treffer) {
+        if (von >= bis || bis <= ab || von >= vor) {
+            return 0;
+        }
+        int mitte = (von + bis) >>> 1;
+        if (kleinstesEnde[mitte] > hoechstesEnde) {
+            return 0; // jedes Intervall im Teilbaum endet zu spät
+        }
+        int anzahl = sucheBereich(von, mitte, ab, vor, hoechstesEnde, treffer);
+        if (mitte >= ab && mitte < vor && enden[mitte] <= hoechstesEnde) {
+            anzahl++;
+            if (treffer != null) {
+                treffer.accept(ids[mitte]);
+            }
+        }
+        return anzahl + sucheBereich(mitte + 1, bis, ab, vor, hoechstesEnde, treffer);
+    }
+
+    private void endenBerechnen(int von, int bis) {
+        if (von >= bis) {
+            return;
+        }
+        int mitte = (von + bis) >>> 1;
+        endenBerechnen(von, mitte);
+        endenBerechnen(mitte + 1, bis);
+        long max = enden[mitte];
+        long min = enden[mitte];
+        int links = (von + mitte) >>> 1;
+        if (von < mitte) {
+            max = Math.max(max, groesstesEnde[links]);
+            min = Math.min(min, kleinstesEnde[links]);
+        }
+        int rechts = (mitte + 1 + bis) >>> 1;
+        if (mitte + 1 < bis) {
+            max = Math.max(max, groesstesEnde[rechts]);
+            min = Math.min(min, kleinstesEnde[rechts]);
+        }
+        groesstesEnde[mitte] = max;
+        kleinstesEnde[mitte] = min;
+    }
+
+    private int ersterBeginnAb(long wert) {
+        int von = 0;
+        int bis = beginne.length;
+        while (von < bis) {
+            int mitte = (von + bis) >>> 1;
+            if (beginne[mitte] < wert) {
+                von = mitte + 1;
+            } else {
+                bis = mitte;
+            }
+        }
+        return von;
+    }
+
+    private int ersterBeginnNach(long wert) {
+        return wert == Long.MAX_VALUE ? beginne.length : ersterBeginnAb(wert + 1);
+    }
+}
@@ -0,0 +1,331 @@
+package at.diwh.comfortableduration.util;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+/**
+ * Unveränderliche, normalisierte Menge von Zeitintervallen: nach Beginn sortiert, ohne Überschneidungen, aneinander
+ * stoßende Intervalle sind verschmolzen. Intern sind das zwei long-Arrays (Beginn, Ende) in Nanosekunden seit
+ * 1970-01-01T00:00 lokaler Zeit, siehe {@link GepackteZeit}.
+ * <br/> Ein Intervall reicht von beginn bis ende, das Ende selbst gehört nicht mehr dazu (wie bei Duration.between):
+ * 08:00-12:00 und 12:00-13:00 ergeben zusammen 08:00-13:00 und 5 Stunden. Leere Intervalle (beginn = ende) fallen weg.
+ * <br/> Ein LocalDate-Intervall umfasst beide Tage ganz, also von transformLocalDateToLocalDateTimeStartOfDay(beginn)
+ * bis einschließlich transformLocalDateToLocalDateTimeEndOfDay(ende).
+ * <br/> Vereinigung, Schnitt, Differenz und Lücken sind je ein Durchlauf über beide (sortierten) Mengen, O(n + m);
+ * das Normalisieren unsortierter Eingaben kostet O(n log n). Für viele Mengen auf einmal (z.B. pro Mitarbeiter) siehe
+ * {@link IntervallMengen}.
+ * 
+ * @author diwh
+ */
+public final class IntervallMenge {
+
+    /** Die leere Menge */
+    public static final IntervallMenge LEER = new IntervallMenge(new long[0], new long[0]);
+
+    private final long[] beginne;
+    private final long[] enden;
+
+    private IntervallMenge(long[] beginne, long[] enden) {
+        super();
+        this.beginne = beginne;
+        this.enden = enden;
+    }
+
+    /**
+     * Normalisiert beliebige (unsortierte, überlappende) Intervalle in Nanosekunden.
+     * 
+     * @param beginne - Beginn der Intervalle
+     * @param enden - Ende der Intervalle (exklusiv), gleich lang wie beginne
+     * @return die normalisierte Menge
+     */
+    public static IntervallMenge aus(long[] beginne, long[] enden) {
+        pruefe(beginne, enden);
+        int[] reihenfolge = PrimitivSortierung.reihenfolge(beginne, null, beginne.length);
+        return verschmelzen(beginne, enden, reihenfolge, 0, reihenfolge.length);
+    }
+
+    /**
+     * Normalisiert beliebige LocalDateTime-Intervalle.
+     * 
+     * @param beginne - Beginn der Intervalle
+     * @param enden - Ende der Intervalle (exklusiv), gleich lang wie beginne
+     * @return die normalisierte Menge
+     */
+    public static IntervallMenge ausDatumZeit(LocalDateTime[] beginne, LocalDateTime[] enden) {
+        long[] b = new long[beginne.length];
+        long[] e = new long[enden.length];
+        for (int i = 0; i < b.length; i++) {
+            b[i] = GepackteZeit.ausDatumZeit(beginne[i]);
+        }
+        for (int i = 0; i < e.length; i++) {
+            e[i] = GepackteZeit.ausDatumZeit(enden[i]);
+        }
+        return aus(b, e);
+    }
+
+    /**
+     * Normalisiert beliebige LocalDate-Intervalle, beide Grenztage zählen ganz dazu.
+     * 
+     * @param beginne - erster Tag der Intervalle
+     * @param enden - letzter Tag der Intervalle (inklusive), gleich lang wie beginne
+     * @return die normalisierte Menge
+     */
+    public static IntervallMenge ausDatum(LocalDate[] beginne, LocalDate[] enden) {
+        long[] b = new long[beginne.length];
+        long[] e = new long[enden.length];
+        for (int i = 0; i < b.length; i++) {
+            b[i] = GepackteZeit.ausDatumZeit(
+                ComfortableDuration.transformLocalDateToLocalDateTimeStartOfDay(beginne[i]));
+        }
+        for (int i = 0; i < e.length; i++) {
+            e[i] = GepackteZeit.ausDatumZeit(
+                ComfortableDuration.transformLocalDateToLocalDateTimeStartOfDay(enden[i].plusDays(1)));
+        }
+        return aus(b, e);
+    }
+
+    /**
+     * @return Anzahl der (disjunkten) Intervalle
+     */
+    public int anzahl() {
+        return beginne.length;
+    }
+
+    /**
+     * @param i - 0 bis anzahl() - 1
+     * @return Beginn des i-ten Intervalls in Nanosekunden
+     */
+    public long beginn(int i) {
+        return beginne[i];
+    }
+
+    /**
+     * @param i - 0 bis anzahl() - 1
+     * @return Ende (exklusiv) des i-ten Intervalls in Nanosekunden
+     */
+    public long ende(int i) {
+        return enden[i];
+    }
+
+    /**
+     * @param i - 0 bis anzahl() - 1
+     * @return Beginn des i-ten Intervalls als LocalDateTime
+     */
+    public LocalDateTime beginnAlsDatumZeit(int i) {
+        return GepackteZeit.zuDatumZeit(beginne[i]);
+    }
+
+    /**
+     * @param i - 0 bis anzahl() - 1
+     * @return Ende (exklusiv) des i-ten Intervalls als LocalDateTime
+     */
+    public LocalDateTime endeAlsDatumZeit(int i) {
+        return GepackteZeit.zuDatumZeit(enden[i]);
+    }
+
+    /**
+     * @return die Summe aller Intervalllängen in Nanosekunden
+     */
+    public long gesamtNanos() {
+        long summe = 0L;
+        for (int i = 0; i < beginne.length; i++) {
+            summe = Math.addExact(summe, enden[i] - beginne[i]);
+        }
+        return summe;
+    }
+
+    /**
+     * @return die gesamte abgedeckte Zeit
+     */
+    public ComfortableDuration gesamtdauer() {
+        return ComfortableDuration.ofNanos(gesamtNanos());
+    }
+
+    /**
+     * Prüft, ob der Zeitpunkt in einem der Intervalle liegt.
+     * 
+     * @param zeitpunkt - in Nanosekunden
+     * @return wahr, wenn beginn <= zeitpunkt < ende für ein Intervall gilt
+     */
+    public boolean enthaelt(long zeitpunkt) {
+        int i = Arrays.binarySearch(beginne, zeitpunkt);
+        if (i >= 0) {
+            return true;
+        }
+        int vorher = -(i + 1) - 1;
+        return vorher >= 0 && zeitpunkt < enden[vorher];
+    }
+
+    /**
+     * @param andere - zweite Menge
+     * @return alles, was in dieser oder der anderen Menge liegt
+     */
+    public IntervallMenge vereinigung(IntervallMenge andere) {
+        if (andere.anzahl() == 0) {
+            return this;
+        }
+        if (anzahl() == 0) {
+            return andere;
+        }
+        Ergebnis ergebnis = new Ergebnis(anzahl() + andere.anzahl());
+        int i = 0;
+        int j = 0;
+        while (i < beginne.length || j < andere.beginne.length) {
+            if (j >= andere.beginne.length || (i < beginne.length && beginne[i] <= andere.beginne[j])) {
+                ergebnis.anhaengen(beginne[i], enden[i]);
+                i++;
+            } else {
+                ergebnis.anhaengen(andere.beginne[j], andere.enden[j]);
+                j++;
+            }
+        }
+        return ergebnis.menge();
+    }
+
+    /**
+     * @param andere - zweite Menge
+     * @return alles, was in beiden Mengen liegt
+     */
+    public IntervallMenge schnitt(IntervallMenge andere) {
+        Ergebnis ergebnis = new Ergebnis(anzahl() + andere.anzahl());
+        int i = 0;
+        int j = 0;
+        while (i < beginne.length && j < andere.beginne.length) {
+            long beginn = Math.max(beginne[i], andere.beginne[j]);
+            long ende = Math.min(enden[i], andere.enden[j]);
+            if (beginn < ende) {
+                ergebnis.anhaengen(beginn, ende);
+            }
+            if (enden[i] < andere.enden[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return ergebnis.menge();
+    }
+
+    /**
+     * @param andere - abzuziehende Menge
+     * @return alles, was in dieser, aber nicht in der anderen Menge liegt
+     */
+    public IntervallMenge differenz(IntervallMenge andere) {
+        if (andere.anzahl() == 0 || anzahl() == 0) {
+            return this;
+        }
+        Ergebnis ergebnis = new Ergebnis(anzahl() + andere.anzahl());
+        int j = 0;
+        for (int i = 0; i < beginne.length; i++) {
+            long beginn = beginne[i];
+            long ende = enden[i];
+            while (j < andere.beginne.length && andere.enden[j] <= beginn) {
+                j++;
+            }
+            int k = j;
+            while (k < andere.beginne.length && andere.beginne[k] < ende) {
+                if (andere.beginne[k] > beginn) {
+                    ergebnis.anhaengen(beginn, andere.beginne[k]);
+                }
+                beginn = Math.max(beginn, andere.enden[k]);
+                k++;
+            }
+            if (beginn < ende) {
+                ergebnis.anhaengen(beginn, ende);
+            }
+        }
+        return ergebnis.menge();
+    }
+
+    /**
+     * Die nicht abgedeckten Zeiten innerhalb eines Fensters, z.B. eines Arbeitstages.
+     * 
+     * @param fensterBeginn - Beginn des Fensters in Nanosekunden
+     * @param fensterEnde - Ende (exklusiv) des Fensters in Nanosekunden
+     * @return die Lücken
+     */
+    public IntervallMenge luecken(long fensterBeginn, long fensterEnde) {
+        if (fensterBeginn >= fensterEnde) {
+            return LEER;
+        }
+        return new IntervallMenge(new long[] { fensterBeginn }, new long[] { fensterEnde }).differenz(this);
+    }
+
+    /**
+     * Wie {@link #luecken(long, long)} mit LocalDateTime-Grenzen.
+     */
+    public IntervallMenge luecken(LocalDateTime fensterBeginn, LocalDateTime fensterEnde) {
+        return luecken(GepackteZeit.ausDatumZeit(fensterBeginn), GepackteZeit.ausDatumZeit(fensterEnde));
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < beginne.length; i++) {
+            builder.append('[').append(beginnAlsDatumZeit(i)).append(", ").append(endeAlsDatumZeit(i)).append(") ");
+        }
+        return builder.toString().trim();
+    }
+
+    static void pruefe(long[] beginne, long[] enden) {
+        if (beginne.length != enden.length) {
+            throw new IllegalArgumentException(
+                "Beginne und Enden sind unterschiedlich lang: " + beginne.length + " / " + enden.length);
+        }
+        for (int i = 0; i < beginne.length; i++) {
+            if (beginne[i] > enden[i]) {
+                throw new IllegalArgumentException("Intervall " + i + " endet vor seinem Beginn");
+            }
+        }
+    }
+
+    /**
+     * Verschmilzt die Intervalle reihenfolge[von..bis), die nach Beginn sortiert sein müssen, in einem Durchlauf.
+     */
+    static IntervallMenge verschmelzen(long[] beginne, long[] enden, int[] reihenfolge, int von, int bis) {
+        Ergebnis ergebnis = new Ergebnis(bis - von);
+        for (int i = von; i < bis; i++) {
+            ergebnis.anhaengen(beginne[reihenfolge[i]], enden[reihenfolge[i]]);
+        }
+        return ergebnis.menge();
+    }
+
+    /**
+     * Sammelt nach Beginn sortiert angehängte Intervalle und verschmilzt dabei überlappende und aneinander stoßende.
+     */
+    private static final class Ergebnis {
+
+        private long[] beginne;
+        private long[] enden;
+        private int anzahl;
+
+        Ergebnis(int kapazitaet) {
+            beginne = new long[Math.max(kapazitaet, 1)];
+            enden = new long[Math.max(kapazitaet, 1)];
+        }
+
+        void anhaengen(long beginn, long ende) {
+            if (beginn >= ende) {
+                return;
+            }
+            if (anzahl > 0 && beginn <= enden[anzahl - 1]) {
+                enden[anzahl - 1] = Math.max(enden[anzahl - 1], ende);
+                return;
+            }
+            if (anzahl == beginne.length) {
+                beginne = Arrays.copyOf(beginne, anzahl * 2);
+                enden = Arrays.copyOf(enden, anzahl * 2);
+            }
+            beginne[anzahl] = beginn;
+            enden[anzahl] = ende;
+            anzahl++;
+        }
+
+        IntervallMenge menge() {
+            if (anzahl == 0) {
+                return LEER;
+            }
+            return new IntervallMenge(Arrays.copyOf(beginne, anzahl), Arrays.copyOf(enden, anzahl));
+        }
+    }
+}
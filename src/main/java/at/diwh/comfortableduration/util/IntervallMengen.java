@@ -0,0 +1,149 @@
+package at.diwh.comfortableduration.util;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Viele {@link IntervallMenge}n auf einmal, nach einem long-Schlüssel (z.B. Mitarbeiternummer) getrennt. Die Eingabe
+ * sind drei parallele Arrays (Schlüssel, Beginn, Ende) in beliebiger Reihenfolge; sie werden einmal nach Schlüssel
+ * und Beginn sortiert, danach wird jeder Schlüssel für sich (und parallel zu den anderen) verschmolzen.
+ * <br/> Die Operationen mit einem Fenster oder einer zweiten Menge gibt es hier pro Schlüssel, ebenfalls parallel.
+ * 
+ * @author diwh
+ */
+public final class IntervallMengen {
+
+    private final long[] schluessel;
+    private final IntervallMenge[] mengen;
+
+    private IntervallMengen(long[] schluessel, IntervallMenge[] mengen) {
+        super();
+        this.schluessel = schluessel;
+        this.mengen = mengen;
+    }
+
+    /**
+     * Normalisiert die Intervalle pro Schlüssel.
+     * 
+     * @param schluessel - z.B. Mitarbeiternummer je Buchung
+     * @param beginne - Beginn je Buchung in Nanosekunden
+     * @param enden - Ende (exklusiv) je Buchung in Nanosekunden
+     * @param parallel - wahr, wenn die Schlüssel im ForkJoinPool.commonPool() parallel verschmolzen werden sollen
+     * @return die Mengen pro Schlüssel
+     */
+    public static IntervallMengen nachSchluessel(long[] schluessel, long[] beginne, long[] enden, boolean parallel) {
+        IntervallMenge.pruefe(beginne, enden);
+        if (schluessel.length != beginne.length) {
+            throw new IllegalArgumentException(
+                "Schlüssel und Intervalle sind unterschiedlich lang: " + schluessel.length + " / " + beginne.length);
+        }
+        final int[] reihenfolge = PrimitivSortierung.reihenfolge(schluessel, beginne, schluessel.length);
+        // Grenzen der Gruppen: gruppe g umfasst reihenfolge[grenzen[g] .. grenzen[g + 1])
+        int[] grenzen = new int[schluessel.length + 1];
+        int gruppen = 0;
+        for (int i = 0; i < reihenfolge.length; i++) {
+            if (i == 0 || schluessel[reihenfolge[i]] != schluessel[reihenfolge[i - 1]]) {
+                grenzen[gruppen++] = i;
+            }
+        }
+        grenzen[gruppen] = reihenfolge.length;
+        final int[] g = grenzen;
+        final long[] schluesselJeGruppe = new long[gruppen];
+        final IntervallMenge[] mengen = new IntervallMenge[gruppen];
+        IntStream bereich = IntStream.range(0, gruppen);
+        if (parallel) {
+            bereich = bereich.parallel();
+        }
+        bereich.forEach(i -> {
+            schluesselJeGruppe[i] = schluessel[reihenfolge[g[i]]];
+            mengen[i] = IntervallMenge.verschmelzen(beginne, enden, reihenfolge, g[i], g[i + 1]);
+        });
+        return new IntervallMengen(schluesselJeGruppe, mengen);
+    }
+
+    /**
+     * @return Anzahl der unterschiedlichen Schlüssel
+     */
+    public int anzahl() {
+        return schluessel.length;
+    }
+
+    /**
+     * @param i - 0 bis anzahl() - 1, aufsteigend nach Schlüssel
+     * @return der i-te Schlüssel
+     */
+    public long schluessel(int i) {
+        return schluessel[i];
+    }
+
+    /**
+     * @param i - 0 bis anzahl() - 1, aufsteigend nach Schlüssel
+     * @return die Menge zum i-ten Schlüssel
+     */
+    public IntervallMenge menge(int i) {
+        return mengen[i];
+    }
+
+    /**
+     * @param wert - ein Schlüssel
+     * @return die Menge zum Schlüssel, oder die leere Menge wenn es dafür keine Intervalle gibt
+     */
+    public IntervallMenge mengeZu(long wert) {
+        int i = Arrays.binarySearch(schluessel, wert);
+        return i >= 0 ? mengen[i] : IntervallMenge.LEER;
+    }
+
+    /**
+     * @return die abgedeckte Zeit pro Schlüssel in Nanosekunden, gleiche Reihenfolge wie {@link #schluessel(int)}
+     */
+    public long[] gesamtNanos() {
+        long[] ergebnis = new long[mengen.length];
+        for (int i = 0; i < mengen.length; i++) {
+            ergebnis[i] = mengen[i].gesamtNanos();
+        }
+        return ergebnis;
+    }
+
+    /**
+     * @param wert - ein Schlüssel
+     * @return die gesamte abgedeckte Zeit zu dem Schlüssel
+     */
+    public ComfortableDuration gesamtdauer(long wert) {
+        return mengeZu(wert).gesamtdauer();
+    }
+
+    /**
+     * Die Lücken pro Schlüssel innerhalb desselben Fensters.
+     * 
+     * @param fensterBeginn - Beginn des Fensters in Nanosekunden
+     * @param fensterEnde - Ende (exklusiv) des Fensters in Nanosekunden
+     * @param parallel - wahr, wenn parallel gerechnet werden soll
+     * @return die Lücken pro Schlüssel (gleiche Schlüssel wie hier)
+     */
+    public IntervallMengen luecken(final long fensterBeginn, final long fensterEnde, boolean parallel) {
+        final IntervallMenge[] ergebnis = new IntervallMenge[mengen.length];
+        IntStream bereich = IntStream.range(0, mengen.length);
+        if (parallel) {
+            bereich = bereich.parallel();
+        }
+        bereich.forEach(i -> ergebnis[i] = mengen[i].luecken(fensterBeginn, fensterEnde));
+        return new IntervallMengen(schluessel, ergebnis);
+    }
+
+    /**
+     * Schneidet jede Menge mit derselben Menge, z.B. den Sollarbeitszeiten.
+     * 
+     * @param andere - die Menge, mit der geschnitten wird
+     * @param parallel - wahr, wenn parallel gerechnet werden soll
+     * @return die Schnitte pro Schlüssel (gleiche Schlüssel wie hier)
+     */
+    public IntervallMengen schnitt(final IntervallMenge andere, boolean parallel) {
+        final IntervallMenge[] ergebnis = new IntervallMenge[mengen.length];
+        IntStream bereich = IntStream.range(0, mengen.length);
+        if (parallel) {
+            bereich = bereich.parallel();
+        }
+        bereich.forEach(i -> ergebnis[i] = mengen[i].schnitt(andere));
+        return new IntervallMengen(schluessel, ergebnis);
+    }
+}
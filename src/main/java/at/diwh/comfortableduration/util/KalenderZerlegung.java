@@ -0,0 +1,334 @@
+package at.diwh.comfortableduration.util;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.stream.IntStream;
+
+/**
+ * Zerlegung einer Zeitspanne ab einem Anker in Jahre, Monate, Wochen, Tage, Stunden, Minuten, Sekunden,
+ * Nanosekunden, genau über Monatslängen und Schaltjahre: Jahre und Monate wie bei Period.between (ein Monat ist vom
+ * 31.1. bis zum 29.2. bzw. 28.2. erreicht), die übrigen Tage als Wochen und Tage, dazu die Uhrzeit wie bei
+ * ComfortableDuration.
+ * <br/> <b>Beispiel:</b> PT1990H40M32.025S ab 2021-01-01T00:00 -> Jahre : 0, Monate : 2, Wochen : 3, Tage : 2,
+ * Stunden : 22, Minuten : 40, Sekunden : 32, Nanosekunden : 25000000
+ * <br/> Gerechnet wird nur mit Epoch-Tagen (Umrechnung in Jahr/Monat/Tag geschlossen, ohne LocalDate), die
+ * Massenvariante {@link #zerlegeAlle(long[], long[], int, long[])} legt keine Objekte an und merkt sich den letzten
+ * Anker. Liegt das Ende vor dem Anker, sind alle Teile negativ (die Zerlegung vom Ende bis zum Anker).
+ * 
+ * @author diwh
+ */
+public final class KalenderZerlegung {
+
+    /** Anzahl der Werte pro Zerlegung in den Arrays der Massenvariante */
+    public static final int FELDER = 8;
+
+    /** Index in den Arrays der Massenvariante */
+    public static final int JAHRE = 0;
+    public static final int MONATE = 1;
+    public static final int WOCHEN = 2;
+    public static final int TAGE = 3;
+    public static final int STUNDEN = 4;
+    public static final int MINUTEN = 5;
+    public static final int SEKUNDEN = 6;
+    public static final int NANOS = 7;
+
+    /**
+     * Ab so vielen Paaren wird parallel gerechnet.
+     */
+    public static final int PARALLEL_AB = 1 << 16;
+
+    private static final int TEILSTUECK = 1 << 12;
+
+    // 0000-03-01 bis 1970-01-01
+    private static final long TAGE_BIS_1970 = 719468L;
+    private static final long TAGE_PRO_400_JAHRE = 146097L;
+
+    // Epoch-Tag jedes Monatsanfangs von 1900 bis 2200, dazwischen ohne Division
+    private static final long TABELLE_AB_MONAT = 1900L * 12L;
+    private static final int TABELLE_MONATE = 301 * 12;
+    private static final long[] MONATSANFANG = new long[TABELLE_MONATE + 1];
+    private static final double MONATE_PRO_TAG = 12.0 / 365.2425;
+
+    static {
+        for (int i = 0; i <= TABELLE_MONATE; i++) {
+            MONATSANFANG[i] = epochTag(TABELLE_AB_MONAT + i, 1L);
+        }
+    }
+
+    private final long[] werte;
+
+    private KalenderZerlegung(long[] werte) {
+        super();
+        this.werte = werte;
+    }
+
+    /**
+     * @param anker - Beginn
+     * @param ende - Ende
+     * @return die Zerlegung von anker bis ende
+     */
+    public static KalenderZerlegung zwischen(LocalDateTime anker, LocalDateTime ende) {
+        long[] werte = new long[FELDER];
+        zerlege(anker.toLocalDate().toEpochDay(), anker.toLocalTime().toNanoOfDay(), ende.toLocalDate().toEpochDay(),
+            ende.toLocalTime().toNanoOfDay(), werte, 0, neuerMerker());
+        return new KalenderZerlegung(werte);
+    }
+
+    /**
+     * @param anker - Beginn
+     * @param ende - Ende
+     * @return die Zerlegung von anker bis ende (ohne Uhrzeit)
+     */
+    public static KalenderZerlegung zwischen(LocalDate anker, LocalDate ende) {
+        long[] werte = new long[FELDER];
+        zerlege(anker.toEpochDay(), 0L, ende.toEpochDay(), 0L, werte, 0, neuerMerker());
+        return new KalenderZerlegung(werte);
+    }
+
+    /**
+     * @param anker - Beginn
+     * @param gesamtSekunden - Dauer in Sekunden wie Duration.getSeconds()
+     * @param nanos - 0 bis 999 999 999
+     * @return die Zerlegung von anker bis anker + Dauer
+     */
+    static KalenderZerlegung ab(LocalDateTime anker, long gesamtSekunden, int nanos) {
+        long ankerTag = anker.toLocalDate().toEpochDay();
+        long ankerZeit = anker.toLocalTime().toNanoOfDay();
+        long endeZeit = ankerZeit + Math.floorMod(gesamtSekunden, ComfortableDuration.SEKUNDEN_PRO_TAG)
+                * ComfortableDuration.NANOS_PRO_SEKUNDE + nanos;
+        long endeTag = ankerTag + Math.floorDiv(gesamtSekunden, ComfortableDuration.SEKUNDEN_PRO_TAG)
+                + endeZeit / ComfortableDuration.NANOS_PRO_TAG;
+        long[] werte = new long[FELDER];
+        zerlege(ankerTag, ankerZeit, endeTag, endeZeit % ComfortableDuration.NANOS_PRO_TAG, werte, 0, neuerMerker());
+        return new KalenderZerlegung(werte);
+    }
+
+    /**
+     * Zerlegt viele Paare (Anker, Ende) auf einmal, ohne Objekte anzulegen. Pro Paar landen {@link #FELDER} Werte
+     * hintereinander in ziel (Index {@link #JAHRE} bis {@link #NANOS}). Gleiche Anker hintereinander (z.B. alle
+     * Verträge ab einem Stichtag) werden nur einmal in Jahr/Monat/Tag umgerechnet. Ab {@link #PARALLEL_AB} Paaren wird
+     * parallel gerechnet.
+     * 
+     * @param anker - Anker als lokale Epoch-Nanosekunden ({@link GepackteZeit#ausDatumZeit(LocalDateTime)})
+     * @param ende - Ende als lokale Epoch-Nanosekunden
+     * @param anzahl - wie viele Paare
+     * @param ziel - mindestens FELDER * anzahl lang
+     */
+    public static void zerlegeAlle(long[] anker, long[] ende, int anzahl, long[] ziel) {
+        zerlegeAlle(anker, ende, anzahl, ziel, true);
+    }
+
+    /**
+     * Wie {@link #zerlegeAlle(long[], long[], int, long[])}, für Datumswerte ohne Uhrzeit.
+     * 
+     * @param ankerTage - Anker als Epoch-Tage (LocalDate.toEpochDay())
+     * @param endeTage - Ende als Epoch-Tage
+     * @param anzahl - wie viele Paare
+     * @param ziel - mindestens FELDER * anzahl lang
+     */
+    public static void zerlegeAlleTage(long[] ankerTage, long[] endeTage, int anzahl, long[] ziel) {
+        zerlegeAlle(ankerTage, endeTage, anzahl, ziel, false);
+    }
+
+    private static void zerlegeAlle(long[] anker, long[] ende, int anzahl, long[] ziel, boolean mitZeit) {
+        if (anker.length < anzahl || ende.length < anzahl || ziel.length / FELDER < anzahl) {
+            throw new IllegalArgumentException("Arrays zu kurz für " + anzahl + " Paare");
+        }
+        if (anzahl < PARALLEL_AB) {
+            zerlegeTeil(anker, ende, 0, anzahl, ziel, mitZeit);
+            return;
+        }
+        int teile = (anzahl + TEILSTUECK - 1) / TEILSTUECK;
+        IntStream.range(0, teile).parallel().forEach(t -> zerlegeTeil(anker, ende, t * TEILSTUECK,
+            Math.min(anzahl, (t + 1) * TEILSTUECK), ziel, mitZeit));
+    }
+
+    /**
+     * @return leerer Merker für den letzten Anker: [0] Epoch-Tag des gemerkten Ankers (Long.MIN_VALUE = keiner, 0 ist
+     *         der 1.1.1970), [1] Jahr*12+Monat-1, [2] Tag im Monat
+     */
+    private static long[] neuerMerker() {
+        return new long[] { Long.MIN_VALUE, 0L, 0L };
+    }
+
+    private static void zerlegeTeil(long[] anker, long[] ende, int von, int bis, long[] ziel, boolean mitZeit) {
+        long[] merker = neuerMerker();
+        for (int i = von; i < bis; i++) {
+            if (mitZeit) {
+                // Rest über Multiplikation statt einer zweiten Division
+                long ankerTag = Math.floorDiv(anker[i], ComfortableDuration.NANOS_PRO_TAG);
+                long endeTag = Math.floorDiv(ende[i], ComfortableDuration.NANOS_PRO_TAG);
+                zerlege(ankerTag, anker[i] - ankerTag * ComfortableDuration.NANOS_PRO_TAG, endeTag,
+                    ende[i] - endeTag * ComfortableDuration.NANOS_PRO_TAG, ziel, i * FELDER, merker);
+            } else {
+                zerlege(anker[i], 0L, ende[i], 0L, ziel, i * FELDER, merker);
+            }
+        }
+    }
+
+    /**
+     * Der Kern: schreibt die acht Teile ab ziel[pos].
+     */
+    private static void zerlege(long ankerTag, long ankerZeit, long endeTag, long endeZeit, long[] ziel, int pos,
+            long[] merker) {
+        boolean negativ = endeTag < ankerTag || (endeTag == ankerTag && endeZeit < ankerZeit);
+        long vonTag = negativ ? endeTag : ankerTag;
+        long vonZeit = negativ ? endeZeit : ankerZeit;
+        long bisTag = negativ ? ankerTag : endeTag;
+        long bisZeit = negativ ? ankerZeit : endeZeit;
+        if (bisZeit < vonZeit) {
+            bisTag--;
+            bisZeit += ComfortableDuration.NANOS_PRO_TAG;
+        }
+        if (merker[0] != vonTag) {
+            long ymd = jahrMonatTag(vonTag);
+            merker[0] = vonTag;
+            merker[1] = ymd >> 5;
+            merker[2] = ymd & 31L;
+        }
+        long vonMonat = merker[1];
+        long vonTagImMonat = merker[2];
+        long ymd = jahrMonatTag(bisTag);
+        long monate = (ymd >> 5) - vonMonat;
+        long tage = (ymd & 31L) - vonTagImMonat;
+        if (monate > 0 && tage < 0) {
+            monate--;
+            tage = bisTag - plusMonate(vonMonat + monate, vonTagImMonat);
+        }
+        // unter einem Tag: ab hier reicht int-Arithmetik, Reste über Multiplikation
+        long zeit = bisZeit - vonZeit;
+        int sekunden = (int) (zeit / ComfortableDuration.NANOS_PRO_SEKUNDE);
+        int stunden = sekunden / 3600;
+        int minuten = (sekunden - stunden * 3600) / 60;
+        int t = (int) tage;
+        long v = negativ ? -1L : 1L;
+        ziel[pos + JAHRE] = v * (monate / 12);
+        ziel[pos + MONATE] = v * (monate - monate / 12 * 12);
+        ziel[pos + WOCHEN] = v * (t / 7);
+        ziel[pos + TAGE] = v * (t - t / 7 * 7);
+        ziel[pos + STUNDEN] = v * stunden;
+        ziel[pos + MINUTEN] = v * minuten;
+        ziel[pos + SEKUNDEN] = v * (sekunden - stunden * 3600 - minuten * 60);
+        ziel[pos + NANOS] = v * (zeit - sekunden * ComfortableDuration.NANOS_PRO_SEKUNDE);
+    }
+
+    /**
+     * Epoch-Tag in Jahr/Monat/Tag: von 1900 bis 2200 über die Monatsanfänge (Schätzung plus höchstens ein Schritt),
+     * sonst geschlossen gerechnet (Algorithmus von Howard Hinnant, Jahr beginnt rechnerisch am 1. März).
+     * 
+     * @return (Jahr * 12 + Monat - 1) &lt;&lt; 5 | Tag
+     */
+    static long jahrMonatTag(long epochTag) {
+        long abTabelle = epochTag - MONATSANFANG[0];
+        if (abTabelle >= 0 && epochTag < MONATSANFANG[TABELLE_MONATE]) {
+            int i = Math.min((int) (abTabelle * MONATE_PRO_TAG), TABELLE_MONATE - 1);
+            while (MONATSANFANG[i] > epochTag) {
+                i--;
+            }
+            while (MONATSANFANG[i + 1] <= epochTag) {
+                i++;
+            }
+            return ((TABELLE_AB_MONAT + i) << 5) | (epochTag - MONATSANFANG[i] + 1);
+        }
+        long z = epochTag + TAGE_BIS_1970;
+        long ara = Math.floorDiv(z, TAGE_PRO_400_JAHRE);
+        long tagDerAra = z - ara * TAGE_PRO_400_JAHRE;
+        long jahrDerAra = (tagDerAra - tagDerAra / 1460 + tagDerAra / 36524 - tagDerAra / 146096) / 365;
+        long tagImJahr = tagDerAra - (365 * jahrDerAra + jahrDerAra / 4 - jahrDerAra / 100);
+        long mp = (5 * tagImJahr + 2) / 153;
+        long tag = tagImJahr - (153 * mp + 2) / 5 + 1;
+        long monat = mp < 10 ? mp + 3 : mp - 9;
+        long jahr = jahrDerAra + ara * 400 + (monat <= 2 ? 1 : 0);
+        return ((jahr * 12 + monat - 1) << 5) | tag;
+    }
+
+    /**
+     * Jahr/Monat/Tag in Epoch-Tag, ein zu großer Tag wird auf das Monatsende gekürzt (wie LocalDate.plusMonths).
+     * 
+     * @param monatIndex - Jahr * 12 + Monat - 1
+     * @param tag - Tag im Monat
+     */
+    static long plusMonate(long monatIndex, long tag) {
+        long i = monatIndex - TABELLE_AB_MONAT;
+        if (i >= 0 && i < TABELLE_MONATE) {
+            long anfang = MONATSANFANG[(int) i];
+            return anfang + Math.min(tag, MONATSANFANG[(int) i + 1] - anfang) - 1;
+        }
+        long jahr = Math.floorDiv(monatIndex, 12L);
+        return epochTag(monatIndex, Math.min(tag, monatsLaenge(jahr, Math.floorMod(monatIndex, 12L) + 1)));
+    }
+
+    /**
+     * Jahr/Monat/Tag geschlossen in Epoch-Tag (Umkehrung des Algorithmus in {@link #jahrMonatTag(long)}).
+     */
+    private static long epochTag(long monatIndex, long t) {
+        long jahr = Math.floorDiv(monatIndex, 12L);
+        long monat = Math.floorMod(monatIndex, 12L) + 1;
+        long j = monat <= 2 ? jahr - 1 : jahr;
+        long ara = Math.floorDiv(j, 400L);
+        long jahrDerAra = j - ara * 400;
+        long tagImJahr = (153 * (monat > 2 ? monat - 3 : monat + 9) + 2) / 5 + t - 1;
+        long tagDerAra = jahrDerAra * 365 + jahrDerAra / 4 - jahrDerAra / 100 + tagImJahr;
+        return ara * TAGE_PRO_400_JAHRE + tagDerAra - TAGE_BIS_1970;
+    }
+
+    private static long monatsLaenge(long jahr, long monat) {
+        if (monat == 2) {
+            return (jahr % 4 == 0 && (jahr % 100 != 0 || jahr % 400 == 0)) ? 29 : 28;
+        }
+        return monat == 4 || monat == 6 || monat == 9 || monat == 11 ? 30 : 31;
+    }
+
+    /** @return ganze Jahre */
+    public long jahre() {
+        return werte[JAHRE];
+    }
+
+    /** @return Monate des angebrochenen Jahres */
+    public long monate() {
+        return werte[MONATE];
+    }
+
+    /** @return Wochen des angebrochenen Monats */
+    public long wochen() {
+        return werte[WOCHEN];
+    }
+
+    /** @return Tage der angebrochenen Woche */
+    public long tage() {
+        return werte[TAGE];
+    }
+
+    /** @return Stunden des angebrochenen Tages */
+    public long stunden() {
+        return werte[STUNDEN];
+    }
+
+    /** @return Minuten der angebrochenen Stunde */
+    public long minuten() {
+        return werte[MINUTEN];
+    }
+
+    /** @return Sekunden der angebrochenen Minute */
+    public long sekunden() {
+        return werte[SEKUNDEN];
+    }
+
+    /** @return Nanosekunden der angebrochenen Sekunde */
+    public long nanos() {
+        return werte[NANOS];
+    }
+
+    /**
+     * Jahre : [0]       Monate : [2]       Wochen : [3]       Tage : [2]       Stunden : [22]       Minuten : [40]
+     * Sekunden : [32]       Nanosekunden : [25000000]
+     */
+    @Override
+    public String toString() {
+        return "Jahre : [" + werte[JAHRE] + "]       Monate : [" + werte[MONATE] + "]       Wochen : [" + werte[WOCHEN]
+                + "]       " + ComfortableDuration.TAGE + " : [" + werte[TAGE] + "]       "
+                + ComfortableDuration.STUNDEN + " : [" + werte[STUNDEN] + "]       " + ComfortableDuration.MINUTEN
+                + " : [" + werte[MINUTEN] + "]       " + ComfortableDuration.SEKUNDEN + " : [" + werte[SEKUNDEN]
+                + "]       " + ComfortableDuration.NANOSEKUNDEN + " : [" + werte[NANOS] + "]";
+    }
+}
@@ -0,0 +1,96 @@
+package at.diwh.comfortableduration.util;
+
+/**
+ * Sortierhilfen für primitive Arrays, damit für das Sortieren von Intervallen und Zeitpunkten keine Objekte (und kein
+ * Boxing über Comparator) nötig sind.
+ * 
+ * @author diwh
+ */
+final class PrimitivSortierung {
+
+    private static final int EINFUEGEN_BIS = 32;
+
+    private PrimitivSortierung() {
+        super();
+    }
+
+    /**
+     * Liefert die Reihenfolge 0..n-1, stabil sortiert nach schluessel und bei Gleichheit nach zweitSchluessel (darf
+     * null sein). Die Arrays selbst bleiben unverändert.
+     * 
+     * @param schluessel - erster Sortierschlüssel
+     * @param zweitSchluessel - zweiter Sortierschlüssel oder null
+     * @param n - Anzahl der Elemente
+     * @return die Indizes in sortierter Reihenfolge
+     */
+    static int[] reihenfolge(long[] schluessel, long[] zweitSchluessel, int n) {
+        int[] reihenfolge = new int[n];
+        for (int i = 0; i < n; i++) {
+            reihenfolge[i] = i;
+        }
+        if (n > 1) {
+            int[] puffer = reihenfolge.clone();
+            mischen(puffer, reihenfolge, 0, n, schluessel, zweitSchluessel);
+        }
+        return reihenfolge;
+    }
+
+    /**
+     * Sortiert zwei parallele Arrays nach dem ersten, bei Gleichheit nach dem zweiten.
+     */
+    static void sortiere(long[] schluessel, long[] zweitSchluessel, int n) {
+        int[] reihenfolge = reihenfolge(schluessel, zweitSchluessel, n);
+        long[] kopie = new long[n];
+        for (int i = 0; i < n; i++) {
+            kopie[i] = schluessel[reihenfolge[i]];
+        }
+        System.arraycopy(kopie, 0, schluessel, 0, n);
+        for (int i = 0; i < n; i++) {
+            kopie[i] = zweitSchluessel[reihenfolge[i]];
+        }
+        System.arraycopy(kopie, 0, zweitSchluessel, 0, n);
+    }
+
+    private static boolean kleiner(int a, int b, long[] schluessel, long[] zweitSchluessel) {
+        if (schluessel[a] != schluessel[b]) {
+            return schluessel[a] < schluessel[b];
+        }
+        return zweitSchluessel != null && zweitSchluessel[a] < zweitSchluessel[b];
+    }
+
+    /**
+     * Top-down Mergesort von quelle nach ziel (beide enthalten am Anfang dieselben Werte).
+     */
+    private static void mischen(int[] quelle, int[] ziel, int von, int bis, long[] schluessel,
+        long[] zweitSchluessel) {
+        if (bis - von <= EINFUEGEN_BIS) {
+            for (int i = von + 1; i < bis; i++) {
+                int wert = ziel[i];
+                int j = i - 1;
+                while (j >= von && kleiner(wert, ziel[j], schluessel, zweitSchluessel)) {
+                    ziel[j + 1] = ziel[j];
+                    j--;
+                }
+                ziel[j + 1] = wert;
+            }
+            return;
+        }
+        int mitte = (von + bis) >>> 1;
+        mischen(ziel, quelle, von, mitte, schluessel, zweitSchluessel);
+        mischen(ziel, quelle, mitte, bis, schluessel, zweitSchluessel);
+        if (!kleiner(quelle[mitte], quelle[mitte - 1], schluessel, zweitSchluessel)) {
+            System.arraycopy(quelle, von, ziel, von, bis - von);
+            return;
+        }
+        int links = von;
+        int rechts = mitte;
+        for (int i = von; i < bis; i++) {
+            if (rechts >= bis || (links < mitte && !kleiner(quelle[rechts], quelle[links], schluessel,
+                zweitSchluessel))) {
+                ziel[i] = quelle[links++];
+            } else {
+                ziel[i] = quelle[rechts++];
+            }
+        }
+    }
+}
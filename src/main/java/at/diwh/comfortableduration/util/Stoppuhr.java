@@ -0,0 +1,119 @@
+package at.diwh.comfortableduration.util;
+
+/**
+ * Stoppuhr auf Basis von System.nanoTime(): anders als Instant.now() springt sie nicht, wenn die Uhr des Rechners
+ * gestellt wird, und sie ist schneller. Neben der Gesamtzeit gibt es Runden (Zeit seit der letzten Runde) und
+ * Zwischenzeiten (Zeit seit dem Start). Die Methoden mit ...Nanos legen nichts an, die anderen liefern die Zeit als
+ * ComfortableDuration.
+ * <br/> Nicht threadsicher, eine Stoppuhr gehört einem Thread. Für benannte Messungen über viele Threads gibt es den
+ * {@link Zeitmesser}.
+ * 
+ * @author diwh
+ */
+public final class Stoppuhr {
+
+    private long start;
+    private long letzteRunde;
+    private long ende;
+    private boolean laeuft;
+
+    /**
+     * Neue, noch nicht gestartete Stoppuhr
+     */
+    public Stoppuhr() {
+        super();
+    }
+
+    /**
+     * @return eine neue, schon laufende Stoppuhr
+     */
+    public static Stoppuhr gestartet() {
+        return new Stoppuhr().starten();
+    }
+
+    /**
+     * Startet die Stoppuhr (neu), Runden und Zwischenzeiten beginnen wieder bei 0.
+     * 
+     * @return this
+     */
+    public Stoppuhr starten() {
+        start = System.nanoTime();
+        letzteRunde = start;
+        laeuft = true;
+        return this;
+    }
+
+    /**
+     * Beendet eine Runde und beginnt die nächste.
+     * 
+     * @return Nanosekunden seit dem Start oder der letzten Runde
+     */
+    public long rundeNanos() {
+        pruefeLaeuft();
+        long jetzt = System.nanoTime();
+        long runde = jetzt - letzteRunde;
+        letzteRunde = jetzt;
+        return runde;
+    }
+
+    /**
+     * @return Zeit seit dem Start oder der letzten Runde, beginnt eine neue Runde
+     */
+    public ComfortableDuration runde() {
+        return ComfortableDuration.ofNanos(rundeNanos());
+    }
+
+    /**
+     * @return Nanosekunden seit dem Start, die Stoppuhr läuft weiter
+     */
+    public long zwischenzeitNanos() {
+        pruefeLaeuft();
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * @return Zeit seit dem Start, die Stoppuhr läuft weiter
+     */
+    public ComfortableDuration zwischenzeit() {
+        return ComfortableDuration.ofNanos(zwischenzeitNanos());
+    }
+
+    /**
+     * Hält die Stoppuhr an.
+     * 
+     * @return Nanosekunden vom Start bis jetzt
+     */
+    public long stoppenNanos() {
+        pruefeLaeuft();
+        ende = System.nanoTime();
+        laeuft = false;
+        return ende - start;
+    }
+
+    /**
+     * @return Zeit vom Start bis jetzt, die Stoppuhr steht danach
+     */
+    public ComfortableDuration stoppen() {
+        return ComfortableDuration.ofNanos(stoppenNanos());
+    }
+
+    /**
+     * @return gemessene Zeit: bis jetzt, wenn sie läuft, sonst bis zum Anhalten
+     */
+    public ComfortableDuration dauer() {
+        return ComfortableDuration.ofNanos(laeuft ? System.nanoTime() - start : ende - start);
+    }
+
+    /**
+     * @return wahr zwischen starten() und stoppen()
+     */
+    public boolean laeuft() {
+        return laeuft;
+    }
+
+    private void pruefeLaeuft() {
+        if (!laeuft) {
+            throw new IllegalStateException("Die Stoppuhr läuft nicht");
+        }
+    }
+}
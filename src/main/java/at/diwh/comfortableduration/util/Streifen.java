@@ -0,0 +1,91 @@
+package at.diwh.comfortableduration.util;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * Gemeinsame Teile für Klassen, die Schreiber nach dem Muster von LongAdder auf Streifen verteilen
+ * ({@link DauerAddierer}, {@link DauerFenster}): eine Position pro Thread, die bei Kollisionen neu gewürfelt wird, und
+ * die Basisklasse {@link Belegbar} für Streifen, die ein Thread kurz über ein CAS belegt.
+ * 
+ * @author diwh
+ */
+final class Streifen {
+
+    /** höchstens so viele Streifen: die nächste Zweierpotenz über der Anzahl der Prozessoren */
+    static final int MAX = naechsteZweierpotenz(Runtime.getRuntime().availableProcessors());
+
+    // Position pro Thread, wird bei Kollisionen neu gewürfelt
+    private static final ThreadLocal<int[]> SONDE = new ThreadLocal<int[]>() {
+        @Override
+        protected int[] initialValue() {
+            int h = (int) Thread.currentThread().getId() * 0x9E3779B9;
+            return new int[] { h == 0 ? 1 : h };
+        }
+    };
+
+    private Streifen() {
+        super();
+    }
+
+    /**
+     * Belegt den Streifen an der Position des Threads. Ist er schon belegt, wird die Position neu gewürfelt (der
+     * nächste Versuch landet woanders) und null geliefert; der Aufrufer entscheidet, ob er wartet oder wächst.
+     * 
+     * @param streifen - die Streifen, Länge eine Zweierpotenz
+     * @return der belegte Streifen (danach {@link Belegbar#freigeben()}) oder null bei Kollision
+     */
+    static <T extends Belegbar> T belege(T[] streifen) {
+        int[] sonde = SONDE.get();
+        int h = sonde[0];
+        T s = streifen[h & (streifen.length - 1)];
+        if (s.belegen()) {
+            return s;
+        }
+        h ^= h << 13;
+        h ^= h >>> 17;
+        h ^= h << 5;
+        sonde[0] = h;
+        return null;
+    }
+
+    static int naechsteZweierpotenz(int n) {
+        return n <= 1 ? 1 : Integer.highestOneBit(n - 1) << 1;
+    }
+
+    /**
+     * Ein Streifen, der über ein CAS kurz belegt wird; die Felder der Unterklasse werden nur gelesen und geschrieben,
+     * während er belegt ist.
+     */
+    abstract static class Belegbar {
+
+        private static final AtomicIntegerFieldUpdater<Belegbar> BELEGT = AtomicIntegerFieldUpdater
+                .newUpdater(Belegbar.class, "belegt");
+
+        // Abstand zum Streifen davor (False Sharing), die Streifen liegen meist direkt hintereinander im Speicher;
+        // die Felder der Oberklasse liegen vor denen der Unterklasse, der Abstand nach hinten ist der des nächsten
+        @SuppressWarnings("unused")
+        private long p1, p2, p3, p4, p5, p6, p7, p8, p9, p10, p11, p12, p13, p14;
+
+        private volatile int belegt;
+
+        /**
+         * @return wahr, wenn der Streifen jetzt diesem Thread gehört
+         */
+        final boolean belegen() {
+            return belegt == 0 && BELEGT.compareAndSet(this, 0, 1);
+        }
+
+        /**
+         * Belegt den Streifen, wartet dafür wenn nötig (für seltene Zugriffe wie Sammeln und Zurücksetzen).
+         */
+        final void belegenWartend() {
+            while (!belegen()) {
+                Thread.yield();
+            }
+        }
+
+        final void freigeben() {
+            belegt = 0;
+        }
+    }
+}
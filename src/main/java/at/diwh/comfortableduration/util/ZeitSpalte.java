@@ -0,0 +1,298 @@
+package at.diwh.comfortableduration.util;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Eine Spalte gepackter Zeitpunkte ({@link GepackteZeit}) in einem wachsenden long[]: entweder nur Datumswerte oder
+ * nur Datum-Zeit-Werte. Pro Zeitpunkt 8 Bytes statt eines LocalDateTime-Objekts, Sortieren, binäre Suche und
+ * Bereichsabfragen laufen direkt auf dem Array. java.time-Objekte gibt es nur bei Bedarf über
+ * {@link #datum(int)} bzw. {@link #datumZeit(int)}.
+ * <br/> Die Spalte merkt sich, ob sie sortiert ist (auch beim Anhängen in aufsteigender Reihenfolge); die Suchen
+ * brauchen eine sortierte Spalte, {@link #filtere} geht auch unsortiert.
+ * <br/> Nicht threadsicher.
+ * 
+ * @author diwh
+ */
+public final class ZeitSpalte {
+
+    // ab hier wird parallel sortiert
+    private static final int PARALLEL_AB = 1 << 16;
+
+    // größte Array-Länge, die jede JVM anlegen kann
+    private static final int MAX_GROESSE = Integer.MAX_VALUE - 8;
+
+    private final boolean datumZeit;
+    private long[] werte;
+    private int groesse;
+    private boolean sortiert = true;
+
+    private ZeitSpalte(boolean datumZeit, int kapazitaet) {
+        super();
+        if (kapazitaet < 0) {
+            throw new IllegalArgumentException("Negative Kapazität: " + kapazitaet);
+        }
+        this.datumZeit = datumZeit;
+        this.werte = new long[Math.max(kapazitaet, 8)];
+    }
+
+    /**
+     * @param kapazitaet - erwartete Anzahl, die Spalte wächst bei Bedarf
+     * @return leere Spalte für LocalDate-Werte
+     */
+    public static ZeitSpalte fuerDatum(int kapazitaet) {
+        return new ZeitSpalte(false, kapazitaet);
+    }
+
+    /**
+     * @param kapazitaet - erwartete Anzahl, die Spalte wächst bei Bedarf
+     * @return leere Spalte für LocalDateTime-Werte
+     */
+    public static ZeitSpalte fuerDatumZeit(int kapazitaet) {
+        return new ZeitSpalte(true, kapazitaet);
+    }
+
+    /**
+     * Hängt einen gepackten Wert an.
+     * 
+     * @param gepackt - Epoch-Tag bzw. lokale Epoch-Nanosekunden, je nach Art der Spalte
+     */
+    public void dazu(long gepackt) {
+        if (groesse == werte.length) {
+            werte = Arrays.copyOf(werte, neueKapazitaet());
+        }
+        if (groesse > 0 && gepackt < werte[groesse - 1]) {
+            sortiert = false;
+        }
+        werte[groesse++] = gepackt;
+    }
+
+    private int neueKapazitaet() {
+        if (groesse >= MAX_GROESSE) {
+            throw new IllegalStateException("ZeitSpalte ist voll: höchstens " + MAX_GROESSE + " Werte");
+        }
+        return (int) Math.min((long) groesse + (groesse >> 1) + 1L, MAX_GROESSE);
+    }
+
+    /**
+     * @param datum - nur für Datumsspalten
+     */
+    public void dazu(LocalDate datum) {
+        pruefeArt(false);
+        dazu(GepackteZeit.ausDatum(datum));
+    }
+
+    /**
+     * @param zeit - nur für Datum-Zeit-Spalten
+     */
+    public void dazu(LocalDateTime zeit) {
+        pruefeArt(true);
+        dazu(GepackteZeit.ausDatumZeit(zeit));
+    }
+
+    /**
+     * @return Anzahl der Werte
+     */
+    public int groesse() {
+        return groesse;
+    }
+
+    /**
+     * @return wahr für LocalDateTime-Werte, falsch für LocalDate
+     */
+    public boolean istDatumZeit() {
+        return datumZeit;
+    }
+
+    /**
+     * @return wahr, wenn die Werte aufsteigend sortiert sind
+     */
+    public boolean istSortiert() {
+        return sortiert;
+    }
+
+    /**
+     * @param i - Position
+     * @return der gepackte Wert
+     */
+    public long get(int i) {
+        pruefeIndex(i);
+        return werte[i];
+    }
+
+    /**
+     * @param i - Position, nur für Datumsspalten
+     * @return der Wert als LocalDate
+     */
+    public LocalDate datum(int i) {
+        pruefeArt(false);
+        return GepackteZeit.zuDatum(get(i));
+    }
+
+    /**
+     * @param i - Position, nur für Datum-Zeit-Spalten
+     * @return der Wert als LocalDateTime
+     */
+    public LocalDateTime datumZeit(int i) {
+        pruefeArt(true);
+        return GepackteZeit.zuDatumZeit(get(i));
+    }
+
+    /**
+     * Sortiert die Werte aufsteigend (große Spalten parallel).
+     */
+    public void sortiere() {
+        if (!sortiert) {
+            if (groesse >= PARALLEL_AB) {
+                Arrays.parallelSort(werte, 0, groesse);
+            } else {
+                Arrays.sort(werte, 0, groesse);
+            }
+            sortiert = true;
+        }
+    }
+
+    /**
+     * Sortierreihenfolge, ohne die Spalte zu ändern, z.B. um andere Spalten derselben Zeilen mitzusortieren.
+     * Stabil: gleiche Werte bleiben in ihrer Reihenfolge.
+     * 
+     * @return reihenfolge[k] = Position des k-kleinsten Werts
+     */
+    public int[] reihenfolge() {
+        return PrimitivSortierung.reihenfolge(werte, null, groesse);
+    }
+
+    /**
+     * Binäre Suche in der sortierten Spalte.
+     * 
+     * @param gepackt - gesuchter Wert
+     * @return erste Position mit diesem Wert, oder -(Einfügeposition) - 1 wie bei Arrays.binarySearch
+     */
+    public int suche(long gepackt) {
+        pruefeSortiert();
+        int i = ersteAb(gepackt);
+        return i < groesse && werte[i] == gepackt ? i : -i - 1;
+    }
+
+    /**
+     * @param gepackt - Wert
+     * @return erste Position mit einem Wert &gt;= gepackt in der sortierten Spalte (groesse(), wenn es keine gibt)
+     */
+    public int ersteAb(long gepackt) {
+        pruefeSortiert();
+        int links = 0;
+        int rechts = groesse;
+        while (links < rechts) {
+            int mitte = (links + rechts) >>> 1;
+            if (werte[mitte] < gepackt) {
+                links = mitte + 1;
+            } else {
+                rechts = mitte;
+            }
+        }
+        return links;
+    }
+
+    /**
+     * @param gepackt - Wert
+     * @return erste Position mit einem Wert &gt; gepackt in der sortierten Spalte (groesse(), wenn es keine gibt)
+     */
+    public int ersteNach(long gepackt) {
+        return gepackt == Long.MAX_VALUE ? groesse : ersteAb(gepackt + 1L);
+    }
+
+    /**
+     * Alle Werte in [von, bis] (Grenzen inklusive, wie istIntervallAinIntervallB) in der sortierten Spalte; die
+     * Treffer liegen zusammenhängend an den Positionen [ersteAb(von), ersteNach(bis)).
+     * 
+     * @param von - untere Grenze (gepackt)
+     * @param bis - obere Grenze (gepackt)
+     * @param treffer - bekommt jede Position, darf null sein
+     * @return Anzahl der Treffer
+     */
+    public int bereich(long von, long bis, IntConsumer treffer) {
+        if (bis < von) {
+            return 0;
+        }
+        int erste = ersteAb(von);
+        int ende = ersteNach(bis);
+        if (treffer != null) {
+            for (int i = erste; i < ende; i++) {
+                treffer.accept(i);
+            }
+        }
+        return ende - erste;
+    }
+
+    /**
+     * Wie {@link #bereich(long, long, IntConsumer)}, für eine Datumsspalte.
+     */
+    public int bereich(LocalDate von, LocalDate bis, IntConsumer treffer) {
+        pruefeArt(false);
+        return bereich(GepackteZeit.ausDatum(von), GepackteZeit.ausDatum(bis), treffer);
+    }
+
+    /**
+     * Wie {@link #bereich(long, long, IntConsumer)}, für eine Datum-Zeit-Spalte.
+     */
+    public int bereich(LocalDateTime von, LocalDateTime bis, IntConsumer treffer) {
+        pruefeArt(true);
+        return bereich(GepackteZeit.ausDatumZeit(von), GepackteZeit.ausDatumZeit(bis), treffer);
+    }
+
+    /**
+     * Alle Werte in [von, bis], auch in einer unsortierten Spalte: eine Schleife über das Array ohne Verzweigung
+     * pro Wert für das Zählen.
+     * 
+     * @param von - untere Grenze (gepackt)
+     * @param bis - obere Grenze (gepackt)
+     * @param treffer - bekommt jede Position, darf null sein (dann wird nur gezählt)
+     * @return Anzahl der Treffer
+     */
+    public int filtere(long von, long bis, IntConsumer treffer) {
+        int anzahl = 0;
+        long[] w = werte;
+        int n = groesse;
+        if (treffer == null) {
+            for (int i = 0; i < n; i++) {
+                anzahl += (w[i] >= von & w[i] <= bis) ? 1 : 0;
+            }
+            return anzahl;
+        }
+        for (int i = 0; i < n; i++) {
+            if (w[i] >= von && w[i] <= bis) {
+                anzahl++;
+                treffer.accept(i);
+            }
+        }
+        return anzahl;
+    }
+
+    /**
+     * @return Kopie der gepackten Werte
+     */
+    public long[] alsArray() {
+        return Arrays.copyOf(werte, groesse);
+    }
+
+    private void pruefeArt(boolean mitZeit) {
+        if (mitZeit != datumZeit) {
+            throw new IllegalArgumentException(datumZeit ? "Spalte enthält LocalDateTime-Werte"
+                    : "Spalte enthält LocalDate-Werte");
+        }
+    }
+
+    private void pruefeIndex(int i) {
+        if (i < 0 || i >= groesse) {
+            throw new IndexOutOfBoundsException("Position " + i + ", Größe " + groesse);
+        }
+    }
+
+    private void pruefeSortiert() {
+        if (!sortiert) {
+            throw new IllegalStateException("Spalte ist nicht sortiert, vorher sortiere() aufrufen");
+        }
+    }
+}
@@ -0,0 +1,541 @@
+package at.diwh.comfortableduration.util;
+
+import java.lang.management.ManagementFactory;
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Benannte Zeitmessungen über viele Threads, auf Basis von System.nanoTime():
+ * 
+ * <pre>
+ * Zeitmesser.Messpunkt laden = Zeitmesser.STANDARD.messpunkt("laden");
+ * try (Zeitmesser.Messung m = laden.messe()) {
+ *     ...
+ * }
+ * </pre>
+ * 
+ * Jeder Thread hat pro Messpunkt einen eigenen Puffer (ein {@link DauerHistogramm} und wiederverwendete
+ * Messung-Objekte), eine Messung legt daher nichts an und kostet nur zwei nanoTime() und ein unbestrittenes CAS.
+ * {@link #exportiere()} leert die Puffer aller Threads und gibt die Messungen seit dem letzten Export an die
+ * {@link Senke}n weiter, z.B. als Logzeile ({@link #logZeile}), als JMX-Bean ({@link #jmx}) oder in einen
+ * {@link Speicher}; mit {@link #starteExport} passiert das regelmäßig in einem eigenen Daemon-Thread. Wirft eine
+ * Senke eine Ausnahme, bekommen die anderen Senken den Export trotzdem, der regelmäßige Export läuft weiter und die
+ * Ausnahme wird in {@link #getFehler()} gezählt.
+ * <br/> Eine Messung gehört dem Thread, der sie begonnen hat, und muss dort auch beendet werden (try-with-resources
+ * macht das von selbst). Ein zweites close() ändert nichts; wird eine äußere Messung vor inneren desselben Messpunkts
+ * beendet, enden die inneren mit ihr. Puffer beendeter Threads werden beim nächsten Export entfernt.
+ * 
+ * @author diwh
+ */
+public final class Zeitmesser {
+
+    /** der gemeinsame Zeitmesser der Anwendung */
+    public static final Zeitmesser STANDARD = new Zeitmesser();
+
+    private final ConcurrentMap<String, Messpunkt> messpunkte = new ConcurrentHashMap<String, Messpunkt>();
+    private final CopyOnWriteArrayList<Senke> senken = new CopyOnWriteArrayList<Senke>();
+    private final AtomicLong fehler = new AtomicLong();
+    private ScheduledExecutorService planer;
+
+    public Zeitmesser() {
+        super();
+    }
+
+    /**
+     * Bekommt bei jedem Export die Messungen seit dem letzten Export.
+     */
+    @FunctionalInterface
+    public interface Senke {
+
+        /**
+         * @param messungen - pro Messpunkt (nach Namen sortiert) die Dauern seit dem letzten Export; nur Messpunkte,
+         *            die in der Zeit auch gemessen haben
+         */
+        void melde(Map<String, DauerHistogramm> messungen);
+    }
+
+    /**
+     * Liefert den Messpunkt mit dem Namen, legt ihn beim ersten Mal an. Am besten einmal holen und in einem Feld
+     * halten.
+     * 
+     * @param name - z.B. "datenbank.laden"
+     * @return der Messpunkt
+     */
+    public Messpunkt messpunkt(String name) {
+        Messpunkt punkt = messpunkte.get(name);
+        if (punkt == null) {
+            Messpunkt neu = new Messpunkt(name);
+            punkt = messpunkte.putIfAbsent(name, neu);
+            if (punkt == null) {
+                punkt = neu;
+            }
+        }
+        return punkt;
+    }
+
+    /**
+     * @param senke - bekommt ab jetzt jeden Export
+     */
+    public void senke(Senke senke) {
+        senken.add(senke);
+    }
+
+    /**
+     * @param senke - bekommt ab jetzt keinen Export mehr
+     */
+    public void entferneSenke(Senke senke) {
+        senken.remove(senke);
+    }
+
+    /**
+     * Leert die Puffer aller Threads und meldet die Messungen seit dem letzten Export an alle Senken.
+     * 
+     * @return die gemeldeten Messungen
+     */
+    public synchronized Map<String, DauerHistogramm> exportiere() {
+        Map<String, DauerHistogramm> messungen = new TreeMap<String, DauerHistogramm>();
+        for (Messpunkt punkt : messpunkte.values()) {
+            DauerHistogramm h = punkt.leeren();
+            if (h.anzahl() > 0L) {
+                messungen.put(punkt.name, h);
+            }
+        }
+        Map<String, DauerHistogramm> ergebnis = Collections.unmodifiableMap(messungen);
+        for (Senke senke : senken) {
+            try {
+                senke.melde(ergebnis);
+            } catch (RuntimeException e) {
+                fehler.incrementAndGet();
+            }
+        }
+        return ergebnis;
+    }
+
+    /**
+     * @return Anzahl der Ausnahmen aus {@link Senke#melde(Map)}; sie unterbrechen den Export nicht
+     */
+    public long getFehler() {
+        return fehler.get();
+    }
+
+    /**
+     * Exportiert ab jetzt regelmäßig in einem Daemon-Thread; ein schon laufender Export wird ersetzt.
+     * 
+     * @param periode - Abstand der Exporte
+     * @param einheit - Einheit der Periode
+     */
+    public synchronized void starteExport(long periode, TimeUnit einheit) {
+        stoppeExport();
+        planer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "Zeitmesser-Export");
+            t.setDaemon(true);
+            return t;
+        });
+        planer.scheduleAtFixedRate(this::exportiere, periode, periode, einheit);
+    }
+
+    /**
+     * Beendet den regelmäßigen Export.
+     */
+    public synchronized void stoppeExport() {
+        if (planer != null) {
+            planer.shutdownNow();
+            planer = null;
+        }
+    }
+
+    /**
+     * Senke, die pro Messpunkt eine Zeile ausgibt, z.B. "laden : Anzahl 12, Summe 3s 200000000ns, ...".
+     * 
+     * @param ausgabe - z.B. System.out::println oder logger::info
+     * @return die Senke
+     */
+    public static Senke logZeile(final Consumer<String> ausgabe) {
+        return messungen -> {
+            for (Map.Entry<String, DauerHistogramm> eintrag : messungen.entrySet()) {
+                ausgabe.accept(eintrag.getKey() + " : " + eintrag.getValue());
+            }
+        };
+    }
+
+    /**
+     * Senke, die pro Messpunkt eine MXBean "&lt;domain&gt;:type=Zeitmesser,name=&lt;Messpunkt&gt;" im
+     * Plattform-MBeanServer anlegt und bei jedem Export mit den Werten seit dem letzten Export aktualisiert.
+     * 
+     * @param domain - z.B. "at.diwh.comfortableduration"
+     * @return die Senke
+     */
+    public static Senke jmx(String domain) {
+        return jmx(ManagementFactory.getPlatformMBeanServer(), domain);
+    }
+
+    /**
+     * Wie {@link #jmx(String)}, mit einem eigenen MBeanServer.
+     * 
+     * @param server - der MBeanServer
+     * @param domain - z.B. "at.diwh.comfortableduration"
+     * @return die Senke
+     */
+    public static Senke jmx(final MBeanServer server, final String domain) {
+        final ConcurrentMap<String, JmxMesspunkt> beans = new ConcurrentHashMap<String, JmxMesspunkt>();
+        return messungen -> {
+            for (Map.Entry<String, DauerHistogramm> eintrag : messungen.entrySet()) {
+                JmxMesspunkt bean = beans.get(eintrag.getKey());
+                if (bean == null) {
+                    bean = new JmxMesspunkt();
+                    try {
+                        server.registerMBean(bean, new ObjectName(domain + ":type=Zeitmesser,name="
+                                + ObjectName.quote(eintrag.getKey())));
+                    } catch (JMException e) {
+                        throw new IllegalStateException("MBean für " + eintrag.getKey()
+                                + " kann nicht registriert werden", e);
+                    }
+                    beans.put(eintrag.getKey(), bean);
+                }
+                bean.stand = eintrag.getValue();
+            }
+        };
+    }
+
+    /**
+     * Senke, die die Messungen im Speicher hält: die des letzten Exports und die Summe aller Exporte.
+     * 
+     * @return die Senke
+     */
+    public static Speicher speicher() {
+        return new Speicher();
+    }
+
+    /**
+     * Ein benannter Messpunkt; threadsicher, jeder Thread misst in seinen eigenen Puffer.
+     */
+    public static final class Messpunkt {
+
+        private final String name;
+        // Anmelden und Entfernen in O(1), auch bei sehr vielen kurzlebigen Threads
+        private final Set<Puffer> puffer = ConcurrentHashMap.newKeySet();
+        private final ThreadLocal<Puffer> eigener = new ThreadLocal<Puffer>() {
+            @Override
+            protected Puffer initialValue() {
+                Puffer p = new Puffer();
+                puffer.add(p);
+                return p;
+            }
+        };
+
+        Messpunkt(String name) {
+            super();
+            this.name = name;
+        }
+
+        /**
+         * Beginnt eine Messung, für try-with-resources. Das Messung-Objekt wird wiederverwendet und darf nach close()
+         * nicht mehr benutzt werden.
+         * 
+         * @return die laufende Messung
+         */
+        public Messung messe() {
+            Messung m = eigener.get().naechste();
+            m.start = System.nanoTime();
+            return m;
+        }
+
+        /**
+         * Für Messungen ohne try-with-resources: {@code long t = punkt.start(); ... punkt.stopp(t);}
+         * 
+         * @return System.nanoTime()
+         */
+        public long start() {
+            return System.nanoTime();
+        }
+
+        /**
+         * @param start - der Wert von {@link #start()}
+         */
+        public void stopp(long start) {
+            erfasse(System.nanoTime() - start);
+        }
+
+        /**
+         * Erfasst eine anderswo gemessene Dauer.
+         * 
+         * @param nanos - die Dauer in Nanosekunden
+         */
+        public void erfasse(long nanos) {
+            eigener.get().erfasse(nanos);
+        }
+
+        /**
+         * @return der Name
+         */
+        public String getName() {
+            return name;
+        }
+
+        DauerHistogramm leeren() {
+            DauerHistogramm summe = new DauerHistogramm();
+            for (Iterator<Puffer> it = puffer.iterator(); it.hasNext();) {
+                Puffer p = it.next();
+                p.belegen();
+                try {
+                    summe.uebernimm(p.histogramm);
+                    p.histogramm.zuruecksetzen();
+                } finally {
+                    p.freigeben();
+                }
+                Thread t = p.thread.get();
+                if (t == null || !t.isAlive()) {
+                    it.remove();
+                }
+            }
+            return summe;
+        }
+    }
+
+    /**
+     * Eine laufende Messung, wird mit close() beendet.
+     */
+    public static final class Messung implements AutoCloseable {
+
+        private final Puffer puffer;
+        // Platz im Stapel des Puffers
+        private final int stufe;
+        private long start;
+        private boolean offen;
+
+        Messung(Puffer puffer, int stufe) {
+            super();
+            this.puffer = puffer;
+            this.stufe = stufe;
+        }
+
+        /**
+         * @return Nanosekunden seit Beginn der Messung
+         */
+        public long bisherNanos() {
+            return System.nanoTime() - start;
+        }
+
+        /**
+         * Beendet die Messung und erfasst die Dauer; noch offene innere Messungen desselben Messpunkts enden mit ihr.
+         * Ist die Messung schon beendet, passiert nichts.
+         */
+        @Override
+        public void close() {
+            if (offen) {
+                puffer.beende(stufe, System.nanoTime());
+            }
+        }
+    }
+
+    /**
+     * Puffer eines Threads für einen Messpunkt. Geschrieben wird nur vom Thread selbst, gelesen beim Export; beides
+     * belegt den Puffer kurz über ein CAS.
+     */
+    private static final class Puffer {
+
+        private static final AtomicIntegerFieldUpdater<Puffer> BELEGT = AtomicIntegerFieldUpdater
+                .newUpdater(Puffer.class, "belegt");
+
+        private final WeakReference<Thread> thread = new WeakReference<Thread>(Thread.currentThread());
+        private final DauerHistogramm histogramm = new DauerHistogramm();
+        // verschachtelte Messungen desselben Messpunkts im selben Thread
+        private Messung[] messungen = new Messung[0];
+        private int tiefe;
+        private volatile int belegt;
+
+        Messung naechste() {
+            if (tiefe == messungen.length) {
+                Messung[] mehr = new Messung[tiefe + 4];
+                System.arraycopy(messungen, 0, mehr, 0, tiefe);
+                for (int i = tiefe; i < mehr.length; i++) {
+                    mehr[i] = new Messung(this, i);
+                }
+                messungen = mehr;
+            }
+            Messung m = messungen[tiefe++];
+            m.offen = true;
+            return m;
+        }
+
+        /**
+         * Beendet die Messung auf stufe und alle darüber (von innen nach außen).
+         */
+        void beende(int stufe, long ende) {
+            while (tiefe > stufe) {
+                Messung m = messungen[--tiefe];
+                m.offen = false;
+                erfasse(ende - m.start);
+            }
+        }
+
+        void erfasse(long nanos) {
+            belegen();
+            try {
+                histogramm.erfasse(nanos);
+            } finally {
+                freigeben();
+            }
+        }
+
+        void belegen() {
+            while (!BELEGT.compareAndSet(this, 0, 1)) {
+                Thread.yield();
+            }
+        }
+
+        void freigeben() {
+            belegt = 0;
+        }
+    }
+
+    /**
+     * Werte eines Messpunkts seit dem letzten Export, für JMX
+     */
+    public interface MesspunktMXBean {
+
+        /** @return Anzahl der Messungen */
+        long getAnzahl();
+
+        /** @return Summe, z.B. "3s 200000000ns" */
+        String getSumme();
+
+        /** @return kleinste Dauer */
+        String getMin();
+
+        /** @return größte Dauer */
+        String getMax();
+
+        /** @return Median */
+        String getP50();
+
+        /** @return 99. Perzentil */
+        String getP99();
+
+        /** @return 99,9. Perzentil */
+        String getP999();
+
+        /** @return 99. Perzentil in Nanosekunden, für Grafiken und Alarme */
+        long getP99Nanos();
+
+        /** @return größte Dauer in Nanosekunden, für Grafiken und Alarme */
+        long getMaxNanos();
+    }
+
+    private static final class JmxMesspunkt implements MesspunktMXBean {
+
+        private volatile DauerHistogramm stand = new DauerHistogramm();
+
+        @Override
+        public long getAnzahl() {
+            return stand.anzahl();
+        }
+
+        @Override
+        public String getSumme() {
+            return DauerFormat.KOMPAKT.format(stand.summe());
+        }
+
+        @Override
+        public String getMin() {
+            return DauerFormat.KOMPAKT.format(stand.min());
+        }
+
+        @Override
+        public String getMax() {
+            return DauerFormat.KOMPAKT.format(stand.max());
+        }
+
+        @Override
+        public String getP50() {
+            return DauerFormat.KOMPAKT.format(stand.perzentil(50.0));
+        }
+
+        @Override
+        public String getP99() {
+            return DauerFormat.KOMPAKT.format(stand.perzentil(99.0));
+        }
+
+        @Override
+        public String getP999() {
+            return DauerFormat.KOMPAKT.format(stand.perzentil(99.9));
+        }
+
+        @Override
+        public long getP99Nanos() {
+            return stand.perzentilNanos(99.0);
+        }
+
+        @Override
+        public long getMaxNanos() {
+            return stand.maxNanos();
+        }
+    }
+
+    /**
+     * Hält die Messungen im Speicher, z.B. für eine Statusseite oder für Tests.
+     */
+    public static final class Speicher implements Senke {
+
+        private volatile Map<String, DauerHistogramm> letzte = Collections.emptyMap();
+        private final Map<String, DauerHistogramm> gesamt = new TreeMap<String, DauerHistogramm>();
+
+        Speicher() {
+            super();
+        }
+
+        @Override
+        public void melde(Map<String, DauerHistogramm> messungen) {
+            synchronized (gesamt) {
+                for (Map.Entry<String, DauerHistogramm> eintrag : messungen.entrySet()) {
+                    DauerHistogramm h = gesamt.get(eintrag.getKey());
+                    if (h == null) {
+                        h = new DauerHistogramm();
+                        gesamt.put(eintrag.getKey(), h);
+                    }
+                    h.uebernimm(eintrag.getValue());
+                }
+            }
+            letzte = messungen;
+        }
+
+        /**
+         * @return die Messungen des letzten Exports
+         */
+        public Map<String, DauerHistogramm> letzte() {
+            return letzte;
+        }
+
+        /**
+         * @param name - der Messpunkt
+         * @return Kopie aller bisher exportierten Messungen des Messpunkts (leer, wenn es keine gibt)
+         */
+        public DauerHistogramm gesamt(String name) {
+            DauerHistogramm kopie = new DauerHistogramm();
+            synchronized (gesamt) {
+                DauerHistogramm h = gesamt.get(name);
+                if (h != null) {
+                    kopie.uebernimm(h);
+                }
+            }
+            return kopie;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package at.diwh.comfortableduration.util;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Vorberechnete Offset-Übergänge (Sommer-/Winterzeit usw.) einer Zone für einen Zeitbereich, als primitive Arrays.
+ * Ein Offset ist damit eine binäre Suche bzw. (bei sortierten Daten) ein Vergleich mit dem zuletzt benutzten
+ * Abschnitt, ganz ohne Instant- oder ZonedDateTime-Objekte. Außerhalb des Bereichs wird auf die ZoneRules
+ * zurückgegriffen, das Ergebnis ist immer dasselbe wie bei ZoneRules.getOffset(Instant).
+ * <br/> Die Tabellen sind unveränderlich und werden pro Zone gecacht; wird ein größerer Bereich gebraucht, ersetzt
+ * eine neue (größere) Tabelle die alte. Tabellen reichen höchstens von 1800 bis 2200.
+ * 
+ * @author diwh
+ */
+public final class ZonenUebergaenge {
+
+    private static final long MILLIS_PRO_JAHR = 366L * ComfortableDuration.SEKUNDEN_PRO_TAG * 1000L;
+
+    /** 1800-01-01T00:00Z */
+    static final long TABELLE_AB = -5364662400000L;
+
+    /** 2200-01-01T00:00Z */
+    static final long TABELLE_BIS = 7258118400000L;
+
+    private static final ConcurrentMap<String, ZonenUebergaenge> CACHE = new ConcurrentHashMap<String, ZonenUebergaenge>();
+
+    private final ZoneRules regeln;
+    private final long vonMilli;
+    private final long bisMilli;
+    // uebergaenge[i] = Zeitpunkt (Epoch-Millis), ab dem offsets[i + 1] gilt; offsets[0] gilt davor
+    private final long[] uebergaenge;
+    private final int[] offsets;
+
+    private ZonenUebergaenge(ZoneRules regeln, long vonMilli, long bisMilli) {
+        super();
+        this.regeln = regeln;
+        this.vonMilli = vonMilli;
+        this.bisMilli = bisMilli;
+        long[] zeitpunkte = new long[16];
+        int[] werte = new int[17];
+        int anzahl = 0;
+        werte[0] = regeln.getOffset(Instant.ofEpochMilli(vonMilli)).getTotalSeconds();
+        ZoneOffsetTransition t = regeln.nextTransition(Instant.ofEpochMilli(vonMilli));
+        while (t != null && t.toEpochSecond() * 1000L <= bisMilli) {
+            if (anzahl == zeitpunkte.length) {
+                zeitpunkte = Arrays.copyOf(zeitpunkte, anzahl * 2);
+                werte = Arrays.copyOf(werte, anzahl * 2 + 1);
+            }
+            zeitpunkte[anzahl] = t.toEpochSecond() * 1000L;
+            werte[anzahl + 1] = t.getOffsetAfter().getTotalSeconds();
+            anzahl++;
+            t = regeln.nextTransition(t.getInstant());
+        }
+        this.uebergaenge = Arrays.copyOf(zeitpunkte, anzahl);
+        this.offsets = Arrays.copyOf(werte, anzahl + 1);
+    }
+
+    /**
+     * Liefert (gecacht) die Übergänge der Zone, die mindestens den Bereich von bis bis abdecken. Der Bereich wird auf
+     * ein Jahr davor und danach erweitert, damit Folgeaufrufe mit ähnlichen Daten die Tabelle wieder verwenden.
+     * 
+     * @param zone - z.B. ZoneId.of("Europe/Vienna")
+     * @param vonMilli - kleinster Zeitpunkt (Epoch-Millis)
+     * @param bisMilli - größter Zeitpunkt (Epoch-Millis)
+     * @return die Übergangstabelle
+     */
+    public static ZonenUebergaenge fuer(ZoneId zone, long vonMilli, long bisMilli) {
+        // Regelbasierte Zonen haben unendlich viele Übergänge, daher ist die Tabelle auf 1800 bis 2200 begrenzt
+        long von = Math.min(Math.max(vonMilli, TABELLE_AB), TABELLE_BIS);
+        long bis = Math.max(Math.min(bisMilli, TABELLE_BIS), von);
+        ZonenUebergaenge vorhanden = CACHE.get(zone.getId());
+        if (vorhanden != null && vorhanden.vonMilli <= von && vorhanden.bisMilli >= bis) {
+            return vorhanden;
+        }
+        von = Math.max(von - MILLIS_PRO_JAHR, TABELLE_AB);
+        bis = Math.min(bis + MILLIS_PRO_JAHR, TABELLE_BIS);
+        if (vorhanden != null) {
+            von = Math.min(von, vorhanden.vonMilli);
+            bis = Math.max(bis, vorhanden.bisMilli);
+        }
+        ZonenUebergaenge neu = new ZonenUebergaenge(DatumKonverter.zonenRegeln(zone), von, bis);
+        CACHE.put(zone.getId(), neu);
+        return neu;
+    }
+
+    /**
+     * Offset der Zone zum Zeitpunkt in Sekunden.
+     * 
+     * @param epochMilli - Millisekunden seit 1970-01-01T00:00Z
+     * @return Offset in Sekunden
+     */
+    public int offsetSekunden(long epochMilli) {
+        if (epochMilli < vonMilli || epochMilli > bisMilli) {
+            return DatumKonverter.offsetSekunden(epochMilli, regeln);
+        }
+        return offsets[abschnitt(epochMilli)];
+    }
+
+    /**
+     * @return Anzahl der Übergänge in der Tabelle
+     */
+    public int anzahlUebergaenge() {
+        return uebergaenge.length;
+    }
+
+    boolean deckt(long epochMilli) {
+        return epochMilli >= vonMilli && epochMilli <= bisMilli;
+    }
+
+    /**
+     * Index in offsets, also die Anzahl der Übergänge, die vor oder genau auf epochMilli liegen.
+     */
+    int abschnitt(long epochMilli) {
+        int i = Arrays.binarySearch(uebergaenge, epochMilli);
+        return i >= 0 ? i + 1 : -(i + 1);
+    }
+
+    /**
+     * Prüft, ob epochMilli noch im Abschnitt liegt (für sortierte Daten, dann entfällt die binäre Suche).
+     */
+    boolean liegtIn(int abschnitt, long epochMilli) {
+        return (abschnitt == 0 || uebergaenge[abschnitt - 1] <= epochMilli)
+                && (abschnitt == uebergaenge.length || epochMilli < uebergaenge[abschnitt]);
+    }
+
+    int offsetImAbschnitt(int abschnitt) {
+        return offsets[abschnitt];
+    }
+}
@@ -0,0 +1,80 @@
+package at.diwh.comfortableduration.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.Period;
+import java.time.temporal.ChronoUnit;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Jahre, Monate und Tage der KalenderZerlegung gegen Period.between, auch mit dem Anker 1970-01-01 (Epoch-Tag 0)
+ * und mit Ende vor dem Anker.
+ * 
+ * @author diwh
+ */
+public class KalenderZerlegungTest {
+
+    @Test
+    public void ankerEpochTagNull() {
+        pruefe(LocalDate.of(1970, 1, 1), LocalDate.of(1981, 5, 15));
+        pruefe(LocalDate.of(1970, 1, 1), LocalDate.of(1970, 1, 1));
+        pruefe(LocalDate.of(1970, 1, 1), LocalDate.of(1969, 2, 28));
+        KalenderZerlegung z = KalenderZerlegung.zwischen(LocalDateTime.of(1970, 1, 1, 0, 0),
+            LocalDateTime.of(1981, 5, 15, 10, 30));
+        assertEquals(11L, z.jahre());
+        assertEquals(4L, z.monate());
+        assertEquals(2L, z.wochen());
+        assertEquals(0L, z.tage());
+        assertEquals(10L, z.stunden());
+        assertEquals(30L, z.minuten());
+    }
+
+    @Test
+    public void monatsendenUndSchaltjahre() {
+        pruefe(LocalDate.of(2021, 1, 31), LocalDate.of(2021, 2, 28));
+        pruefe(LocalDate.of(2020, 1, 31), LocalDate.of(2020, 2, 29));
+        pruefe(LocalDate.of(2020, 2, 29), LocalDate.of(2021, 2, 28));
+        pruefe(LocalDate.of(2020, 2, 29), LocalDate.of(2024, 2, 29));
+        pruefe(LocalDate.of(2021, 3, 31), LocalDate.of(2021, 4, 30));
+        pruefe(LocalDate.of(2021, 3, 31), LocalDate.of(2021, 3, 1));
+    }
+
+    @Test
+    public void zufaelligeTage() {
+        Random zufall = new Random(4711L);
+        long von = LocalDate.of(1850, 1, 1).toEpochDay();
+        long bis = LocalDate.of(2250, 1, 1).toEpochDay();
+        for (int i = 0; i < 100000; i++) {
+            LocalDate anker = LocalDate.ofEpochDay(von + (long) (zufall.nextDouble() * (bis - von)));
+            LocalDate ende = i % 10 == 0 ? LocalDate.ofEpochDay(0L)
+                    : LocalDate.ofEpochDay(von + (long) (zufall.nextDouble() * (bis - von)));
+            pruefe(anker, ende);
+            pruefe(LocalDate.ofEpochDay(0L), anker);
+        }
+    }
+
+    @Test
+    public void ab() {
+        LocalDateTime anker = LocalDateTime.of(1970, 1, 1, 0, 0);
+        LocalDateTime ende = LocalDateTime.of(1981, 5, 15, 0, 0);
+        KalenderZerlegung z = KalenderZerlegung.ab(anker, ChronoUnit.SECONDS.between(anker, ende), 0);
+        Period p = Period.between(anker.toLocalDate(), ende.toLocalDate());
+        assertEquals(p.getYears(), z.jahre());
+        assertEquals(p.getMonths(), z.monate());
+        assertEquals(p.getDays(), z.wochen() * 7L + z.tage());
+    }
+
+    private static void pruefe(LocalDate anker, LocalDate ende) {
+        // liegt das Ende vor dem Anker, ist die Zerlegung die negierte vom Ende bis zum Anker
+        Period p = ende.isBefore(anker) ? Period.between(ende, anker).negated() : Period.between(anker, ende);
+        KalenderZerlegung z = KalenderZerlegung.zwischen(anker, ende);
+        String text = anker + " - " + ende;
+        assertEquals(text, p.getYears(), z.jahre());
+        assertEquals(text, p.getMonths(), z.monate());
+        assertEquals(text, p.getDays(), z.wochen() * 7L + z.tage());
+    }
+}
@@ -0,0 +1,67 @@
+package at.diwh.comfortableduration.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * Messungen mit doppeltem close() und in falscher Reihenfolge.
+ * 
+ * @author diwh
+ */
+public class ZeitmesserTest {
+
+    @Test
+    public void zweitesCloseAendertNichts() {
+        Zeitmesser zeitmesser = new Zeitmesser();
+        Zeitmesser.Messpunkt punkt = zeitmesser.messpunkt("doppelt");
+        try (Zeitmesser.Messung m = punkt.messe()) {
+            m.close();
+        }
+        try (Zeitmesser.Messung m = punkt.messe()) {
+            // danach muss messe() weiter funktionieren
+        }
+        assertEquals(2L, anzahl(zeitmesser.exportiere(), "doppelt"));
+    }
+
+    @Test
+    public void aeussereVorInnererBeendet() {
+        Zeitmesser zeitmesser = new Zeitmesser();
+        Zeitmesser.Messpunkt punkt = zeitmesser.messpunkt("verschachtelt");
+        Zeitmesser.Messung aussen = punkt.messe();
+        Zeitmesser.Messung innen = punkt.messe();
+        aussen.close();
+        // die innere ist mit der äußeren beendet worden: sie wird nicht weitergegeben, ihr close() zählt nicht
+        Zeitmesser.Messung danach = punkt.messe();
+        assertNotSame(innen, danach);
+        innen.close();
+        danach.close();
+        assertEquals(3L, anzahl(zeitmesser.exportiere(), "verschachtelt"));
+        Zeitmesser.Messung neu = punkt.messe();
+        Zeitmesser.Messung zweite = punkt.messe();
+        zweite.close();
+        neu.close();
+        assertEquals(2L, anzahl(zeitmesser.exportiere(), "verschachtelt"));
+    }
+
+    @Test
+    public void kurzlebigeThreads() throws InterruptedException {
+        Zeitmesser zeitmesser = new Zeitmesser();
+        Zeitmesser.Messpunkt punkt = zeitmesser.messpunkt("threads");
+        for (int i = 0; i < 1000; i++) {
+            Thread t = new Thread(() -> punkt.erfasse(1000L));
+            t.start();
+            t.join();
+        }
+        assertEquals(1000L, anzahl(zeitmesser.exportiere(), "threads"));
+        assertEquals(0L, anzahl(zeitmesser.exportiere(), "threads"));
+    }
+
+    private static long anzahl(Map<String, DauerHistogramm> messungen, String name) {
+        DauerHistogramm h = messungen.get(name);
+        return h == null ? 0L : h.anzahl();
+    }
+}